@@ -0,0 +1,512 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Maps external class names to the Maven artifact that contains them, so the efferent coupling
+ * of each module can be grouped by library. The index is built from the JARs in the local Maven
+ * repository and those below the scanned project, and is shared by all scans.
+ *
+ * <p>Most packages live in one artifact, so the lookup table maps packages to {@code groupId:artifactId}
+ * and only the classes of packages split across artifacts are mapped one by one; a lookup is one
+ * or two hash lookups. JARs are re-read only when their modification time or size changes. The
+ * index is persisted in {@code scan.index-directory}, if set, so a restart only checks the JARs.
+ */
+@Component
+public class ArtifactIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactIndex.class);
+
+    static final byte[] MAGIC = {'S', 'M', 'A', 'I'};
+    static final int VERSION = 1;
+    private static final int JAR = 'J';
+    private static final int SPLIT_CLASS = 'C';
+    private static final String FILE_NAME = "artifacts.smai";
+
+    /**
+     * How long the repository listing is trusted before a scan triggers a background refresh.
+     */
+    private static final Duration REPOSITORY_REFRESH_INTERVAL = Duration.ofMinutes(10);
+
+    /**
+     * How many project roots keep the listing of their last walk.
+     */
+    private static final int PROJECT_LISTINGS = 32;
+
+    /**
+     * @param coordinates {@code groupId:artifactId}, or {@code null} for unreadable JARs, which are
+     *                    kept so they are not read again until they change
+     * @param project     whether the JAR lies below a scanned project; those win over the
+     *                    repository for classes found in several artifacts
+     */
+    private record Jar(long lastModified, long size, String coordinates, boolean project, List<String> packages) {}
+
+    private record Lookup(Map<String, String> packages, Map<String, String> splitClasses) {}
+
+    /**
+     * The JARs found below a root by a walk, and the modification times of the directories walked,
+     * which change when an entry is added, removed or renamed in them.
+     */
+    private record Listing(Map<Path, Long> directories, Map<Path, BasicFileAttributes> jars) {}
+
+    private final boolean enabled;
+    private final Path repository;
+    private final Path file;
+    private final Object lock = new Object();
+    private volatile Map<Path, Jar> jars = Map.of();
+    private volatile Lookup lookup = new Lookup(Map.of(), Map.of());
+    private volatile long repositoryRefreshedAt;
+    private final AtomicBoolean repositoryRefreshing = new AtomicBoolean();
+    private final Map<Path, Listing> projectListings = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Listing> eldest) {
+            return size() > PROJECT_LISTINGS;
+        }
+    };
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("artifact-index").daemon().factory());
+
+    public ArtifactIndex(ScanProperties scanProperties) {
+        this.enabled = scanProperties.isArtifactsEnabled();
+        this.repository = scanProperties.getArtifactRepository().toAbsolutePath().normalize();
+        this.file = scanProperties.getIndexDirectory() == null ? null : scanProperties.getIndexDirectory().resolve(FILE_NAME);
+        if (enabled && file != null && Files.isRegularFile(file)) {
+            load();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshRepositoryInBackground() {
+        if (!enabled || !Files.isDirectory(repository)) return;
+        if (System.nanoTime() - repositoryRefreshedAt < REPOSITORY_REFRESH_INTERVAL.toNanos() && repositoryRefreshedAt != 0) return;
+        if (!repositoryRefreshing.compareAndSet(false, true)) return;
+        executor.execute(() -> {
+            try {
+                refresh(repository, false);
+                repositoryRefreshedAt = System.nanoTime();
+            } catch (RuntimeException e) {
+                logger.warn("Could not index the Maven repository {}", repository, e);
+            } finally {
+                repositoryRefreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Groups the external efferent dependencies of each package by artifact, after indexing the
+     * JARs below the project that changed. The project is only walked again for JARs if one of
+     * the directories of its last walk changed; otherwise the JARs found then are checked. Classes
+     * of the application modules and classes in no known artifact are left out.
+     */
+    public void attribute(Path projectPath, Map<String, PackageMetrics> metrics, List<String> modulePackages) {
+        if (!enabled) return;
+        refreshRepositoryInBackground();
+        refresh(projectPath.toAbsolutePath().normalize(), true);
+        Lookup current = lookup;
+        for (PackageMetrics packageMetrics : metrics.values()) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (String dependency : packageMetrics.getEfferentDependencies()) {
+                if (isModuleClass(dependency, modulePackages)) continue;
+                String coordinates = find(current, dependency);
+                if (coordinates != null) {
+                    counts.merge(coordinates, 1, Integer::sum);
+                }
+            }
+            Map<String, Integer> byArtifact = new LinkedHashMap<>();
+            counts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .forEach(entry -> byArtifact.put(entry.getKey(), entry.getValue()));
+            packageMetrics.setArtifactDependencies(byArtifact);
+        }
+    }
+
+    /**
+     * @return the {@code groupId:artifactId} of the artifact containing the class, or {@code null}
+     */
+    String find(String className) {
+        return find(lookup, className);
+    }
+
+    private static String find(Lookup lookup, String className) {
+        String name = className;
+        while (name.endsWith("[]")) {
+            name = name.substring(0, name.length() - 2);
+        }
+        int lastDot = name.lastIndexOf('.');
+        if (lastDot < 0) return null;
+        String coordinates = lookup.packages().get(name.substring(0, lastDot));
+        return coordinates != null ? coordinates : lookup.splitClasses().get(name);
+    }
+
+    private static boolean isModuleClass(String className, List<String> modulePackages) {
+        for (String modulePackage : modulePackages) {
+            if (className.startsWith(modulePackage) && className.length() > modulePackage.length()
+                    && className.charAt(modulePackage.length()) == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indexes the JARs below the root that are new or changed and drops those that are gone. The
+     * JARs are read without holding the lock, so scans keep using the current table meanwhile.
+     */
+    void refresh(Path root, boolean project) {
+        Map<Path, BasicFileAttributes> found = project ? listProjectJars(root) : findJars(root, false).jars();
+        Map<Path, Jar> current = jars;
+        Map<Path, Jar> read = new HashMap<>();
+        found.forEach((path, attributes) -> {
+            Jar known = current.get(path);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            if (known == null || known.lastModified() != lastModified || known.size() != attributes.size()) {
+                read.put(path, readJar(path, lastModified, attributes.size(), project));
+            }
+        });
+        List<Path> removed = current.keySet().stream()
+                .filter(path -> path.startsWith(root) && !found.containsKey(path))
+                .toList();
+        if (read.isEmpty() && removed.isEmpty()) return;
+
+        synchronized (lock) {
+            Map<Path, Jar> updated = new HashMap<>(jars);
+            removed.forEach(updated::remove);
+            updated.putAll(read);
+            lookup = buildLookup(updated, null);
+            jars = Map.copyOf(updated);
+            persist();
+        }
+        logger.info("Indexed {} changed and dropped {} removed JARs below {}; {} JARs, {} packages, {} split-package classes",
+                read.size(), removed.size(), root, jars.size(), lookup.packages().size(), lookup.splitClasses().size());
+    }
+
+    /**
+     * The JARs below a project root, from the listing of its last walk if none of the directories
+     * walked changed since, with their current attributes.
+     */
+    private Map<Path, BasicFileAttributes> listProjectJars(Path root) {
+        Listing listing;
+        synchronized (projectListings) {
+            listing = projectListings.get(root);
+        }
+        Map<Path, BasicFileAttributes> unchanged = listing == null ? null : check(listing);
+        if (unchanged != null) return unchanged;
+        listing = findJars(root, true);
+        if (!listing.directories().isEmpty()) {
+            synchronized (projectListings) {
+                projectListings.put(root, listing);
+            }
+        }
+        return listing.jars();
+    }
+
+    /**
+     * @return the current attributes of the listed JARs, or {@code null} if a listed directory
+     *         changed or a listed JAR is gone
+     */
+    private static Map<Path, BasicFileAttributes> check(Listing listing) {
+        try {
+            for (Map.Entry<Path, Long> directory : listing.directories().entrySet()) {
+                if (Files.getLastModifiedTime(directory.getKey()).toMillis() != directory.getValue()) return null;
+            }
+            Map<Path, BasicFileAttributes> jars = new HashMap<>();
+            for (Path jar : listing.jars().keySet()) {
+                jars.put(jar, Files.readAttributes(jar, BasicFileAttributes.class));
+            }
+            return jars;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Listing findJars(Path root, boolean project) {
+        Map<Path, BasicFileAttributes> found = new HashMap<>();
+        Map<Path, Long> directories = new HashMap<>();
+        if (!Files.isDirectory(root)) return new Listing(directories, found);
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                    String name = dir.getFileName() == null ? "" : dir.getFileName().toString();
+                    boolean skip = !dir.equals(root) && (name.startsWith(".") || (project && name.equals("node_modules")));
+                    if (!skip && project) {
+                        directories.put(dir, attributes.lastModifiedTime().toMillis());
+                    }
+                    return skip ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                    String name = path.getFileName().toString();
+                    if (attributes.isRegularFile() && name.endsWith(".jar")
+                            && !name.endsWith("-sources.jar") && !name.endsWith("-javadoc.jar")) {
+                        found.put(path.toAbsolutePath().normalize(), attributes);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path path, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not list the JARs below {}", root, e);
+        }
+        return new Listing(directories, found);
+    }
+
+    private Jar readJar(Path path, long lastModified, long size, boolean project) {
+        Set<String> packages = new TreeSet<>();
+        Set<String> mavenCoordinates = new HashSet<>();
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith("META-INF/maven/") && name.endsWith("/pom.properties")) {
+                    String[] parts = name.split("/");
+                    if (parts.length == 5) mavenCoordinates.add(parts[2] + ":" + parts[3]);
+                }
+                String className = className(name);
+                if (className != null && className.lastIndexOf('.') > 0) {
+                    packages.add(className.substring(0, className.lastIndexOf('.')));
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Skipping unreadable JAR {}: {}", path, e.getMessage());
+            return new Jar(lastModified, size, null, project, List.of());
+        }
+        String coordinates = mavenCoordinates.size() == 1 ? mavenCoordinates.iterator().next() : coordinatesFromPath(path);
+        return new Jar(lastModified, size, coordinates, project, List.copyOf(packages));
+    }
+
+    /**
+     * The class name of a JAR entry, or {@code null} if it is not a class. Classes of multi-release
+     * JARs count as the base class; classes nested in Spring Boot or WAR archives are skipped.
+     */
+    private static String className(String entryName) {
+        if (!entryName.endsWith(".class") || entryName.endsWith("module-info.class") || entryName.endsWith("package-info.class")) {
+            return null;
+        }
+        String name = entryName;
+        if (name.startsWith("META-INF/versions/")) {
+            int slash = name.indexOf('/', "META-INF/versions/".length());
+            if (slash < 0) return null;
+            name = name.substring(slash + 1);
+        } else if (name.startsWith("META-INF/") || name.startsWith("BOOT-INF/") || name.startsWith("WEB-INF/")) {
+            return null;
+        }
+        return name.substring(0, name.length() - ".class".length()).replace('/', '.');
+    }
+
+    /**
+     * Coordinates from the repository layout {@code group/path/artifactId/version/file.jar}, or the
+     * file name without its version for JARs elsewhere.
+     */
+    private String coordinatesFromPath(Path path) {
+        if (path.startsWith(repository)) {
+            Path relative = repository.relativize(path);
+            int count = relative.getNameCount();
+            if (count >= 4) {
+                StringBuilder groupId = new StringBuilder();
+                for (int i = 0; i < count - 3; i++) {
+                    if (i > 0) groupId.append('.');
+                    groupId.append(relative.getName(i));
+                }
+                return groupId + ":" + relative.getName(count - 3);
+            }
+        }
+        String name = path.getFileName().toString();
+        return name.substring(0, name.length() - ".jar".length()).replaceFirst("-\\d[^-]*(-[^-]+)?$", "");
+    }
+
+    /**
+     * Builds the lookup table. Classes of split packages are listed by reading the JARs that
+     * contain such packages again, unless they are given.
+     */
+    private Lookup buildLookup(Map<Path, Jar> jarsByPath, Map<String, String> knownSplitClasses) {
+        List<Map.Entry<Path, Jar>> ordered = new ArrayList<>(jarsByPath.entrySet());
+        // project JARs first, then a stable order, so the same artifact wins for a class every time
+        ordered.sort(Comparator.<Map.Entry<Path, Jar>, Boolean>comparing(entry -> !entry.getValue().project())
+                .thenComparing(entry -> entry.getKey().toString()));
+        // a copied JAR without Maven metadata is the repository artifact of the same file name
+        Map<String, String> repositoryFiles = new HashMap<>();
+        for (Map.Entry<Path, Jar> entry : ordered) {
+            if (!entry.getValue().project() && entry.getValue().coordinates() != null) {
+                repositoryFiles.putIfAbsent(entry.getKey().getFileName().toString(), entry.getValue().coordinates());
+            }
+        }
+        Map<Path, String> coordinatesByPath = new HashMap<>();
+        for (Map.Entry<Path, Jar> entry : ordered) {
+            String coordinates = entry.getValue().coordinates();
+            if (coordinates != null && entry.getValue().project() && coordinates.indexOf(':') < 0) {
+                coordinates = repositoryFiles.getOrDefault(entry.getKey().getFileName().toString(), coordinates);
+            }
+            coordinatesByPath.put(entry.getKey(), coordinates);
+        }
+
+        Map<String, String> packages = new HashMap<>();
+        Set<String> split = new HashSet<>();
+        for (Map.Entry<Path, Jar> entry : ordered) {
+            String coordinates = coordinatesByPath.get(entry.getKey());
+            if (coordinates == null) continue;
+            for (String pkg : entry.getValue().packages()) {
+                String previous = packages.putIfAbsent(pkg, coordinates);
+                if (previous != null && !previous.equals(coordinates)) {
+                    split.add(pkg);
+                }
+            }
+        }
+        split.forEach(packages::remove);
+        if (knownSplitClasses != null) {
+            return new Lookup(Map.copyOf(packages), Map.copyOf(knownSplitClasses));
+        }
+
+        Map<String, String> splitClasses = new HashMap<>();
+        for (Map.Entry<Path, Jar> entry : ordered) {
+            Jar jar = entry.getValue();
+            String coordinates = coordinatesByPath.get(entry.getKey());
+            if (coordinates == null || jar.packages().stream().noneMatch(split::contains)) continue;
+            try (ZipFile zip = new ZipFile(entry.getKey().toFile())) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    String className = className(entries.nextElement().getName());
+                    if (className != null && split.contains(className.substring(0, Math.max(0, className.lastIndexOf('.'))))) {
+                        splitClasses.putIfAbsent(className, coordinates);
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Could not list the split packages of {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return new Lookup(Map.copyOf(packages), Map.copyOf(splitClasses));
+    }
+
+    private void persist() {
+        if (file == null) return;
+        Path temporary = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temporary = Files.createTempFile(file.getParent(), "artifacts-", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary), 64 * 1024)) {
+                out.write(MAGIC);
+                out.write(VERSION);
+                BinaryRecords.Writer writer = new BinaryRecords.Writer(out);
+                for (Map.Entry<Path, Jar> entry : jars.entrySet()) {
+                    Jar jar = entry.getValue();
+                    writer.writeString(entry.getKey().toString())
+                            .writeVarint(jar.lastModified())
+                            .writeVarint(jar.size())
+                            .writeNullableString(jar.coordinates())
+                            .writeVarint(jar.project() ? 1 : 0)
+                            .writeVarint(jar.packages().size());
+                    for (String pkg : jar.packages()) {
+                        writer.writeString(pkg);
+                    }
+                    writer.endRecord(JAR);
+                }
+                for (Map.Entry<String, String> entry : lookup.splitClasses().entrySet()) {
+                    writer.writeString(entry.getKey()).writeString(entry.getValue()).endRecord(SPLIT_CLASS);
+                }
+                writer.writeVarint(jars.size()).endRecord(BinaryRecords.END);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not write the artifact index {}", file, e);
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // left for the next cleanup of the directory
+                }
+            }
+        }
+    }
+
+    private void load() {
+        Map<Path, Jar> loaded = new HashMap<>();
+        Map<String, String> splitClasses = new HashMap<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            if (!Arrays.equals(in.readNBytes(MAGIC.length), MAGIC) || in.read() != VERSION) {
+                throw new IllegalArgumentException("not an artifact index of version " + VERSION);
+            }
+            BinaryRecords.Reader reader = new BinaryRecords.Reader(in);
+            int tag;
+            while ((tag = reader.next()) != BinaryRecords.END) {
+                switch (tag) {
+                    case -1 -> throw new IllegalArgumentException("truncated");
+                    case JAR -> {
+                        Path path = Path.of(reader.readString());
+                        long lastModified = reader.readVarint();
+                        long size = reader.readVarint();
+                        String coordinates = reader.readNullableString();
+                        boolean project = reader.readVarint() == 1;
+                        int count = reader.readInt();
+                        List<String> packages = new ArrayList<>(Math.min(count, 4096));
+                        for (int i = 0; i < count; i++) {
+                            packages.add(reader.readString());
+                        }
+                        loaded.put(path, new Jar(lastModified, size, coordinates, project, List.copyOf(packages)));
+                    }
+                    case SPLIT_CLASS -> splitClasses.put(reader.readString(), reader.readString());
+                    default -> {
+                        // records added by later versions
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Ignoring unreadable artifact index {}: {}", file, e.getMessage());
+            return;
+        }
+        synchronized (lock) {
+            lookup = buildLookup(loaded, splitClasses);
+            jars = Map.copyOf(loaded);
+        }
+        logger.info("Loaded the artifact index of {} JARs from {}", loaded.size(), file);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.softwaremetrics.application;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Length-prefixed records of the binary scan format. A record is a one-byte tag, the payload length
+ * as a varint and the payload. Integers in payloads are unsigned varints, strings are a varint byte
+ * count followed by UTF-8, and nullable strings store the byte count plus one, with zero for
+ * {@code null}. Readers skip records with unknown tags, so new record types can be added without a
+ * version change.
+ */
+final class BinaryRecords {
+
+    static final byte[] MAGIC = {'S', 'M', 'E', 'X'};
+    static final int VERSION = 1;
+
+    static final int HEADER = 'H';
+    static final int PACKAGE = 'P';
+    static final int EFFERENT = 'F';
+    static final int AFFERENT = 'A';
+    static final int VIOLATION = 'V';
+    static final int ARTIFACTS = 'R';
+    static final int NAME = 'N';
+    static final int EDGE = 'E';
+    static final int END = 'Z';
+
+    private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+
+    private BinaryRecords() {
+    }
+
+    /**
+     * Builds one record at a time in a reusable buffer and writes it with its length prefix.
+     */
+    static final class Writer {
+
+        private final OutputStream out;
+        private byte[] payload = new byte[256];
+        private int length;
+        private final byte[] prefix = new byte[11];
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        Writer writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                payload[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            payload[length++] = (byte) value;
+            return this;
+        }
+
+        Writer writeDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                payload[length++] = (byte) (bits >>> shift);
+            }
+            return this;
+        }
+
+        Writer writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, payload, length, bytes.length);
+            length += bytes.length;
+            return this;
+        }
+
+        Writer writeNullableString(String value) {
+            if (value == null) return writeVarint(0);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, payload, length, bytes.length);
+            length += bytes.length;
+            return this;
+        }
+
+        /**
+         * Writes the payload built since the last record under the given tag.
+         */
+        void endRecord(int tag) throws IOException {
+            int prefixLength = 0;
+            prefix[prefixLength++] = (byte) tag;
+            long value = length;
+            while ((value & ~0x7FL) != 0) {
+                prefix[prefixLength++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            prefix[prefixLength++] = (byte) value;
+            out.write(prefix, 0, prefixLength);
+            out.write(payload, 0, length);
+            length = 0;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > payload.length) {
+                payload = Arrays.copyOf(payload, Math.max(payload.length * 2, length + extra));
+            }
+        }
+    }
+
+    /**
+     * Reads records one at a time into a reusable buffer. The stream is read in large blocks, so
+     * it does not need to be buffered.
+     */
+    static final class Reader {
+
+        private final InputStream in;
+        private final byte[] block = new byte[64 * 1024];
+        private int blockPosition;
+        private int blockLimit;
+        private byte[] payload = new byte[256];
+        private int length;
+        private int position;
+
+        Reader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Reads the next record.
+         *
+         * @return its tag, or {@code -1} at the end of the stream
+         */
+        int next() throws IOException {
+            int tag = readStreamByte();
+            if (tag < 0) return -1;
+            long recordLength = readStreamVarint();
+            if (recordLength > MAX_RECORD_LENGTH) {
+                throw new IllegalArgumentException("Corrupt scan archive: record of " + recordLength + " bytes");
+            }
+            length = (int) recordLength;
+            if (payload.length < length) {
+                payload = new byte[Math.max(payload.length * 2, length)];
+            }
+            int copied = Math.min(length, blockLimit - blockPosition);
+            System.arraycopy(block, blockPosition, payload, 0, copied);
+            blockPosition += copied;
+            if (copied < length && in.readNBytes(payload, copied, length - copied) != length - copied) {
+                throw new IllegalArgumentException("Truncated scan archive");
+            }
+            position = 0;
+            return tag;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IllegalArgumentException("Corrupt scan archive: varint too long");
+        }
+
+        int readInt() {
+            long value = readVarint();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Corrupt scan archive: value out of range");
+            }
+            return (int) value;
+        }
+
+        double readDouble() {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (readByte() & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        String readString() {
+            return readBytes(readInt());
+        }
+
+        String readNullableString() {
+            int stored = readInt();
+            return stored == 0 ? null : readBytes(stored - 1);
+        }
+
+        private String readBytes(int count) {
+            if (count > length - position) {
+                throw new IllegalArgumentException("Corrupt scan archive: string past the end of its record");
+            }
+            String value = new String(payload, position, count, StandardCharsets.UTF_8);
+            position += count;
+            return value;
+        }
+
+        private byte readByte() {
+            if (position >= length) {
+                throw new IllegalArgumentException("Corrupt scan archive: record too short");
+            }
+            return payload[position++];
+        }
+
+        private long readStreamVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readStreamByte();
+                if (b < 0) throw new IllegalArgumentException("Truncated scan archive");
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Corrupt scan archive: varint too long");
+        }
+
+        private int readStreamByte() throws IOException {
+            if (blockPosition == blockLimit) {
+                blockLimit = Math.max(0, in.read(block));
+                blockPosition = 0;
+                if (blockLimit == 0) return -1;
+            }
+            return block[blockPosition++] & 0xFF;
+        }
+    }
+}
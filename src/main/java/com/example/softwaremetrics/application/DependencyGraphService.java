@@ -0,0 +1,51 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.DependencyTree;
+import com.example.softwaremetrics.domain.DependencyTree.DependencyGraph;
+import com.example.softwaremetrics.domain.DependencyTree.Viewport;
+import com.example.softwaremetrics.domain.PackageMetrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves level-of-detail views of a package's dependency graph. Each {@link DependencyTree} is
+ * clustered and laid out once per scan, package and direction, then cached, so zooming and
+ * panning only cut views out of the precomputed layout.
+ */
+@Component
+public class DependencyGraphService {
+
+    private static final int CACHE_SIZE = 64;
+
+    private final Map<String, DependencyTree> trees = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DependencyTree> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * @param level    the level of detail to return, or {@code null} to pick the deepest level
+     *                 that fits in {@code maxNodes}
+     * @param viewport the visible area in layout coordinates, or {@code null} for everything
+     */
+    public DependencyGraph graph(ScanResult result, String packageName, boolean efferent,
+                                 Integer level, int maxNodes, Viewport viewport) {
+        DependencyTree tree = tree(result, packageName, efferent);
+        int effectiveLevel = level != null ? level : tree.levelFor(maxNodes);
+        return tree.view(effectiveLevel, viewport);
+    }
+
+    private synchronized DependencyTree tree(ScanResult result, String packageName, boolean efferent) {
+        String key = result.id() + '/' + packageName + '/' + (efferent ? "efferent" : "afferent");
+        return trees.computeIfAbsent(key, _ -> {
+            PackageMetrics metrics = result.metrics().get(packageName);
+            List<String> dependencies = efferent ? metrics.getEfferentDependencies() : metrics.getAfferentDependencies();
+            return new DependencyTree(packageName, dependencies);
+        });
+    }
+}
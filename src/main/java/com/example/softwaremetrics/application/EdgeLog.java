@@ -0,0 +1,180 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.DependencyObserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class-level dependency edges of one scan, appended to a temporary file as the parser finds
+ * them. The file holds the name and edge records of the binary scan format: a name is written the
+ * first time it is used and edges refer to names by number, so the log can be copied into an
+ * export as it is. While recording only the name dictionary is kept in memory; it is dropped once
+ * the log is finished.
+ */
+public final class EdgeLog implements DependencyObserver {
+
+    private static final Logger logger = LoggerFactory.getLogger(EdgeLog.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private OutputStream out;
+    private BinaryRecords.Writer writer;
+    private Map<String, Integer> names = new HashMap<>();
+    private int nameCount;
+    private long edgeCount;
+
+    private EdgeLog(Path file) throws IOException {
+        this.file = file;
+        this.out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        this.writer = new BinaryRecords.Writer(out);
+    }
+
+    /**
+     * Creates an empty log in the given directory, or in the system temporary directory if it is
+     * {@code null}.
+     */
+    public static EdgeLog create(Path directory) {
+        try {
+            Path parent = directory != null ? Files.createDirectories(directory) : null;
+            Path file = parent != null
+                    ? Files.createTempFile(parent, "scan-edges-", ".bin")
+                    : Files.createTempFile("scan-edges-", ".bin");
+            return new EdgeLog(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create edge log", e);
+        }
+    }
+
+    @Override
+    public synchronized void onDependency(String sourceModule, String sourceClass, String targetModule, String targetClass) {
+        if (names == null) {
+            throw new IllegalStateException("Edge log is finished");
+        }
+        try {
+            int sourceModuleId = nameId(sourceModule);
+            int sourceClassId = nameId(sourceClass);
+            int targetModuleId = targetModule == null ? -1 : nameId(targetModule);
+            int targetClassId = nameId(targetClass);
+            writer.writeVarint(sourceModuleId).writeVarint(sourceClassId)
+                    .writeVarint(targetModuleId + 1L).writeVarint(targetClassId)
+                    .endRecord(BinaryRecords.EDGE);
+            edgeCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write edge log " + file, e);
+        }
+    }
+
+    private int nameId(String name) throws IOException {
+        Integer id = names.get(name);
+        if (id != null) return id;
+        writer.writeString(name).endRecord(BinaryRecords.NAME);
+        names.put(name, nameCount);
+        return nameCount++;
+    }
+
+    /**
+     * Appends a name record read from an archive. Together with {@link #appendEdge} this copies
+     * the records of an archive with their numbering, without building the name dictionary; a log
+     * filled this way cannot be added to with {@link #onDependency}.
+     */
+    synchronized void appendName(String name) throws IOException {
+        names = null;
+        writer.writeString(name).endRecord(BinaryRecords.NAME);
+        nameCount++;
+    }
+
+    /**
+     * Appends an edge record read from an archive.
+     *
+     * @param targetModule the number of the target module plus one, or zero for none
+     * @throws IllegalArgumentException if the edge refers to a name that was not appended before
+     */
+    synchronized void appendEdge(int sourceModule, int sourceClass, int targetModule, int targetClass) throws IOException {
+        if (sourceModule >= nameCount || sourceClass >= nameCount || targetModule > nameCount || targetClass >= nameCount) {
+            throw new IllegalArgumentException("Corrupt scan archive: edge refers to an undefined name");
+        }
+        writer.writeVarint(sourceModule).writeVarint(sourceClass)
+                .writeVarint(targetModule).writeVarint(targetClass)
+                .endRecord(BinaryRecords.EDGE);
+        edgeCount++;
+    }
+
+    /**
+     * Flushes the log and releases the name dictionary. No edges can be added afterwards.
+     */
+    public synchronized EdgeLog finish() {
+        if (writer == null) return this;
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write edge log " + file, e);
+        }
+        logger.debug("Recorded {} edges between {} names in {}", edgeCount, nameCount, file);
+        out = null;
+        writer = null;
+        names = null;
+        return this;
+    }
+
+    public synchronized long getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Copies the name and edge records as they are.
+     */
+    void copyTo(OutputStream target) throws IOException {
+        Files.copy(file, target);
+    }
+
+    /**
+     * Reads the edges back in the order they were recorded. Only the names are held in memory.
+     */
+    public void forEach(DependencyObserver observer) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            BinaryRecords.Reader reader = new BinaryRecords.Reader(in);
+            List<String> decoded = new ArrayList<>();
+            int tag;
+            while ((tag = reader.next()) >= 0) {
+                if (tag == BinaryRecords.NAME) {
+                    decoded.add(reader.readString());
+                } else if (tag == BinaryRecords.EDGE) {
+                    String sourceModule = decoded.get(reader.readInt());
+                    String sourceClass = decoded.get(reader.readInt());
+                    int targetModuleId = reader.readInt();
+                    String targetModule = targetModuleId == 0 ? null : decoded.get(targetModuleId - 1);
+                    observer.onDependency(sourceModule, sourceClass, targetModule, decoded.get(reader.readInt()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the log file. Exports that are still reading it fail.
+     */
+    public synchronized void delete() {
+        try {
+            if (out != null) out.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete edge log {}", file, e);
+        }
+        out = null;
+        writer = null;
+        names = null;
+    }
+}
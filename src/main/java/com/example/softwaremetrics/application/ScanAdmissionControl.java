@@ -0,0 +1,62 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many scans run at once. Further scans wait in a bounded queue for a free slot, in the
+ * order they arrived; once the queue is full, or a scan waits longer than the queue timeout, it is
+ * rejected with a {@link ScanRejectedException}.
+ */
+@Component
+public class ScanAdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanAdmissionControl.class);
+
+    private final Semaphore slots;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ScanProperties scanProperties;
+
+    public ScanAdmissionControl(ScanProperties scanProperties) {
+        this.scanProperties = scanProperties;
+        this.slots = new Semaphore(Math.max(1, scanProperties.getMaxConcurrentScans()), true);
+    }
+
+    public <T> T admit(Supplier<T> scan) {
+        // the untimed tryAcquire barges, so it is only tried while nobody waits
+        if (slots.hasQueuedThreads() || !slots.tryAcquire()) {
+            waitForSlot();
+        }
+        try {
+            return scan.get();
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void waitForSlot() {
+        if (queued.incrementAndGet() > scanProperties.getMaxQueuedScans()) {
+            queued.decrementAndGet();
+            throw new ScanRejectedException("Too many scans in progress, please retry later");
+        }
+        try {
+            logger.debug("Waiting for a scan slot ({} queued)", queued.get());
+            if (!slots.tryAcquire(scanProperties.getQueueTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ScanRejectedException("Timed out waiting for a free scan slot, please retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScanRejectedException("Interrupted while waiting for a free scan slot");
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+}
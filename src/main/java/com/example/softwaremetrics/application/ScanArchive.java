@@ -0,0 +1,214 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.RuleViolation;
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes scan results in the binary export format and loads them back. An archive is the magic
+ * {@code SMEX} and a version byte followed by {@link BinaryRecords}: a header, one record per
+ * package followed by its dependency lists in chunks and its artifact attribution, if any, the
+ * rule violations, the name and edge records of the {@link EdgeLog}, and an end record with the
+ * edge count. Everything is written as
+ * a stream, and the edge records are copied from the log file without decoding them.
+ */
+@Component
+public class ScanArchive {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int NAMES_PER_CHUNK = 1024;
+
+    private final ScanProperties scanProperties;
+
+    public ScanArchive(ScanProperties scanProperties) {
+        this.scanProperties = scanProperties;
+    }
+
+    public void write(ScanResult result, OutputStream target) throws IOException {
+        BufferedOutputStream out = new BufferedOutputStream(target, BUFFER_SIZE);
+        out.write(BinaryRecords.MAGIC);
+        out.write(BinaryRecords.VERSION);
+        BinaryRecords.Writer writer = new BinaryRecords.Writer(out);
+        writer.writeString(result.id())
+                .writeString(result.projectPath())
+                .writeVarint(result.completedAt().toEpochMilli())
+                .writeVarint(result.violationCount())
+                .endRecord(BinaryRecords.HEADER);
+        for (PackageMetrics metrics : result.metrics().values()) {
+            writer.writeString(metrics.getPackageName())
+                    .writeVarint(metrics.getAbstractClassCount())
+                    .writeVarint(metrics.getTotalClassCount())
+                    .writeVarint(metrics.getCe())
+                    .writeVarint(metrics.getCa())
+                    .writeDouble(metrics.getAbstractness())
+                    .writeDouble(metrics.getInstability())
+                    .writeDouble(metrics.getDistance())
+                    .writeVarint(metrics.isApproximate() ? 1 : 0)
+                    .writeVarint(metrics.getCeLowerBound())
+                    .writeVarint(metrics.getCeUpperBound())
+                    .writeVarint(metrics.getCaLowerBound())
+                    .writeVarint(metrics.getCaUpperBound())
+                    .writeDouble(metrics.getInstabilityLowerBound())
+                    .writeDouble(metrics.getInstabilityUpperBound())
+                    .endRecord(BinaryRecords.PACKAGE);
+            writeNames(writer, metrics.getEfferentDependencies(), BinaryRecords.EFFERENT);
+            writeNames(writer, metrics.getAfferentDependencies(), BinaryRecords.AFFERENT);
+            if (!metrics.getArtifactDependencies().isEmpty()) {
+                writer.writeVarint(metrics.getArtifactDependencies().size());
+                for (Map.Entry<String, Integer> artifact : metrics.getArtifactDependencies().entrySet()) {
+                    writer.writeString(artifact.getKey()).writeVarint(artifact.getValue());
+                }
+                writer.endRecord(BinaryRecords.ARTIFACTS);
+            }
+        }
+        for (RuleViolation violation : result.violations()) {
+            writer.writeString(violation.rule())
+                    .writeNullableString(violation.source())
+                    .writeNullableString(violation.target())
+                    .writeString(violation.message())
+                    .endRecord(BinaryRecords.VIOLATION);
+        }
+        long edgeCount = 0;
+        if (result.edges() != null) {
+            out.flush();
+            result.edges().copyTo(target);
+            edgeCount = result.edges().getEdgeCount();
+        }
+        writer.writeVarint(edgeCount).endRecord(BinaryRecords.END);
+        out.flush();
+    }
+
+    private static void writeNames(BinaryRecords.Writer writer, List<String> names, int tag) throws IOException {
+        for (int start = 0; start < names.size(); start += NAMES_PER_CHUNK) {
+            List<String> chunk = names.subList(start, Math.min(names.size(), start + NAMES_PER_CHUNK));
+            writer.writeVarint(chunk.size());
+            for (String name : chunk) {
+                writer.writeString(name);
+            }
+            writer.endRecord(tag);
+        }
+    }
+
+    /**
+     * Loads an archive written by {@link #write}. The edges are copied to a new {@link EdgeLog}.
+     *
+     * @throws IllegalArgumentException if the stream is not a scan archive of a supported version,
+     *                                  is corrupt or truncated, or its id does not match its content
+     */
+    public ScanResult read(InputStream in) throws IOException {
+        byte[] magic = in.readNBytes(BinaryRecords.MAGIC.length);
+        if (!Arrays.equals(magic, BinaryRecords.MAGIC)) {
+            throw new IllegalArgumentException("Not a scan archive");
+        }
+        int version = in.read();
+        if (version != BinaryRecords.VERSION) {
+            throw new IllegalArgumentException("Unsupported scan archive version " + version);
+        }
+
+        BinaryRecords.Reader reader = new BinaryRecords.Reader(in);
+        if (reader.next() != BinaryRecords.HEADER) {
+            throw new IllegalArgumentException("Corrupt scan archive: missing header");
+        }
+        String id = reader.readString();
+        String projectPath = reader.readString();
+        Instant completedAt = Instant.ofEpochMilli(reader.readVarint());
+        long violationCount = reader.readVarint();
+
+        Map<String, PackageMetrics> metrics = new LinkedHashMap<>();
+        List<RuleViolation> violations = new ArrayList<>();
+        PackageMetrics current = null;
+        EdgeLog edges = EdgeLog.create(scanProperties.getSpillDirectory());
+        try {
+            int tag;
+            while ((tag = reader.next()) != BinaryRecords.END) {
+                switch (tag) {
+                    case -1 -> throw new IllegalArgumentException("Truncated scan archive");
+                    case BinaryRecords.PACKAGE -> {
+                        current = readPackage(reader);
+                        metrics.put(current.getPackageName(), current);
+                    }
+                    case BinaryRecords.EFFERENT, BinaryRecords.AFFERENT -> {
+                        if (current == null) {
+                            throw new IllegalArgumentException("Corrupt scan archive: dependencies without a package");
+                        }
+                        List<String> target = tag == BinaryRecords.EFFERENT
+                                ? current.getEfferentDependencies() : current.getAfferentDependencies();
+                        for (int i = reader.readInt(); i > 0; i--) {
+                            target.add(reader.readString());
+                        }
+                    }
+                    case BinaryRecords.ARTIFACTS -> {
+                        if (current == null) {
+                            throw new IllegalArgumentException("Corrupt scan archive: artifacts without a package");
+                        }
+                        Map<String, Integer> artifacts = new LinkedHashMap<>();
+                        for (int i = reader.readInt(); i > 0; i--) {
+                            artifacts.put(reader.readString(), reader.readInt());
+                        }
+                        current.setArtifactDependencies(artifacts);
+                    }
+                    case BinaryRecords.VIOLATION -> violations.add(new RuleViolation(reader.readString(),
+                            reader.readNullableString(), reader.readNullableString(), reader.readString()));
+                    // names and edges keep their numbering, so they are copied without a dictionary
+                    case BinaryRecords.NAME -> edges.appendName(reader.readString());
+                    case BinaryRecords.EDGE -> edges.appendEdge(reader.readInt(), reader.readInt(), reader.readInt(),
+                            reader.readInt());
+                    default -> {
+                        // records added by later minor revisions of the format
+                    }
+                }
+            }
+            long edgeCount = reader.readVarint();
+            if (edgeCount != edges.getEdgeCount()) {
+                throw new IllegalArgumentException("Corrupt scan archive: expected " + edgeCount + " edges but found "
+                        + edges.getEdgeCount());
+            }
+            // the id names the result in the store, so an archive must not claim another scan's id
+            if (!id.equals(ScanResult.fingerprint(projectPath, metrics, violations))) {
+                throw new IllegalArgumentException("Corrupt scan archive: id " + id + " does not match its content");
+            }
+            edges.finish();
+        } catch (IOException | RuntimeException e) {
+            edges.delete();
+            throw e;
+        }
+        return new ScanResult(id, projectPath, Collections.unmodifiableMap(metrics), List.copyOf(violations),
+                violationCount, edges, completedAt);
+    }
+
+    private static PackageMetrics readPackage(BinaryRecords.Reader reader) {
+        PackageMetrics metrics = new PackageMetrics();
+        metrics.setPackageName(reader.readString());
+        metrics.setAbstractClassCount(reader.readInt());
+        metrics.setTotalClassCount(reader.readInt());
+        metrics.setCe(reader.readInt());
+        metrics.setCa(reader.readInt());
+        metrics.setAbstractness(reader.readDouble());
+        metrics.setInstability(reader.readDouble());
+        metrics.setDistance(reader.readDouble());
+        metrics.setApproximate(reader.readVarint() != 0);
+        metrics.setCeLowerBound(reader.readInt());
+        metrics.setCeUpperBound(reader.readInt());
+        metrics.setCaLowerBound(reader.readInt());
+        metrics.setCaUpperBound(reader.readInt());
+        metrics.setInstabilityLowerBound(reader.readDouble());
+        metrics.setInstabilityUpperBound(reader.readDouble());
+        metrics.setEfferentDependencies(new ArrayList<>());
+        metrics.setAfferentDependencies(new ArrayList<>());
+        return metrics;
+    }
+}
@@ -0,0 +1,528 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.ClassAnalysis;
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.RuleViolation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * The analysis index of one completed scan, persisted so the scan can be served and revalidated
+ * after a restart. The file is memory-mapped and read in place: the result is served from the
+ * package table with dependency lists that decode names as they are read, and a class lookup is a
+ * binary search over fixed-size class rows.
+ *
+ * <p>Layout, big-endian, version 2:
+ * <ol>
+ *     <li>header: magic {@code SMIX}, version, completion time, the section counts, the string ids
+ *         of the scan id and project path, the total violation count and the dependency list and
+ *         artifact lengths;</li>
+ *     <li>string offsets: one int per string plus an end offset, relative to the string data;</li>
+ *     <li>packages: one {@value #PACKAGE_ROW_BYTES}-byte row per module package with its name,
+ *         class counts, Ce, Ca, the start of its dependency lists, its abstractness, instability
+ *         and distance, and the range of its artifacts;</li>
+ *     <li>dependency lists: the sorted efferent and afferent dependencies of each package as
+ *         string ids;</li>
+ *     <li>artifacts: coordinates string id and class count of each artifact a package depends on,
+ *         see {@link PackageMetrics#getArtifactDependencies()};</li>
+ *     <li>classes: one {@value #CLASS_ROW_BYTES}-byte row per class file, sorted by relative path:
+ *         path, class name, package index or -1, flags, modification time, size, and the range of
+ *         its dependencies;</li>
+ *     <li>dependencies: package index or -1 and class name of each dependency;</li>
+ *     <li>violations: rule, source, target and message string ids, -1 for none;</li>
+ *     <li>string data: UTF-8.</li>
+ * </ol>
+ */
+public final class ScanIndex {
+
+    static final byte[] MAGIC = {'S', 'M', 'I', 'X'};
+    static final int VERSION = 2;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int PACKAGE_ROW_BYTES = 60;
+    private static final int ARTIFACT_BYTES = 8;
+    private static final int CLASS_ROW_BYTES = 40;
+    private static final int DEPENDENCY_BYTES = 8;
+    private static final int VIOLATION_BYTES = 16;
+    private static final int ABSTRACT_FLAG = 1;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int packageCount;
+    private final int classCount;
+    private final int dependencyCount;
+    private final int violationCount;
+    private final int listLength;
+    private final int artifactLength;
+    private final int packagesOffset;
+    private final int listsOffset;
+    private final int artifactsOffset;
+    private final int classesOffset;
+    private final int dependenciesOffset;
+    private final int violationsOffset;
+    private final int stringDataOffset;
+    private final List<String> modulePackages;
+
+    private ScanIndex(Path file, ByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES) {
+            throw new IllegalArgumentException("Truncated scan index " + file);
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalArgumentException("Not a scan index: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported scan index version " + buffer.getInt(4) + ": " + file);
+        }
+        stringCount = count(16);
+        packageCount = count(20);
+        classCount = count(24);
+        dependencyCount = count(28);
+        violationCount = count(32);
+        listLength = count(52);
+        artifactLength = count(56);
+        long packages = HEADER_BYTES + 4L * (stringCount + 1);
+        long lists = packages + (long) PACKAGE_ROW_BYTES * packageCount;
+        long artifacts = lists + 4L * listLength;
+        long classes = artifacts + (long) ARTIFACT_BYTES * artifactLength;
+        long dependencies = classes + (long) CLASS_ROW_BYTES * classCount;
+        long violations = dependencies + (long) DEPENDENCY_BYTES * dependencyCount;
+        long stringData = violations + (long) VIOLATION_BYTES * violationCount;
+        if (stringData > buffer.capacity()
+                || stringData + Integer.toUnsignedLong(buffer.getInt(HEADER_BYTES + 4 * stringCount)) != buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated scan index " + file);
+        }
+        packagesOffset = (int) packages;
+        listsOffset = (int) lists;
+        artifactsOffset = (int) artifacts;
+        classesOffset = (int) classes;
+        dependenciesOffset = (int) dependencies;
+        violationsOffset = (int) violations;
+        stringDataOffset = (int) stringData;
+        List<String> packageNames = new ArrayList<>(packageCount);
+        for (int i = 0; i < packageCount; i++) {
+            packageNames.add(string(buffer.getInt(packagesOffset + i * PACKAGE_ROW_BYTES)));
+        }
+        modulePackages = List.copyOf(packageNames);
+    }
+
+    private int count(int position) {
+        int value = buffer.getInt(position);
+        if (value < 0) {
+            throw new IllegalArgumentException("Corrupt scan index " + file);
+        }
+        return value;
+    }
+
+    /**
+     * Maps an index file. Only the header and package names are read; class rows are paged in as
+     * they are looked up.
+     *
+     * @throws IllegalArgumentException if the file is not a scan index of a supported version or is
+     *                                  truncated
+     */
+    public static ScanIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Scan index too large: " + file);
+            }
+            return new ScanIndex(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getId() {
+        return string(buffer.getInt(36));
+    }
+
+    public String getProjectPath() {
+        return string(buffer.getInt(40));
+    }
+
+    public Instant getCompletedAt() {
+        return Instant.ofEpochMilli(buffer.getLong(8));
+    }
+
+    public List<String> getModulePackages() {
+        return modulePackages;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * Finds the analysis of a class file, if it has not changed since the scan.
+     *
+     * @param relativePath the file path relative to the project, with {@code /} separators
+     * @return the analysis, or {@code null} if the file is unknown or its time or size differ
+     */
+    ClassAnalysis find(String relativePath, long lastModified, long size) {
+        int low = 0;
+        int high = classCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int row = classesOffset + middle * CLASS_ROW_BYTES;
+            int comparison = string(buffer.getInt(row)).compareTo(relativePath);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return buffer.getLong(row + 16) == lastModified && buffer.getLong(row + 24) == size
+                        ? analysisAt(row)
+                        : null;
+            }
+        }
+        return null;
+    }
+
+    private ClassAnalysis analysisAt(int row) {
+        int first = buffer.getInt(row + 32);
+        int count = buffer.getInt(row + 36);
+        checkRange(first, count, dependencyCount);
+        List<ClassAnalysis.Dependency> dependencies = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            int position = dependenciesOffset + i * DEPENDENCY_BYTES;
+            dependencies.add(new ClassAnalysis.Dependency(packageName(buffer.getInt(position)), string(buffer.getInt(position + 4))));
+        }
+        return new ClassAnalysis(string(buffer.getInt(row + 4)), packageName(buffer.getInt(row + 8)),
+                (buffer.getInt(row + 12) & ABSTRACT_FLAG) != 0, dependencies);
+    }
+
+    /**
+     * The result of the scan. Package metrics are read from the package table; their dependency
+     * lists are views of the mapped file, so names are only decoded when a list is read. The result
+     * has no edge log.
+     */
+    ScanResult toResult() {
+        Map<String, PackageMetrics> metrics = new LinkedHashMap<>();
+        for (int i = 0; i < packageCount; i++) {
+            int row = packagesOffset + i * PACKAGE_ROW_BYTES;
+            int ce = buffer.getInt(row + 12);
+            int ca = buffer.getInt(row + 16);
+            int efferentStart = buffer.getInt(row + 20);
+            int afferentStart = buffer.getInt(row + 24);
+            checkRange(efferentStart, ce, listLength);
+            checkRange(afferentStart, ca, listLength);
+            double instability = buffer.getDouble(row + 36);
+            PackageMetrics packageMetrics = new PackageMetrics();
+            packageMetrics.setPackageName(modulePackages.get(i));
+            packageMetrics.setAbstractClassCount(buffer.getInt(row + 4));
+            packageMetrics.setTotalClassCount(buffer.getInt(row + 8));
+            packageMetrics.setCe(ce);
+            packageMetrics.setCa(ca);
+            packageMetrics.setEfferentDependencies(new NameList(efferentStart, ce));
+            packageMetrics.setAfferentDependencies(new NameList(afferentStart, ca));
+            packageMetrics.setAbstractness(buffer.getDouble(row + 28));
+            packageMetrics.setInstability(instability);
+            packageMetrics.setDistance(buffer.getDouble(row + 44));
+            packageMetrics.setCeLowerBound(ce);
+            packageMetrics.setCeUpperBound(ce);
+            packageMetrics.setCaLowerBound(ca);
+            packageMetrics.setCaUpperBound(ca);
+            packageMetrics.setInstabilityLowerBound(instability);
+            packageMetrics.setInstabilityUpperBound(instability);
+            packageMetrics.setArtifactDependencies(artifacts(buffer.getInt(row + 52), buffer.getInt(row + 56)));
+            metrics.put(packageMetrics.getPackageName(), packageMetrics);
+        }
+
+        List<RuleViolation> violations = new ArrayList<>(violationCount);
+        for (int i = 0; i < violationCount; i++) {
+            int position = violationsOffset + i * VIOLATION_BYTES;
+            violations.add(new RuleViolation(string(buffer.getInt(position)), nullableString(buffer.getInt(position + 4)),
+                    nullableString(buffer.getInt(position + 8)), string(buffer.getInt(position + 12))));
+        }
+        return new ScanResult(getId(), getProjectPath(), Collections.unmodifiableMap(metrics), List.copyOf(violations),
+                buffer.getLong(44), null, getCompletedAt());
+    }
+
+    private Map<String, Integer> artifacts(int start, int count) {
+        checkRange(start, count, artifactLength);
+        if (count == 0) return Map.of();
+        Map<String, Integer> artifacts = new LinkedHashMap<>();
+        for (int i = start; i < start + count; i++) {
+            int position = artifactsOffset + i * ARTIFACT_BYTES;
+            artifacts.put(string(buffer.getInt(position)), buffer.getInt(position + 4));
+        }
+        return artifacts;
+    }
+
+    /**
+     * A dependency list of the package table.
+     */
+    private final class NameList extends AbstractList<String> implements RandomAccess {
+
+        private final int start;
+        private final int size;
+
+        NameList(int start, int size) {
+            this.start = start;
+            this.size = size;
+        }
+
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, size);
+            return string(buffer.getInt(listsOffset + 4 * (start + index)));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private String packageName(int index) {
+        if (index < 0) return null;
+        checkRange(index, 1, packageCount);
+        return modulePackages.get(index);
+    }
+
+    private String nullableString(int id) {
+        return id < 0 ? null : string(id);
+    }
+
+    private String string(int id) {
+        checkString(id);
+        int start = buffer.getInt(HEADER_BYTES + 4 * id);
+        int end = buffer.getInt(HEADER_BYTES + 4 * (id + 1));
+        if (start < 0 || end < start || stringDataOffset + (long) end > buffer.capacity()) {
+            throw new IllegalArgumentException("Corrupt scan index " + file);
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataOffset + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int checkString(int id) {
+        checkRange(id, 1, stringCount);
+        return id;
+    }
+
+    private void checkRange(int first, int count, int size) {
+        if (first < 0 || count < 0 || (long) first + count > size) {
+            throw new IllegalArgumentException("Corrupt scan index " + file);
+        }
+    }
+
+    /**
+     * Collects the class analyses of a scan and writes them as an index. Analyses of unchanged files
+     * are taken from the previous index of the project, if there is one.
+     */
+    static final class Builder {
+
+        private record Entry(String path, long lastModified, long size, ClassAnalysis analysis) {}
+
+        private final Path projectPath;
+        private final ScanIndex previous;
+        private final List<Entry> entries = new ArrayList<>();
+        private int reused;
+
+        Builder(Path projectPath, List<String> modulePackages, ScanIndex previous) {
+            this.projectPath = projectPath;
+            // class rows refer to module packages, so an index of other modules cannot be reused
+            this.previous = previous != null && Set.copyOf(previous.getModulePackages()).equals(Set.copyOf(modulePackages))
+                    ? previous : null;
+        }
+
+        String relativePath(Path file) {
+            return projectPath.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+        }
+
+        synchronized ClassAnalysis lookup(String relativePath, long lastModified, long size) {
+            ClassAnalysis analysis = previous == null ? null : previous.find(relativePath, lastModified, size);
+            if (analysis != null) {
+                entries.add(new Entry(relativePath, lastModified, size, analysis));
+                reused++;
+            }
+            return analysis;
+        }
+
+        synchronized void add(String relativePath, long lastModified, long size, ClassAnalysis analysis) {
+            entries.add(new Entry(relativePath, lastModified, size, analysis));
+        }
+
+        synchronized int getReusedCount() {
+            return reused;
+        }
+
+        synchronized int getClassCount() {
+            return entries.size();
+        }
+
+        synchronized void write(ScanResult result, Path target) throws IOException {
+            entries.sort(Comparator.comparing(Entry::path));
+            Map<String, Integer> ids = new HashMap<>();
+            List<byte[]> strings = new ArrayList<>();
+            int idString = intern(result.id(), ids, strings);
+            int projectString = intern(result.projectPath(), ids, strings);
+            // the package table follows the result, which is ordered by package name
+            List<PackageMetrics> packages = List.copyOf(result.metrics().values());
+            int[] packageNames = packages.stream().mapToInt(metrics -> intern(metrics.getPackageName(), ids, strings)).toArray();
+            int listLength = packages.stream()
+                    .mapToInt(metrics -> metrics.getEfferentDependencies().size() + metrics.getAfferentDependencies().size())
+                    .sum();
+            int[] lists = new int[listLength];
+            int next = 0;
+            for (PackageMetrics metrics : packages) {
+                for (String name : metrics.getEfferentDependencies()) lists[next++] = intern(name, ids, strings);
+                for (String name : metrics.getAfferentDependencies()) lists[next++] = intern(name, ids, strings);
+            }
+            int artifactLength = packages.stream().mapToInt(metrics -> metrics.getArtifactDependencies().size()).sum();
+            int[] artifacts = new int[2 * artifactLength];
+            next = 0;
+            for (PackageMetrics metrics : packages) {
+                for (Map.Entry<String, Integer> artifact : metrics.getArtifactDependencies().entrySet()) {
+                    artifacts[next++] = intern(artifact.getKey(), ids, strings);
+                    artifacts[next++] = artifact.getValue();
+                }
+            }
+            Map<String, Integer> packageIndexes = new HashMap<>();
+            for (int i = 0; i < packages.size(); i++) {
+                packageIndexes.put(packages.get(i).getPackageName(), i);
+            }
+            int[][] rows = new int[entries.size()][];
+            int dependencyCount = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                ClassAnalysis analysis = entry.analysis();
+                rows[i] = new int[]{intern(entry.path(), ids, strings), intern(analysis.className(), ids, strings),
+                        packageIndex(analysis.module(), packageIndexes), analysis.isAbstract() ? ABSTRACT_FLAG : 0,
+                        dependencyCount, analysis.dependencies().size()};
+                dependencyCount += analysis.dependencies().size();
+            }
+            int[] dependencies = new int[2 * dependencyCount];
+            next = 0;
+            for (Entry entry : entries) {
+                for (ClassAnalysis.Dependency dependency : entry.analysis().dependencies()) {
+                    dependencies[next++] = packageIndex(dependency.module(), packageIndexes);
+                    dependencies[next++] = intern(dependency.className(), ids, strings);
+                }
+            }
+            List<RuleViolation> violations = result.violations();
+            int[] violationStrings = new int[4 * violations.size()];
+            for (int i = 0; i < violations.size(); i++) {
+                RuleViolation violation = violations.get(i);
+                violationStrings[4 * i] = intern(violation.rule(), ids, strings);
+                violationStrings[4 * i + 1] = violation.source() == null ? -1 : intern(violation.source(), ids, strings);
+                violationStrings[4 * i + 2] = violation.target() == null ? -1 : intern(violation.target(), ids, strings);
+                violationStrings[4 * i + 3] = intern(violation.message(), ids, strings);
+            }
+
+            long stringBytes = strings.stream().mapToLong(bytes -> bytes.length).sum();
+            long total = HEADER_BYTES + 4L * (strings.size() + 1) + (long) PACKAGE_ROW_BYTES * packageNames.length
+                    + 4L * listLength + (long) ARTIFACT_BYTES * artifactLength + (long) CLASS_ROW_BYTES * rows.length + (long) DEPENDENCY_BYTES * dependencyCount
+                    + (long) VIOLATION_BYTES * violations.size() + stringBytes;
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Scan index would exceed 2 GB");
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target), 64 * 1024))) {
+                out.write(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(result.completedAt().toEpochMilli());
+                out.writeInt(strings.size());
+                out.writeInt(packageNames.length);
+                out.writeInt(rows.length);
+                out.writeInt(dependencyCount);
+                out.writeInt(violations.size());
+                out.writeInt(idString);
+                out.writeInt(projectString);
+                out.writeLong(result.violationCount());
+                out.writeInt(listLength);
+                out.writeInt(artifactLength);
+                out.writeInt(0);
+                int offset = 0;
+                for (byte[] bytes : strings) {
+                    out.writeInt(offset);
+                    offset += bytes.length;
+                }
+                out.writeInt(offset);
+                int listStart = 0;
+                int artifactStart = 0;
+                for (int i = 0; i < packageNames.length; i++) {
+                    PackageMetrics metrics = packages.get(i);
+                    out.writeInt(packageNames[i]);
+                    out.writeInt(metrics.getAbstractClassCount());
+                    out.writeInt(metrics.getTotalClassCount());
+                    out.writeInt(metrics.getEfferentDependencies().size());
+                    out.writeInt(metrics.getAfferentDependencies().size());
+                    out.writeInt(listStart);
+                    out.writeInt(listStart + metrics.getEfferentDependencies().size());
+                    out.writeDouble(metrics.getAbstractness());
+                    out.writeDouble(metrics.getInstability());
+                    out.writeDouble(metrics.getDistance());
+                    out.writeInt(artifactStart);
+                    out.writeInt(metrics.getArtifactDependencies().size());
+                    listStart += metrics.getEfferentDependencies().size() + metrics.getAfferentDependencies().size();
+                    artifactStart += metrics.getArtifactDependencies().size();
+                }
+                for (int value : lists) {
+                    out.writeInt(value);
+                }
+                for (int value : artifacts) {
+                    out.writeInt(value);
+                }
+                for (int i = 0; i < rows.length; i++) {
+                    int[] row = rows[i];
+                    out.writeInt(row[0]);
+                    out.writeInt(row[1]);
+                    out.writeInt(row[2]);
+                    out.writeInt(row[3]);
+                    out.writeLong(entries.get(i).lastModified());
+                    out.writeLong(entries.get(i).size());
+                    out.writeInt(row[4]);
+                    out.writeInt(row[5]);
+                }
+                for (int value : dependencies) {
+                    out.writeInt(value);
+                }
+                for (int value : violationStrings) {
+                    out.writeInt(value);
+                }
+                for (byte[] bytes : strings) {
+                    out.write(bytes);
+                }
+            }
+        }
+
+        private static int packageIndex(String module, Map<String, Integer> packageIndexes) {
+            return module == null ? -1 : packageIndexes.get(module);
+        }
+
+        private static int intern(String value, Map<String, Integer> ids, List<byte[]> strings) {
+            return ids.computeIfAbsent(value, v -> {
+                strings.add(v.getBytes(StandardCharsets.UTF_8));
+                return strings.size() - 1;
+            });
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Rescans the projects of the persisted indexes one after another once the application is ready,
+ * so results served from an index after a restart are brought up to date. Until its rescan is done,
+ * scans of a project by path are answered from its index. The rescans parse only the class files
+ * that changed and go through the usual admission control.
+ */
+@Component
+public class ScanIndexRevalidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanIndexRevalidator.class);
+
+    private final SpringBootPackageScanner springBootPackageScanner;
+    private final ScanIndexStore scanIndexStore;
+    private final ScanProperties scanProperties;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("scan-index-revalidation").daemon().factory());
+
+    public ScanIndexRevalidator(SpringBootPackageScanner springBootPackageScanner, ScanIndexStore scanIndexStore,
+                                ScanProperties scanProperties) {
+        this.springBootPackageScanner = springBootPackageScanner;
+        this.scanIndexStore = scanIndexStore;
+        this.scanProperties = scanProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void revalidate() {
+        if (!scanProperties.isIndexRevalidate()) return;
+        List<String> projectPaths = scanIndexStore.getProjectPaths();
+        if (projectPaths.isEmpty()) return;
+        logger.info("Revalidating {} indexed projects in the background", projectPaths.size());
+        projectPaths.forEach(projectPath -> executor.execute(() -> revalidate(projectPath)));
+    }
+
+    private void revalidate(String projectPath) {
+        if (!Files.isDirectory(Path.of(projectPath))) {
+            logger.info("Not revalidating {}: the project no longer exists", projectPath);
+            scanIndexStore.revalidated(projectPath);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            ScanResult result = springBootPackageScanner.rescan(projectPath);
+            logger.info("Revalidated {} in {} ms, scan {}", projectPath, (System.nanoTime() - start) / 1_000_000, result.id());
+        } catch (RuntimeException e) {
+            logger.warn("Could not revalidate {}: {}", projectPath, e.getMessage());
+        } finally {
+            scanIndexStore.revalidated(projectPath);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
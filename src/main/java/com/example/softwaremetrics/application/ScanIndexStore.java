@@ -0,0 +1,206 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.ClassAnalysis;
+import com.example.softwaremetrics.domain.ClassCache;
+import com.example.softwaremetrics.domain.ScanEvents;
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Persists the {@link ScanIndex} of the latest scan of each project in {@code scan.index-directory}.
+ * The indexes found there at startup are mapped, so their results can be served by id, and by
+ * project path until the project is revalidated, straight away. The next scan of a project only
+ * parses the class files that changed since. Nothing is persisted if the directory is not set.
+ */
+@Component
+public class ScanIndexStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanIndexStore.class);
+
+    private static final String SUFFIX = ".smix";
+
+    private final Path directory;
+    private final Map<String, ScanIndex> byProject = new ConcurrentHashMap<>();
+    private final Map<String, ScanIndex> byId = new ConcurrentHashMap<>();
+    private final Set<String> unrevalidated = ConcurrentHashMap.newKeySet();
+
+    public ScanIndexStore(ScanProperties scanProperties) {
+        this.directory = scanProperties.getIndexDirectory();
+        if (directory != null && Files.isDirectory(directory)) {
+            load(scanProperties.isIndexRevalidate());
+        }
+    }
+
+    private void load(boolean revalidate) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).forEach(file -> {
+                try {
+                    ScanIndex index = ScanIndex.open(file);
+                    register(index);
+                    // without a revalidation a by-path result would never be brought up to date
+                    if (revalidate) unrevalidated.add(key(index.getProjectPath()));
+                } catch (IOException | IllegalArgumentException e) {
+                    logger.warn("Ignoring unreadable scan index {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list scan indexes in " + directory, e);
+        }
+        logger.info("Mapped {} scan indexes from {}", byProject.size(), directory);
+    }
+
+    private void register(ScanIndex index) {
+        ScanIndex previous = byProject.put(key(index.getProjectPath()), index);
+        if (previous != null) {
+            byId.remove(previous.getId(), previous);
+        }
+        byId.put(index.getId(), index);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * The project paths of the mapped indexes, as they were scanned.
+     */
+    public List<String> getProjectPaths() {
+        return byProject.values().stream().map(ScanIndex::getProjectPath).toList();
+    }
+
+    /**
+     * Serves a result from its index, for results that are not in memory after a restart.
+     */
+    public Optional<ScanResult> load(String id) {
+        ScanIndex index = byId.get(id);
+        return index == null ? Optional.empty() : toResult(index);
+    }
+
+    /**
+     * Serves the result of the project's index mapped at startup, for scans by path that arrive
+     * before the project has been {@link #revalidated}.
+     */
+    public Optional<ScanResult> latest(String projectPath) {
+        String key = key(projectPath);
+        ScanIndex index = unrevalidated.contains(key) ? byProject.get(key) : null;
+        return index == null ? Optional.empty() : toResult(index);
+    }
+
+    /**
+     * Marks the project as revalidated after startup, whether or not the rescan succeeded, so its
+     * later scans by path are not served from the index any more.
+     */
+    public void revalidated(String projectPath) {
+        unrevalidated.remove(key(projectPath));
+    }
+
+    private Optional<ScanResult> toResult(ScanIndex index) {
+        try {
+            return Optional.of(index.toResult());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Cannot load scan {} from {}: {}", index.getId(), index.getFile(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Starts collecting the class analyses of a scan. The returned cache serves the analyses of
+     * unchanged files from the project's current index if it was built for the same modules.
+     */
+    public IndexingClassCache startScan(String projectPath, List<String> modulePackages) {
+        Path root = Path.of(projectPath).toAbsolutePath().normalize();
+        return new IndexingClassCache(new ScanIndex.Builder(root, modulePackages, byProject.get(key(projectPath))));
+    }
+
+    /**
+     * Writes the index of a completed scan, replacing the project's previous one. Failures are
+     * logged; the scan result is not affected.
+     */
+    public void save(IndexingClassCache cache, ScanResult result) {
+        ScanIndex.Builder builder = cache.builder;
+        Path target = directory.resolve(key(result.projectPath()) + SUFFIX);
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, "scan-index-", ".tmp");
+            builder.write(result, temporary);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            register(ScanIndex.open(target));
+            revalidated(result.projectPath());
+            logger.info("Indexed {} class files of {}, {} reused from the previous index",
+                    builder.getClassCount(), result.projectPath(), builder.getReusedCount());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not write the scan index of {}", result.projectPath(), e);
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // left for the next cleanup of the directory
+                }
+            }
+        }
+    }
+
+    private static String key(String projectPath) {
+        String normalized = Path.of(projectPath).toAbsolutePath().normalize().toString();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The class cache of one scan: looks files up in the previous index and records every
+     * analysis for the next one.
+     */
+    public static final class IndexingClassCache implements ClassCache {
+
+        private final ScanIndex.Builder builder;
+
+        private IndexingClassCache(ScanIndex.Builder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public ClassAnalysis lookup(Path file, long lastModified, long size) {
+            String relativePath = builder.relativePath(file);
+            ClassAnalysis analysis = builder.lookup(relativePath, lastModified, size);
+            ScanEvents.CacheLookup.record("class-index", relativePath, analysis != null);
+            return analysis;
+        }
+
+        @Override
+        public void store(Path file, long lastModified, long size, ClassAnalysis analysis) {
+            builder.add(builder.relativePath(file), lastModified, size, analysis);
+        }
+
+        public int getReusedCount() {
+            return builder.getReusedCount();
+        }
+
+        public int getClassCount() {
+            return builder.getClassCount();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.softwaremetrics.application;
+
+/**
+ * Thrown when a scan cannot be admitted because the server is already running and queueing as many
+ * scans as it allows.
+ */
+public class ScanRejectedException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ScanRejectedException(String message) {
+        super(message);
+    }
+}
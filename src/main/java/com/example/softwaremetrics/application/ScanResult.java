@@ -0,0 +1,93 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.RuleViolation;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A completed scan. The id is a fingerprint of the metrics, so rescanning an unchanged project
+ * yields the same id and clients can use it as a cache validator.
+ *
+ * @param id             SHA-256 fingerprint of the project path, metrics and violations
+ * @param projectPath    the scanned project path
+ * @param metrics        metrics per application module package, ordered by package name, with
+ *                       sorted dependency lists
+ * @param violations     the first architecture rule violations found
+ * @param violationCount the number of violations found, including those not kept
+ * @param edges          the class-level dependency edges, or {@code null} if they were not recorded
+ * @param completedAt    when the scan finished
+ */
+public record ScanResult(String id, String projectPath, Map<String, PackageMetrics> metrics,
+                         List<RuleViolation> violations, long violationCount, EdgeLog edges,
+                         Instant completedAt) {
+
+    public static ScanResult of(String projectPath, Map<String, PackageMetrics> metrics) {
+        return of(projectPath, metrics, List.of(), 0);
+    }
+
+    public static ScanResult of(String projectPath, Map<String, PackageMetrics> metrics,
+                                List<RuleViolation> violations, long violationCount) {
+        return of(projectPath, metrics, violations, violationCount, null);
+    }
+
+    public static ScanResult of(String projectPath, Map<String, PackageMetrics> metrics,
+                                List<RuleViolation> violations, long violationCount, EdgeLog edges) {
+        Map<String, PackageMetrics> ordered = new LinkedHashMap<>();
+        metrics.keySet().stream().sorted().forEach(pkg -> {
+            PackageMetrics packageMetrics = metrics.get(pkg);
+            packageMetrics.setEfferentDependencies(sorted(packageMetrics.getEfferentDependencies()));
+            packageMetrics.setAfferentDependencies(sorted(packageMetrics.getAfferentDependencies()));
+            ordered.put(pkg, packageMetrics);
+        });
+        return new ScanResult(fingerprint(projectPath, ordered, violations), projectPath,
+                Collections.unmodifiableMap(ordered), List.copyOf(violations), violationCount, edges,
+                Instant.now());
+    }
+
+    private static List<String> sorted(List<String> dependencies) {
+        List<String> sorted = dependencies == null ? new ArrayList<>() : new ArrayList<>(dependencies);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * The id of a result with the given content, the metrics in order and their dependency lists sorted.
+     */
+    static String fingerprint(String projectPath, Map<String, PackageMetrics> metrics,
+                              List<RuleViolation> violations) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, projectPath);
+            metrics.values().forEach(m -> {
+                update(digest, m.getPackageName());
+                update(digest, m.getAbstractClassCount() + ":" + m.getTotalClassCount() + ":" + m.getCe() + ":" + m.getCa());
+                m.getEfferentDependencies().forEach(dependency -> update(digest, dependency));
+                update(digest, "|");
+                m.getAfferentDependencies().forEach(dependency -> update(digest, dependency));
+                update(digest, "|");
+                // only attributed scans hash their artifacts, so other ids stay as they were
+                m.getArtifactDependencies().forEach((artifact, classes) -> update(digest, artifact + "=" + classes));
+            });
+            // the same code checked against different rules must not share an id
+            violations.forEach(violation -> update(digest, violation.message()));
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.ScanEvents;
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps the most recently used scan results in memory so the REST API can serve summaries and
+ * dependency pages without rescanning, falling back to the persisted {@link ScanIndexStore}. The
+ * edge log of a result is deleted when the result is evicted or replaced by a different one.
+ */
+@Component
+public class ScanResultStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanResultStore.class);
+
+    private final Map<String, ScanResult> results;
+    private final ScanIndexStore scanIndexStore;
+
+    public ScanResultStore(ScanProperties scanProperties, ScanIndexStore scanIndexStore) {
+        this.scanIndexStore = scanIndexStore;
+        int capacity = Math.max(1, scanProperties.getResultCacheSize());
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ScanResult> eldest) {
+                boolean evict = size() > capacity;
+                if (evict) {
+                    logger.debug("Evicting scan result {} for {}", eldest.getKey(), eldest.getValue().projectPath());
+                    deleteEdges(eldest.getValue());
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Stores the result and returns the one kept. A result with the same id, such as that of an
+     * earlier scan of the unchanged project, is replaced but keeps its edge log, which exports may
+     * still be reading; the new result's log is deleted instead.
+     *
+     * @return the stored result, which has the edge log of the replaced one if that had one
+     */
+    public synchronized ScanResult put(ScanResult result) {
+        ScanResult stored = result;
+        ScanResult previous = results.get(result.id());
+        if (previous != null && previous.edges() != null && previous.edges() != result.edges()) {
+            deleteEdges(result);
+            stored = new ScanResult(result.id(), result.projectPath(), result.metrics(), result.violations(),
+                    result.violationCount(), previous.edges(), result.completedAt());
+        }
+        results.put(stored.id(), stored);
+        return stored;
+    }
+
+    /**
+     * Puts the result in place of the one with the given id, such as a progressive scan's full
+     * result in place of its priority result, so that both never take up two slots.
+     *
+     * @return the stored result, as returned by {@link #put}
+     */
+    public synchronized ScanResult replace(String id, ScanResult result) {
+        if (!id.equals(result.id())) {
+            ScanResult previous = results.remove(id);
+            if (previous != null && previous.edges() != result.edges()) {
+                deleteEdges(previous);
+            }
+        }
+        return put(result);
+    }
+
+    /**
+     * Whether the result with the given id is held in memory, without loading it from an index.
+     */
+    public synchronized boolean contains(String id) {
+        return results.containsKey(id);
+    }
+
+    /**
+     * Adds the result unless one with the same id is already in memory, and returns the one kept.
+     * Ids are fingerprints of the content, so both hold the same metrics; the stored result keeps
+     * its edge log, which exports may be reading, and the new one's is deleted. A stored result
+     * without edges is replaced by one that has them.
+     */
+    public synchronized ScanResult putIfAbsent(ScanResult result) {
+        ScanResult stored = results.get(result.id());
+        if (stored == null || (stored.edges() == null && result.edges() != null)) {
+            put(result);
+            return result;
+        }
+        if (result.edges() != stored.edges()) {
+            deleteEdges(result);
+        }
+        return stored;
+    }
+
+    /**
+     * Returns the result with the given id. Results that are not in memory, such as those of scans
+     * before a restart, are rebuilt from their persisted index if there is one.
+     */
+    public synchronized Optional<ScanResult> get(String id) {
+        ScanResult result = results.get(id);
+        ScanEvents.CacheLookup.record("scan-results", id, result != null);
+        if (result == null) {
+            Optional<ScanResult> indexed = scanIndexStore.load(id);
+            indexed.ifPresent(this::put);
+            return indexed;
+        }
+        return Optional.of(result);
+    }
+
+    @PreDestroy
+    public synchronized void clear() {
+        results.values().forEach(ScanResultStore::deleteEdges);
+        results.clear();
+    }
+
+    private static void deleteEdges(ScanResult result) {
+        if (result.edges() != null) {
+            result.edges().delete();
+        }
+    }
+}
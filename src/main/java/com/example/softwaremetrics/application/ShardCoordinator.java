@@ -0,0 +1,222 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.JavaClassAnalyzer;
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.PackageMetricsCalculator;
+import com.example.softwaremetrics.domain.PartialAggregate;
+import com.example.softwaremetrics.domain.ScanContext;
+import com.example.softwaremetrics.domain.ScanLimitExceededException;
+import com.example.softwaremetrics.domain.ScanProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits a scan into shards and has them analyzed by worker processes over HTTP. Class files are
+ * assigned to shards by the hash of their relative path, and each worker analyzes one shard at a
+ * time. A shard whose worker fails or times out is retried on the next free worker; a worker that
+ * fails several shards in a row is dropped. The partial aggregates of all shards are merged into the
+ * usual metrics by the {@link PackageMetricsCalculator}.
+ * <p>
+ * The class files are charged to the caller's {@link ScanContext} before any shard is sent, so the
+ * file and byte quotas apply as in an in-process scan. Each shard request carries the time left of
+ * the scan's deadline, and the coordinator stops waiting for the shards once it has passed.
+ */
+@Component
+public class ShardCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardCoordinator.class);
+
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    private final JavaClassAnalyzer javaClassAnalyzer;
+    private final PackageMetricsCalculator packageMetricsCalculator;
+    private final ScanProperties scanProperties;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    public ShardCoordinator(JavaClassAnalyzer javaClassAnalyzer, PackageMetricsCalculator packageMetricsCalculator,
+                            ScanProperties scanProperties, ObjectMapper objectMapper) {
+        this.javaClassAnalyzer = javaClassAnalyzer;
+        this.packageMetricsCalculator = packageMetricsCalculator;
+        this.scanProperties = scanProperties;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    /**
+     * Whether scans are sharded. Shards are made of class files, so source scans always run in process.
+     */
+    public boolean isEnabled() {
+        return !scanProperties.getWorkers().isEmpty() && scanProperties.getEngine() == ScanProperties.Engine.BYTECODE;
+    }
+
+    /**
+     * Calculates the metrics of a project on the configured workers.
+     *
+     * @throws ShardFailedException if a shard fails on every attempt or no worker is left
+     */
+    public Map<String, PackageMetrics> calculateMetrics(Path projectPath, List<String> modulePackages, ScanContext context) {
+        List<URI> workers = scanProperties.getWorkers();
+        List<Path> classFiles = javaClassAnalyzer.findClassFiles(projectPath, context);
+        for (Path classFile : classFiles) {
+            context.recordFile(sizeOf(classFile));
+        }
+        List<List<String>> shards = split(projectPath, classFiles, workers.size() * Math.max(1, scanProperties.getShardsPerWorker()));
+        logger.info("Scanning {} with {} shards on {} workers", projectPath, shards.size(), workers.size());
+
+        WorkerPool pool = new WorkerPool(workers);
+        int sketchPrecision = packageMetricsCalculator.getSketchPrecision();
+        List<PartialAggregate> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<PartialAggregate>> futures = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                ShardRequest request = new ShardRequest(projectPath.toString(), modulePackages, shards.get(i), sketchPrecision, 0);
+                int shard = i;
+                futures.add(executor.submit(() -> runShard(shard, request, pool, context)));
+            }
+            try {
+                for (Future<PartialAggregate> future : futures) {
+                    Duration remaining = context.getRemainingTime();
+                    results.add(remaining == null ? future.get() : future.get(remaining.toNanos(), TimeUnit.NANOSECONDS));
+                }
+            } catch (TimeoutException e) {
+                executor.shutdownNow();
+                context.checkpoint();
+                throw new ScanLimitExceededException("Scan exceeded its time limit");
+            } catch (ExecutionException e) {
+                executor.shutdownNow();
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw new ShardFailedException("Shard failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new ScanLimitExceededException("Scan was cancelled");
+            }
+        }
+        return packageMetricsCalculator.mergeShards(modulePackages, results);
+    }
+
+    private static long sizeOf(Path classFile) {
+        try {
+            return Files.size(classFile);
+        } catch (IOException e) {
+            // the worker reports unreadable files; they take no part of the byte quota
+            return 0;
+        }
+    }
+
+    private List<List<String>> split(Path projectPath, List<Path> classFiles, int shardCount) {
+        List<List<String>> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (Path file : classFiles) {
+            String relative = projectPath.relativize(file).toString();
+            shards.get(Math.floorMod(relative.hashCode(), shardCount)).add(relative);
+        }
+        shards.removeIf(List::isEmpty);
+        return shards;
+    }
+
+    private PartialAggregate runShard(int shard, ShardRequest request, WorkerPool pool, ScanContext context)
+            throws InterruptedException {
+        List<String> failures = new ArrayList<>();
+        for (int attempt = 0; attempt <= scanProperties.getShardRetries(); attempt++) {
+            context.checkpoint();
+            URI worker = pool.acquire();
+            try {
+                PartialAggregate result = send(worker, request.withTimeout(context.getRemainingTime()));
+                pool.succeeded(worker);
+                logger.debug("Shard {} ({} files) completed on {}", shard, request.files().size(), worker);
+                return result;
+            } catch (IOException e) {
+                logger.warn("Shard {} failed on {} (attempt {}): {}", shard, worker, attempt + 1, e.toString());
+                failures.add(worker + ": " + e.getMessage());
+                pool.failed(worker);
+            }
+        }
+        throw new ShardFailedException("Shard " + shard + " failed after " + failures.size() + " attempts: " + failures);
+    }
+
+    private PartialAggregate send(URI worker, ShardRequest request) throws IOException, InterruptedException {
+        Duration timeout = scanProperties.getShardTimeout();
+        if (request.timeout() != null && request.timeout().compareTo(timeout) < 0) {
+            timeout = request.timeout();
+        }
+        HttpRequest httpRequest = HttpRequest.newBuilder(worker.resolve("/internal/shards"))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(request)))
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + " " + new String(response.body()));
+        }
+        return objectMapper.readValue(response.body(), PartialAggregate.class);
+    }
+
+    /**
+     * Free workers wait in a queue, so every worker analyzes one shard at a time and a retried shard
+     * goes to whichever worker frees up first.
+     */
+    private final class WorkerPool {
+
+        private final BlockingQueue<URI> idle;
+        private final Map<URI, Integer> consecutiveFailures = new ConcurrentHashMap<>();
+        private final AtomicInteger alive;
+
+        WorkerPool(List<URI> workers) {
+            this.idle = new LinkedBlockingQueue<>(workers);
+            this.alive = new AtomicInteger(workers.size());
+        }
+
+        URI acquire() throws InterruptedException {
+            while (true) {
+                if (alive.get() == 0) {
+                    throw new ShardFailedException("All workers failed");
+                }
+                URI worker = idle.poll(1, TimeUnit.SECONDS);
+                if (worker != null) return worker;
+            }
+        }
+
+        void succeeded(URI worker) {
+            consecutiveFailures.remove(worker);
+            idle.add(worker);
+        }
+
+        void failed(URI worker) {
+            if (consecutiveFailures.merge(worker, 1, Integer::sum) >= MAX_CONSECUTIVE_FAILURES) {
+                logger.warn("Dropping worker {} after {} consecutive failures", worker, MAX_CONSECUTIVE_FAILURES);
+                alive.decrementAndGet();
+            } else {
+                idle.add(worker);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.softwaremetrics.application;
+
+/**
+ * Thrown when a shard could not be analyzed by any worker within its retries.
+ */
+public class ShardFailedException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ShardFailedException(String message) {
+        super(message);
+    }
+}
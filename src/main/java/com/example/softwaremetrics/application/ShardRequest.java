@@ -0,0 +1,29 @@
+package com.example.softwaremetrics.application;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The work a coordinator sends to a worker: a subset of a project's class files.
+ *
+ * @param projectPath     the project root, which must be readable by the worker at the same path
+ * @param modulePackages  the application module packages of the whole scan
+ * @param files           class files of this shard, relative to the project root
+ * @param sketchPrecision HyperLogLog precision for approximate scans, or 0 for exact ones
+ * @param timeoutMillis   time left of the coordinator's scan budget, or 0 if it has no deadline
+ */
+public record ShardRequest(String projectPath, List<String> modulePackages, List<String> files, int sketchPrecision,
+                           long timeoutMillis) {
+
+    /**
+     * @return the time the worker may spend on this shard, or {@code null} for no limit
+     */
+    public Duration timeout() {
+        return timeoutMillis > 0 ? Duration.ofMillis(timeoutMillis) : null;
+    }
+
+    ShardRequest withTimeout(Duration timeout) {
+        return new ShardRequest(projectPath, modulePackages, files, sketchPrecision,
+                timeout == null ? 0 : Math.max(1, timeout.toMillis()));
+    }
+}
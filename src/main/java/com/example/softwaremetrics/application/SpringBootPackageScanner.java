@@ -1,9 +1,15 @@
 package com.example.softwaremetrics.application;
 
+import com.example.softwaremetrics.domain.ArchitectureRules;
 import com.example.softwaremetrics.domain.PackageLocator;
 import com.example.softwaremetrics.domain.PackageMetrics;
 import com.example.softwaremetrics.domain.PackageMetricsCalculator;
+import com.example.softwaremetrics.domain.RuleEvaluation;
+import com.example.softwaremetrics.domain.ScanContext;
+import com.example.softwaremetrics.domain.ScanEvents;
+import com.example.softwaremetrics.domain.ScanProperties;
 
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,8 +17,16 @@ import org.springframework.stereotype.Component;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * A Spring Boot component responsible for scanning project directories and estimating metrics
@@ -25,17 +39,155 @@ public class SpringBootPackageScanner {
 
     private final PackageLocator packageLocator;
     private final PackageMetricsCalculator packageMetricsCalculator;
+    private final ScanResultStore scanResultStore;
+    private final ScanAdmissionControl scanAdmissionControl;
+    private final ShardCoordinator shardCoordinator;
+    private final ScanIndexStore scanIndexStore;
+    private final ArtifactIndex artifactIndex;
+    private final ScanProperties scanProperties;
+    private final ArchitectureRules architectureRules;
+    private final Map<String, CompletableFuture<ScanResult>> completions = new HashMap<>();
+    private final ExecutorService progressiveScans = Executors.newCachedThreadPool(Thread.ofPlatform()
+            .name("progressive-scan-", 0).daemon().factory());
 
     @Autowired
-    public SpringBootPackageScanner(PackageLocator packageLocator, PackageMetricsCalculator packageMetricsCalculator) {
+    public SpringBootPackageScanner(PackageLocator packageLocator, PackageMetricsCalculator packageMetricsCalculator,
+                                    ScanResultStore scanResultStore, ScanAdmissionControl scanAdmissionControl,
+                                    ShardCoordinator shardCoordinator, ScanIndexStore scanIndexStore,
+                                    ArtifactIndex artifactIndex, ScanProperties scanProperties) {
         this.packageLocator = packageLocator;
         this.packageMetricsCalculator = packageMetricsCalculator;
+        this.scanResultStore = scanResultStore;
+        this.scanAdmissionControl = scanAdmissionControl;
+        this.shardCoordinator = shardCoordinator;
+        this.scanIndexStore = scanIndexStore;
+        this.artifactIndex = artifactIndex;
+        this.scanProperties = scanProperties;
+        this.architectureRules = ArchitectureRules.load(scanProperties.getRulesFile());
+        if (!architectureRules.isEmpty()) {
+            logger.info("Loaded architecture rules from {}", scanProperties.getRulesFile());
+            // workers return merged dependency sets, not the edges these rules are checked against
+            if (architectureRules.hasDependencyRules() && shardCoordinator.isEnabled()) {
+                throw new IllegalStateException("deny and no-cycles rules in " + scanProperties.getRulesFile()
+                        + " cannot be checked in sharded scans; remove them or unset scan.workers");
+            }
+        }
+    }
+
+    /**
+     * Scans the project and keeps the result in the {@link ScanResultStore} so it can be queried
+     * later by its id. After a restart, the result of the project's index is returned instead until
+     * the {@link ScanIndexRevalidator} has rescanned it.
+     */
+    public ScanResult scan(String projectPath) {
+        Optional<ScanResult> indexed = isIndexed() ? scanIndexStore.latest(projectPath) : Optional.empty();
+        if (indexed.isPresent()) {
+            ScanResult result = scanResultStore.putIfAbsent(indexed.get());
+            logger.info("Scan {} served from the index for path: {}", result.id(), projectPath);
+            return result;
+        }
+        return rescan(projectPath);
+    }
+
+    /**
+     * Scans the project like {@link #scan(String)}, without answering from the index.
+     */
+    ScanResult rescan(String projectPath) {
+        ScanResult result = scanResultStore.put(scanAdmissionControl.admit(() -> scanProject(projectPath, scanProperties.newScanContext(),
+                scanProperties.isRecordEdges() && !shardCoordinator.isEnabled(), List.of(), null)));
+        logger.info("Scan {} completed for path: {}", result.id(), projectPath);
+        return result;
     }
 
+    /**
+     * Scans the project analyzing the class files of the priority modules and of their dependents
+     * first. Returns a result with only the priority modules as soon as their metrics are final,
+     * while the scan goes on in the background. The returned result is stored until the full one
+     * takes its place, which can be awaited with {@link #getCompletion} under the returned id.
+     *
+     * @throws IllegalArgumentException if a priority module is not a module of the project
+     */
+    public ScanResult scan(String projectPath, List<String> priorityModules) {
+        if (priorityModules.isEmpty()) {
+            return scan(projectPath);
+        }
+        CompletableFuture<ScanResult> priority = new CompletableFuture<>();
+        CompletableFuture<ScanResult> completion = new CompletableFuture<>();
+        progressiveScans.execute(() -> {
+            try {
+                ScanResult result = scanAdmissionControl.admit(() -> scanProject(projectPath, scanProperties.newScanContext(),
+                        scanProperties.isRecordEdges() && !shardCoordinator.isEnabled(), priorityModules, priorityResult -> {
+                            ScanResult stored = scanResultStore.put(priorityResult);
+                            synchronized (completions) {
+                                completions.entrySet().removeIf(entry -> isExpired(entry.getKey(), entry.getValue()));
+                                completions.put(stored.id(), completion);
+                            }
+                            priority.complete(stored);
+                        }));
+                ScanResult stored = scanResultStore.replace(priority.join().id(), result);
+                logger.info("Scan {} completed for path: {}", stored.id(), projectPath);
+                completion.complete(stored);
+            } catch (RuntimeException | Error e) {
+                if (!priority.completeExceptionally(e)) {
+                    logger.warn("Background part of the scan of {} failed", projectPath, e);
+                }
+                completion.completeExceptionally(e);
+            }
+        });
+        try {
+            ScanResult result = priority.join();
+            logger.info("Scan {} of priority modules {} completed for path: {}", result.id(), priorityModules, projectPath);
+            return result;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * The full result of a {@link #scan(String, List) progressive scan}, by the id of its priority
+     * result. Scans are tracked while they run and, once complete, for as long as their full result
+     * is stored; a failed scan for as long as its priority result is.
+     */
+    public Optional<CompletableFuture<ScanResult>> getCompletion(String priorityResultId) {
+        synchronized (completions) {
+            CompletableFuture<ScanResult> completion = completions.get(priorityResultId);
+            if (completion == null) return Optional.empty();
+            if (isExpired(priorityResultId, completion)) {
+                completions.remove(priorityResultId);
+                return Optional.empty();
+            }
+            return Optional.of(completion);
+        }
+    }
+
+    private boolean isExpired(String priorityResultId, CompletableFuture<ScanResult> completion) {
+        if (!completion.isDone()) return false;
+        String id = completion.isCompletedExceptionally() ? priorityResultId : completion.join().id();
+        return !scanResultStore.contains(id);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        progressiveScans.shutdownNow();
+    }
+
+    /**
+     * Scans the project once a scan slot is free, within the configured timeout and quotas.
+     *
+     * @throws ScanRejectedException if no slot becomes available
+     * @throws com.example.softwaremetrics.domain.ScanLimitExceededException if the scan runs out of time or quota
+     * @throws com.example.softwaremetrics.domain.ArchitectureViolationException if a rule is violated in fail-fast mode
+     */
     public Map<String, PackageMetrics> scanProject(String projectPath) {
+        return scanAdmissionControl.admit(() -> scanProject(projectPath, scanProperties.newScanContext(), false, List.of(), null)).metrics();
+    }
+
+    private ScanResult scanProject(String projectPath, ScanContext context, boolean recordEdges,
+                                   List<String> priorityModules, Consumer<ScanResult> priorityListener) {
         logger.info("Starting project scan for path: {}", projectPath);
         Path path = Paths.get(projectPath);
 
+        ScanEvents.ScanPhase phase = ScanEvents.ScanPhase.start("locate-packages", projectPath);
         String mainPackage = packageLocator.findMainPackage(path);
         if (mainPackage == null || mainPackage.isEmpty()) {
             logger.error("No @SpringBootApplication found in the project.");
@@ -49,7 +201,69 @@ public class SpringBootPackageScanner {
             throw new IllegalArgumentException("No subpackages found.");
         }
         logger.debug("Top-level packages found: {}", applicationModulePackages);
+        for (String module : priorityModules) {
+            if (!applicationModulePackages.contains(module)) {
+                throw new IllegalArgumentException("Unknown module: " + module);
+            }
+        }
+        phase.finish(context);
+
+        // rules are compiled per scan against this project's modules and checked as dependencies are found
+        RuleEvaluation ruleEvaluation = architectureRules.compile(applicationModulePackages,
+                scanProperties.getRulesMaxViolations(), scanProperties.isRulesFailFast());
+        context.addDependencyObserver(ruleEvaluation);
+        EdgeLog edges = recordEdges ? EdgeLog.create(scanProperties.getSpillDirectory()) : null;
+        if (edges != null) context.addDependencyObserver(edges);
+        ScanIndexStore.IndexingClassCache classCache = isIndexed() ? scanIndexStore.startScan(projectPath, applicationModulePackages) : null;
+        context.setClassCache(classCache);
+        try {
+            Map<String, PackageMetrics> metrics;
+            if (priorityModules.isEmpty()) {
+                metrics = shardCoordinator.isEnabled()
+                        ? shardCoordinator.calculateMetrics(path, applicationModulePackages, context)
+                        : packageMetricsCalculator.calculateMetrics(path, applicationModulePackages, context);
+            } else {
+                Consumer<Map<String, PackageMetrics>> listener = priorityMetrics -> {
+                    artifactIndex.attribute(path, priorityMetrics, applicationModulePackages);
+                    // the dependency rules found so far; max-distance is checked on the full result
+                    priorityListener.accept(ScanResult.of(projectPath, priorityMetrics,
+                            List.copyOf(ruleEvaluation.getViolations()), ruleEvaluation.getViolationCount()));
+                };
+                if (shardCoordinator.isEnabled()) {
+                    // shards are analyzed in parallel, so nothing is known before they are all merged
+                    metrics = shardCoordinator.calculateMetrics(path, applicationModulePackages, context);
+                    Map<String, PackageMetrics> priorityMetrics = new LinkedHashMap<>();
+                    // copies, since the priority result is published before the full metrics are attributed
+                    priorityModules.forEach(module -> priorityMetrics.put(module, new PackageMetrics(metrics.get(module))));
+                    listener.accept(priorityMetrics);
+                } else {
+                    metrics = packageMetricsCalculator.calculateMetrics(path, applicationModulePackages, priorityModules,
+                            listener, context);
+                }
+            }
+            ruleEvaluation.checkMetrics(metrics);
+            artifactIndex.attribute(path, metrics, applicationModulePackages);
+            if (ruleEvaluation.getViolationCount() > 0) {
+                logger.warn("{} architecture rule violations in {}", ruleEvaluation.getViolationCount(), projectPath);
+            }
+            ScanResult result = ScanResult.of(projectPath, metrics, ruleEvaluation.getViolations(), ruleEvaluation.getViolationCount(),
+                    edges == null ? null : edges.finish());
+            if (classCache != null) {
+                scanIndexStore.save(classCache, result);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            if (edges != null) edges.delete();
+            throw e;
+        }
+    }
 
-        return packageMetricsCalculator.calculateMetrics(path, applicationModulePackages);
+    /**
+     * Only exact in-process bytecode scans keep an index: the source engine resolves names across
+     * files, shards parse on the workers, and approximate results cannot be rebuilt from one.
+     */
+    private boolean isIndexed() {
+        return scanIndexStore.isEnabled() && scanProperties.getEngine() == ScanProperties.Engine.BYTECODE
+                && !scanProperties.isApproximate() && !shardCoordinator.isEnabled();
     }
 }
@@ -0,0 +1,126 @@
+package com.example.softwaremetrics.domain;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Architecture rules read from a rules file, one per line:
+ * <pre>
+ * # comments and blank lines are ignored
+ * deny orders -&gt; billing.internal
+ * no-cycles
+ * max-distance 0.4
+ * </pre>
+ * Package names are either fully qualified or relative to the application's main package, so
+ * {@code orders} means the {@code orders} module. A {@code deny} rule forbids classes in the source
+ * package, or below it, from depending on classes in the target package or below it. The rules are
+ * parsed once and compiled per scan against that scan's modules with {@link #compile}.
+ */
+public class ArchitectureRules {
+
+    sealed interface Rule permits DenyRule, NoCyclesRule, MaxDistanceRule {
+        String text();
+    }
+
+    record DenyRule(String text, String source, String target) implements Rule {}
+
+    record NoCyclesRule(String text) implements Rule {}
+
+    record MaxDistanceRule(String text, double maxDistance) implements Rule {}
+
+    private final List<Rule> rules;
+
+    private ArchitectureRules(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    public static ArchitectureRules none() {
+        return new ArchitectureRules(List.of());
+    }
+
+    /**
+     * Loads the rules file, or returns no rules if {@code rulesFile} is {@code null}.
+     *
+     * @throws IllegalArgumentException if the file cannot be read or contains an invalid rule
+     */
+    public static ArchitectureRules load(Path rulesFile) {
+        if (rulesFile == null) {
+            return none();
+        }
+        try {
+            return parse(Files.readAllLines(rulesFile));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read rules file " + rulesFile, e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if a line is not a valid rule
+     */
+    public static ArchitectureRules parse(List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            rules.add(parseRule(line, i + 1));
+        }
+        return new ArchitectureRules(rules);
+    }
+
+    private static Rule parseRule(String line, int lineNumber) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "deny" -> {
+                if (tokens.length == 4 && tokens[2].equals("->")) {
+                    return new DenyRule(line, tokens[1], tokens[3]);
+                }
+            }
+            case "no-cycles" -> {
+                if (tokens.length == 1) {
+                    return new NoCyclesRule(line);
+                }
+            }
+            case "max-distance" -> {
+                if (tokens.length == 2) {
+                    try {
+                        return new MaxDistanceRule(line, Double.parseDouble(tokens[1]));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid distance on line " + lineNumber + ": " + line);
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown rule on line " + lineNumber + ": " + line);
+        }
+        throw new IllegalArgumentException("Malformed rule on line " + lineNumber + ": " + line);
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Whether any rule is checked against the dependencies found by the class parser, that is a
+     * {@code deny} or {@code no-cycles} rule. Only {@code max-distance} needs no more than the metrics.
+     */
+    public boolean hasDependencyRules() {
+        return rules.stream().anyMatch(rule -> rule instanceof DenyRule || rule instanceof NoCyclesRule);
+    }
+
+    List<Rule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Resolves the rules against the modules of one scan. {@code deny} rules that match no module
+     * of the scan, or only the inside of one module, are skipped.
+     *
+     * @param maxViolations how many violations to keep; further ones are only counted
+     * @param failFast      whether to stop the scan at the first violation
+     */
+    public RuleEvaluation compile(List<String> modulePackages, int maxViolations, boolean failFast) {
+        return new RuleEvaluation(this, modulePackages, maxViolations, failFast);
+    }
+}
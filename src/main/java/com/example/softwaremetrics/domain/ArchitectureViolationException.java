@@ -0,0 +1,20 @@
+package com.example.softwaremetrics.domain;
+
+/**
+ * Thrown by fail-fast rule evaluation to stop a scan at the first architecture violation.
+ */
+public class ArchitectureViolationException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RuleViolation violation;
+
+    public ArchitectureViolationException(RuleViolation violation) {
+        super("Architecture rule violated: " + violation.message());
+        this.violation = violation;
+    }
+
+    public RuleViolation getViolation() {
+        return violation;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.softwaremetrics.domain;
+
+import java.util.List;
+
+/**
+ * What the class parser found in one class file: enough to add the class to the per-package
+ * counts and dependency sets again without reading the file.
+ *
+ * @param className    fully qualified name of the class
+ * @param module       module package of the class, or {@code null} if it lies outside the
+ *                     application modules; such classes are not counted
+ * @param isAbstract   whether the class is abstract or an interface
+ * @param dependencies the dependencies on other modules and external classes, without JDK types
+ */
+public record ClassAnalysis(String className, String module, boolean isAbstract, List<Dependency> dependencies) {
+
+    /**
+     * @param module    module package of the dependency, or {@code null} if it lies outside the
+     *                  application modules
+     * @param className fully qualified name of the dependency
+     */
+    public record Dependency(String module, String className) {}
+}
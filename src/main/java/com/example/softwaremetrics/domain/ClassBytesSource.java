@@ -0,0 +1,48 @@
+package com.example.softwaremetrics.domain;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Strategy for loading class file bytes before they are parsed.
+ */
+public interface ClassBytesSource {
+
+    /**
+     * The bytes of a class file in {@code buffer[0..length)}. Once they are
+     * {@linkplain #release released}, the buffer may be reused for another file.
+     */
+    record ClassBytes(byte[] buffer, int length) {}
+
+    ClassBytes read(Path file) throws IOException;
+
+    /**
+     * Hands the buffer of bytes that are no longer used back for reuse. Bytes that are never
+     * released are simply not reused.
+     */
+    default void release(ClassBytes bytes) {
+    }
+
+    enum Kind {
+        /**
+         * A fresh array per file, read through the default file system streams.
+         */
+        STREAM,
+        /**
+         * Reusable buffers from a bounded pool, filled with positional reads; files above the
+         * pooled size get a fresh array.
+         */
+        POOLED
+    }
+
+    static ClassBytesSource create(Kind kind, long maxPooledSize) {
+        return switch (kind) {
+            case STREAM -> file -> {
+                byte[] bytes = Files.readAllBytes(file);
+                return new ClassBytes(bytes, bytes.length);
+            };
+            case POOLED -> new PooledClassBytesSource(maxPooledSize);
+        };
+    }
+}
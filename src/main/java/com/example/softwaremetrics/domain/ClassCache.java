@@ -0,0 +1,21 @@
+package com.example.softwaremetrics.domain;
+
+import java.nio.file.Path;
+
+/**
+ * Analyses of class files from an earlier scan, so unchanged files need not be parsed again. A
+ * file counts as unchanged if its modification time and size are those it had when it was
+ * analyzed.
+ */
+public interface ClassCache {
+
+    /**
+     * @return the analysis of the file, or {@code null} if it is unknown or has changed
+     */
+    ClassAnalysis lookup(Path file, long lastModified, long size);
+
+    /**
+     * Records the analysis of a file that was parsed.
+     */
+    void store(Path file, long lastModified, long size, ClassAnalysis analysis);
+}
@@ -0,0 +1,19 @@
+package com.example.softwaremetrics.domain;
+
+/**
+ * Counts the distinct classes a package depends on, or that depend on it. An
+ * {@link ExactDependencyCounter} keeps the class names; a {@link SketchDependencyCounter} only
+ * estimates how many there are. Counters are shared by the analyzer threads of a scan.
+ */
+interface DependencyCounter {
+
+    /**
+     * Adds a class name. Adding a name that was added before does not change the count.
+     */
+    void add(String className);
+
+    /**
+     * @return the number of distinct names added, exact or estimated
+     */
+    int count();
+}
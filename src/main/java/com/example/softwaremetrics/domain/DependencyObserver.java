@@ -0,0 +1,18 @@
+package com.example.softwaremetrics.domain;
+
+/**
+ * Receives every dependency edge as the class parser finds it, so checks can run during the scan
+ * without keeping the edges.
+ */
+@FunctionalInterface
+public interface DependencyObserver {
+
+    /**
+     * @param sourceModule module package of the class that has the dependency
+     * @param sourceClass  fully qualified name of that class
+     * @param targetModule module package of the dependency, or {@code null} if it lies outside the
+     *                     application modules
+     * @param targetClass  fully qualified name of the dependency
+     */
+    void onDependency(String sourceModule, String sourceClass, String targetModule, String targetClass);
+}
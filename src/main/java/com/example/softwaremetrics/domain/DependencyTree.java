@@ -0,0 +1,201 @@
+package com.example.softwaremetrics.domain;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Clusters the dependencies of one package by package prefix and lays the clusters out radially
+ * around the package. Chains of single-child prefixes are merged into one node, and every node
+ * carries the number of dependencies below it. The layout is computed once; views at a given
+ * level of detail cut the tree at that depth and fold everything deeper into the cut node, so
+ * collapsed edges carry the summed weight of the edges they replace.
+ */
+public class DependencyTree {
+
+    private static final double RING_SPACING = 120.0;
+
+    private final Node root;
+    private final int maxDepth;
+    private final List<Node> nodesByDepth = new ArrayList<>();
+
+    public record GraphNode(String id, String label, int depth, int weight, double x, double y, boolean collapsed) {}
+
+    public record GraphEdge(String source, String target, int weight) {}
+
+    /**
+     * A view of the tree at one level of detail.
+     *
+     * @param level    the deepest level included
+     * @param maxLevel the deepest level available
+     * @param nodes    nodes up to {@code level} that lie in the requested viewport, plus the
+     *                 other ends of their edges
+     * @param edges    edges whose source or target lies in the requested viewport
+     */
+    public record DependencyGraph(int level, int maxLevel, List<GraphNode> nodes, List<GraphEdge> edges) {}
+
+    /**
+     * Axis-aligned viewport in layout coordinates.
+     */
+    public record Viewport(double minX, double minY, double maxX, double maxY) {
+        boolean contains(Node node) {
+            return node.x >= minX && node.x <= maxX && node.y >= minY && node.y <= maxY;
+        }
+    }
+
+    private static final class Node {
+        final String id;
+        String label;
+        final Map<String, Node> children = new TreeMap<>();
+        Node parent;
+        int depth;
+        int weight;
+        double x;
+        double y;
+
+        Node(String id, String label) {
+            this.id = id;
+            this.label = label;
+        }
+    }
+
+    public DependencyTree(String packageName, List<String> dependencies) {
+        this.root = new Node(packageName, packageName);
+        for (String dependency : dependencies) {
+            insert(dependency);
+        }
+        List<Node> children = List.copyOf(root.children.values());
+        root.children.clear();
+        for (Node child : children) {
+            Node compressed = compress(child);
+            root.children.put(compressed.id, compressed);
+        }
+        this.maxDepth = assignDepthAndWeight(root, 0);
+        layout(root, 0.0, 2 * Math.PI);
+        collect(root);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the deepest level whose node count stays within {@code maxNodes}, but at least 1.
+     */
+    public int levelFor(int maxNodes) {
+        int level = 0;
+        for (int i = 0; i < nodesByDepth.size() && i < maxNodes; i++) {
+            int depth = nodesByDepth.get(i).depth;
+            boolean lastOfDepth = i + 1 == nodesByDepth.size() || nodesByDepth.get(i + 1).depth != depth;
+            if (lastOfDepth) level = depth;
+        }
+        return Math.max(level, Math.min(1, maxDepth));
+    }
+
+    public DependencyGraph view(int level, Viewport viewport) {
+        int effectiveLevel = Math.max(0, Math.min(level, maxDepth));
+        Map<String, GraphNode> nodes = new LinkedHashMap<>();
+        List<GraphEdge> edges = new ArrayList<>();
+        for (Node node : nodesByDepth) {
+            if (node.depth > effectiveLevel) break;
+            boolean visible = viewport == null || viewport.contains(node);
+            if (visible) {
+                include(nodes, node, effectiveLevel);
+            }
+            if (node.parent != null && (visible || viewport.contains(node.parent))) {
+                // both ends of an edge crossing the viewport border are returned so it can be drawn
+                include(nodes, node, effectiveLevel);
+                include(nodes, node.parent, effectiveLevel);
+                edges.add(new GraphEdge(node.parent.id, node.id, node.weight));
+            }
+        }
+        return new DependencyGraph(effectiveLevel, maxDepth, List.copyOf(nodes.values()), edges);
+    }
+
+    private void include(Map<String, GraphNode> nodes, Node node, int level) {
+        nodes.computeIfAbsent(node.id, _ -> new GraphNode(node.id, node.label, node.depth, node.weight,
+                node.x, node.y, node.depth == level && !node.children.isEmpty()));
+    }
+
+    private void insert(String dependency) {
+        Node current = root;
+        int start = 0;
+        while (start <= dependency.length()) {
+            int end = dependency.indexOf('.', start);
+            if (end == -1) end = dependency.length();
+            String id = dependency.substring(0, end);
+            String label = dependency.substring(start, end);
+            current = current.children.computeIfAbsent(id, _ -> new Node(id, label));
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Merges chains of single-child prefixes ("com" → "example" → "billing") into one node that keeps
+     * the id of the deepest prefix. Leaves are never merged, so classes stay separate nodes.
+     */
+    private Node compress(Node node) {
+        Node current = node;
+        String label = node.label;
+        while (current.children.size() == 1) {
+            Node only = current.children.values().iterator().next();
+            if (only.children.isEmpty()) break;
+            label = label + "." + only.label;
+            current = only;
+        }
+        current.label = label;
+        List<Node> children = List.copyOf(current.children.values());
+        current.children.clear();
+        for (Node child : children) {
+            Node compressed = compress(child);
+            current.children.put(compressed.id, compressed);
+        }
+        return current;
+    }
+
+    private int assignDepthAndWeight(Node node, int depth) {
+        node.depth = depth;
+        int deepest = depth;
+        if (node.children.isEmpty()) {
+            node.weight = depth == 0 ? 0 : 1;
+            return deepest;
+        }
+        node.weight = 0;
+        for (Node child : node.children.values()) {
+            child.parent = node;
+            deepest = Math.max(deepest, assignDepthAndWeight(child, depth + 1));
+            node.weight += child.weight;
+        }
+        return deepest;
+    }
+
+    /**
+     * Gives every node an angular wedge proportional to its weight and places it in the middle of
+     * the wedge, on the ring for its depth.
+     */
+    private void layout(Node node, double startAngle, double endAngle) {
+        double radius = node.depth * RING_SPACING;
+        double angle = (startAngle + endAngle) / 2;
+        node.x = radius * Math.cos(angle);
+        node.y = radius * Math.sin(angle);
+        double total = Math.max(1, node.weight);
+        double current = startAngle;
+        for (Node child : node.children.values()) {
+            double span = (endAngle - startAngle) * child.weight / total;
+            layout(child, current, current + span);
+            current += span;
+        }
+    }
+
+    private void collect(Node root) {
+        List<Node> level = List.of(root);
+        while (!level.isEmpty()) {
+            nodesByDepth.addAll(level);
+            List<Node> next = new ArrayList<>();
+            level.forEach(node -> next.addAll(node.children.values()));
+            level = next;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.softwaremetrics.domain;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts dependencies by keeping their class names in a set, in memory or in a
+ * {@link SpillingDependencyStore} when the scan has a memory budget.
+ */
+class ExactDependencyCounter implements DependencyCounter {
+
+    private final Set<String> names;
+
+    ExactDependencyCounter() {
+        this(ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * @param names the set to keep the names in; it must be safe for concurrent adds
+     */
+    ExactDependencyCounter(Set<String> names) {
+        this.names = names;
+    }
+
+    @Override
+    public void add(String className) {
+        names.add(className);
+    }
+
+    @Override
+    public int count() {
+        return names.size();
+    }
+
+    /**
+     * @return a read-only view of the names added
+     */
+    Set<String> names() {
+        return Collections.unmodifiableSet(names);
+    }
+
+    @Override
+    public String toString() {
+        return names.size() + " dependencies";
+    }
+}
@@ -7,11 +7,14 @@ import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,6 +39,21 @@ public class JavaClassAnalyzer {
         "boolean", "byte", "char", "short", "int", "long", "float", "double", "void"
     ));
 
+    private final ClassBytesSource classBytesSource;
+
+    public JavaClassAnalyzer() {
+        this(new ScanProperties());
+    }
+
+    @Autowired
+    public JavaClassAnalyzer(ScanProperties scanProperties) {
+        this(ClassBytesSource.create(scanProperties.getClassReader(), scanProperties.getClassReaderMaxPooledSize().toBytes()));
+    }
+
+    JavaClassAnalyzer(ClassBytesSource classBytesSource) {
+        this.classBytesSource = classBytesSource;
+    }
+
     /**
      * Checks whether the given file contains the @SpringBootApplication annotation.
      *
@@ -65,78 +83,229 @@ public class JavaClassAnalyzer {
     }
 
     void analyzeClasses(Path projectPath, List<String> modulePackages,
-                        Map<String, Set<String>> outgoingDependencies,
-                        Map<String, Set<String>> incomingDependencies,
+                        Map<String, DependencyCounter> outgoingDependencies,
+                        Map<String, DependencyCounter> incomingDependencies,
                         Map<String, Integer> abstractClassCount,
                         Map<String, Integer> totalClassCount) {
+        analyzeClasses(projectPath, modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount, ScanContext.unbounded());
+    }
+
+    /**
+     * Analyzes all non-test class files below the project path. The walk and the parser check the
+     * scan context between files and methods, so a scan over its deadline or quotas stops promptly
+     * with a {@link ScanLimitExceededException}.
+     */
+    void analyzeClasses(Path projectPath, List<String> modulePackages,
+                        Map<String, DependencyCounter> outgoingDependencies,
+                        Map<String, DependencyCounter> incomingDependencies,
+                        Map<String, Integer> abstractClassCount,
+                        Map<String, Integer> totalClassCount,
+                        ScanContext context) {
         try (var walk = Files.walk(projectPath)) {
-            walk
-                    .filter(Files::isRegularFile)
-                    .filter(p -> p.toString().endsWith(".class"))
-                    .filter(this::isNotTestClass)
-                    .forEach(file -> analyzeClassFile(file, modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount));
+            classFiles(walk, context)
+                    .forEach(file -> analyzeClassFile(file, modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount, context, null));
         } catch (IOException e) {
             logger.error("Error while analyzing classes for {}", projectPath, e);
             throw new IllegalStateException(e);
         }
     }
 
-    private boolean isNotTestClass(Path path) {
-        return !path.toString().contains("target/test-classes");
+    /**
+     * Lists the non-test class files below the project path, so they can be split into shards.
+     */
+    public List<Path> findClassFiles(Path projectPath, ScanContext context) {
+        ScanEvents.ScanPhase phase = ScanEvents.ScanPhase.start("walk", projectPath);
+        try (var walk = Files.walk(projectPath)) {
+            List<Path> files = classFiles(walk, context).toList();
+            phase.finish(context);
+            return files;
+        } catch (IOException e) {
+            logger.error("Error while listing class files for {}", projectPath, e);
+            throw new IllegalStateException(e);
+        }
     }
 
-    private void analyzeClassFile(Path file, List<String> modulePackages,
-                                  Map<String, Set<String>> outgoingDependencies,
-                                  Map<String, Set<String>> incomingDependencies,
-                                  Map<String, Integer> abstractClassCount,
-                                  Map<String, Integer> totalClassCount) {
-        try {
-            ClassReader classReader = new ClassReader(Files.newInputStream(file));
-            ClassNode classNode = new ClassNode();
-            classReader.accept(classNode, 0);
+    /**
+     * Analyzes the given class files only, as {@link #analyzeClasses} does for a whole project.
+     */
+    void analyzeClassFiles(List<Path> files, List<String> modulePackages,
+                           Map<String, DependencyCounter> outgoingDependencies,
+                           Map<String, DependencyCounter> incomingDependencies,
+                           Map<String, Integer> abstractClassCount,
+                           Map<String, Integer> totalClassCount,
+                           ScanContext context) {
+        for (Path file : files) {
+            context.checkpoint();
+            analyzeClassFile(file, modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount, context, null);
+        }
+    }
 
-            String className = Type.getObjectType(classNode.name).getClassName();
-            String packageName = getPackageName(className);
-            String topLevelPackage = extractTopLevelPackageFrom(packageName, modulePackages);
+    /**
+     * Analyzes the class files below the project path that belong to or refer to one of the priority
+     * modules, and returns the others without analyzing them. Afterwards the class counts and both
+     * dependency sets of the priority modules are complete: the returned files can only add to those
+     * of other modules. Files are told apart with a {@link ModuleReferenceFilter} on their bytes;
+     * files found in the scan's class cache are analyzed straight away.
+     */
+    List<Path> analyzeClassesFirst(Path projectPath, List<String> modulePackages, List<String> priorityModules,
+                                   Map<String, DependencyCounter> outgoingDependencies,
+                                   Map<String, DependencyCounter> incomingDependencies,
+                                   Map<String, Integer> abstractClassCount,
+                                   Map<String, Integer> totalClassCount,
+                                   ScanContext context) {
+        ModuleReferenceFilter filter = new ModuleReferenceFilter(priorityModules);
+        List<Path> deferred = new ArrayList<>();
+        try (var walk = Files.walk(projectPath)) {
+            classFiles(walk, context).forEach(file -> {
+                if (!analyzeClassFile(file, modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount,
+                        totalClassCount, context, filter)) {
+                    deferred.add(file);
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Error while analyzing classes for {}", projectPath, e);
+            throw new IllegalStateException(e);
+        }
+        return deferred;
+    }
 
-            if (topLevelPackage == null) return;
+    private Stream<Path> classFiles(Stream<Path> walk, ScanContext context) {
+        return walk
+                .peek(_ -> context.checkpoint())
+                .filter(Files::isRegularFile)
+                .filter(p -> p.toString().endsWith(".class"))
+                .filter(this::isNotTestClass);
+    }
 
-            logger.trace("Analyzing class: {}", className);
-            totalClassCount.merge(topLevelPackage, 1, Integer::sum);
-            if ((classNode.access & Opcodes.ACC_ABSTRACT) != 0 || (classNode.access & Opcodes.ACC_INTERFACE) != 0) {
-                abstractClassCount.merge(topLevelPackage, 1, Integer::sum);
-            }
+    private boolean isNotTestClass(Path path) {
+        return !path.toString().contains("target/test-classes");
+    }
 
-            Set<String> dependencies = new HashSet<>();
-            for (MethodNode method : classNode.methods) {
-                analyzeDependencies(method, dependencies);
+    /**
+     * @param filter if set, files whose bytes do not match it are left for later
+     * @return whether the file was analyzed, {@code false} if the filter left it out
+     */
+    private boolean analyzeClassFile(Path file, List<String> modulePackages,
+                                     Map<String, DependencyCounter> outgoingDependencies,
+                                     Map<String, DependencyCounter> incomingDependencies,
+                                     Map<String, Integer> abstractClassCount,
+                                     Map<String, Integer> totalClassCount,
+                                     ScanContext context, ModuleReferenceFilter filter) {
+        ScanEvents.FileAnalysis event = new ScanEvents.FileAnalysis();
+        event.begin();
+        ClassCache classCache = context.getClassCache();
+        boolean deferred = false;
+        try {
+            ClassAnalysis analysis = null;
+            BasicFileAttributes attributes = null;
+            if (classCache != null) {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                analysis = classCache.lookup(file, attributes.lastModifiedTime().toMillis(), attributes.size());
             }
-
-            for (String dependency : dependencies) {
-                String dependencyPackage = getPackageName(dependency);
-                String dependencyTopLevelPackage = extractTopLevelPackageFrom(dependencyPackage, modulePackages);
-                if (!topLevelPackage.equals(dependencyTopLevelPackage) && !isExcludedDependency(dependency)) {
-                    outgoingDependencies.computeIfAbsent(topLevelPackage, _ -> new HashSet<>()).add(dependency);
-                    if (dependencyTopLevelPackage != null) {
-                        incomingDependencies.computeIfAbsent(dependencyTopLevelPackage, _ -> new HashSet<>()).add(className);
+            if (analysis != null) {
+                context.recordFile(attributes.size());
+                event.engine = "index";
+                event.bytes = attributes.size();
+            } else {
+                long readStart = event.isEnabled() ? System.nanoTime() : 0;
+                ClassBytesSource.ClassBytes classBytes = classBytesSource.read(file);
+                try {
+                    if (filter != null && !filter.matches(classBytes.buffer(), classBytes.length())) {
+                        deferred = true;
+                        return false;
+                    }
+                    if (event.isEnabled()) {
+                        event.readTime = System.nanoTime() - readStart;
+                        event.bytes = classBytes.length();
                     }
+                    context.recordFile(classBytes.length());
+                    analysis = parseClass(classBytes, modulePackages, context);
+                } finally {
+                    classBytesSource.release(classBytes);
                 }
+                if (classCache != null) {
+                    classCache.store(file, attributes.lastModifiedTime().toMillis(), attributes.size(), analysis);
+                }
+                event.engine = "bytecode";
             }
+            event.className = analysis.className();
+            event.module = analysis.module();
+            event.moduleDependencies = analysis.dependencies().size();
+            addClass(analysis, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount, context);
         } catch (IOException e) {
             logger.error("Error analyzing class file: {}", file, e);
+        } finally {
+            if (!deferred && event.shouldCommit()) {
+                event.path = file.toString();
+                event.commit();
+            }
+        }
+        return true;
+    }
+
+    private ClassAnalysis parseClass(ClassBytesSource.ClassBytes classBytes, List<String> modulePackages, ScanContext context) {
+        ClassNode classNode = new ClassNode();
+        // ClassNode copies everything it keeps, so the (possibly pooled) buffer can be reused afterwards
+        new ClassReader(classBytes.buffer(), 0, classBytes.length()).accept(classNode, 0);
+
+        String className = Type.getObjectType(classNode.name).getClassName();
+        String packageName = getPackageName(className);
+        String topLevelPackage = extractTopLevelPackageFrom(packageName, modulePackages);
+        boolean isAbstract = (classNode.access & Opcodes.ACC_ABSTRACT) != 0 || (classNode.access & Opcodes.ACC_INTERFACE) != 0;
+        if (topLevelPackage == null) {
+            return new ClassAnalysis(className, null, isAbstract, List.of());
+        }
+
+        logger.trace("Analyzing class: {}", className);
+        Set<String> dependencies = new HashSet<>();
+        for (MethodNode method : classNode.methods) {
+            context.checkpoint();
+            analyzeDependencies(method, dependencies);
+        }
+
+        List<ClassAnalysis.Dependency> moduleDependencies = new ArrayList<>();
+        for (String dependency : dependencies) {
+            String dependencyPackage = getPackageName(dependency);
+            String dependencyTopLevelPackage = extractTopLevelPackageFrom(dependencyPackage, modulePackages);
+            if (!topLevelPackage.equals(dependencyTopLevelPackage) && !isExcludedDependency(dependency)) {
+                moduleDependencies.add(new ClassAnalysis.Dependency(dependencyTopLevelPackage, dependency));
+            }
+        }
+        return new ClassAnalysis(className, topLevelPackage, isAbstract, moduleDependencies);
+    }
+
+    private static void addClass(ClassAnalysis analysis,
+                                 Map<String, DependencyCounter> outgoingDependencies,
+                                 Map<String, DependencyCounter> incomingDependencies,
+                                 Map<String, Integer> abstractClassCount,
+                                 Map<String, Integer> totalClassCount,
+                                 ScanContext context) {
+        String topLevelPackage = analysis.module();
+        if (topLevelPackage == null) return;
+
+        totalClassCount.merge(topLevelPackage, 1, Integer::sum);
+        if (analysis.isAbstract()) {
+            abstractClassCount.merge(topLevelPackage, 1, Integer::sum);
+        }
+        for (ClassAnalysis.Dependency dependency : analysis.dependencies()) {
+            outgoingDependencies.computeIfAbsent(topLevelPackage, _ -> new ExactDependencyCounter()).add(dependency.className());
+            if (dependency.module() != null) {
+                incomingDependencies.computeIfAbsent(dependency.module(), _ -> new ExactDependencyCounter()).add(analysis.className());
+            }
+            context.reportDependency(topLevelPackage, analysis.className(), dependency.module(), dependency.className());
         }
     }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
-    private boolean isExcludedDependency(String dependency) {
+    static boolean isExcludedDependency(String dependency) {
         return isJavaNativePackage(dependency) || isBasicType(dependency);
     }
 
-    private boolean isJavaNativePackage(String packageName) {
+    private static boolean isJavaNativePackage(String packageName) {
         return JAVA_NATIVE_PACKAGES.stream().anyMatch(packageName::startsWith);
     }
 
-    private boolean isBasicType(String typeName) {
+    private static boolean isBasicType(String typeName) {
         return BASIC_TYPES.contains(typeName) || BASIC_TYPES.contains(getPackageName(typeName));
     }
 
@@ -185,14 +354,14 @@ public class JavaClassAnalyzer {
         }
     }
 
-    private String extractTopLevelPackageFrom(String packageName, List<String> packages) {
+    static String extractTopLevelPackageFrom(String packageName, List<String> packages) {
         return packages.stream()
                 .filter(packageName::startsWith)
                 .findFirst()
                 .orElse(null);
     }
 
-    private String getPackageName(String className) {
+    static String getPackageName(String className) {
         int lastDotIndex = className.lastIndexOf('.');
         return (lastDotIndex == -1) ? "" : className.substring(0, lastDotIndex);
     }
@@ -0,0 +1,403 @@
+package com.example.softwaremetrics.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the same dependency maps as {@link JavaClassAnalyzer} from {@code .java} files, so
+ * projects can be scanned without compiling them. The first pass tokenizes every file in parallel
+ * with {@link JavaSourceLexer} and records its package, imports, type declarations and the type
+ * names it mentions. The second pass resolves those names against the project's package index:
+ * single-type imports first, then the file's own package, then on-demand imports, and fully
+ * qualified names as written.
+ *
+ * <p>Results differ from the bytecode engine where source and bytecode differ: names from
+ * on-demand imports of external packages cannot be resolved, anonymous and local classes are not
+ * counted, all dependencies of a file are attributed to its primary type, and type names that only
+ * appear in supertypes, field declarations or type arguments are counted although the bytecode
+ * engine, which reads methods only, does not see them.
+ */
+@Component
+public class JavaSourceAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(JavaSourceAnalyzer.class);
+
+    private static final int CHAR_BUFFER_SIZE = 64 * 1024;
+
+    private final ProjectPathTraverser projectPathTraverser;
+    private final ClassBytesSource fileSource;
+    private final BlockingQueue<char[]> charBuffers = new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    record SourceFile(String packageName, String className, Map<String, String> singleTypeImports,
+                      List<String> onDemandImports, Set<String> staticImportClasses, List<String> topLevelTypes,
+                      int typeCount, int abstractTypeCount, Set<String> references) {}
+
+    public JavaSourceAnalyzer() {
+        this(new ProjectPathTraverser(), new ScanProperties());
+    }
+
+    @Autowired
+    public JavaSourceAnalyzer(ProjectPathTraverser projectPathTraverser, ScanProperties scanProperties) {
+        this.projectPathTraverser = projectPathTraverser;
+        // source files are read through the same pooled buffers as class files
+        this.fileSource = ClassBytesSource.create(scanProperties.getClassReader(), scanProperties.getClassReaderMaxPooledSize().toBytes());
+    }
+
+    /**
+     * Analyzes all non-test source files below the project path.
+     */
+    void analyzeSources(Path projectPath, List<String> modulePackages,
+                        Map<String, DependencyCounter> outgoingDependencies,
+                        Map<String, DependencyCounter> incomingDependencies,
+                        Map<String, Integer> abstractClassCount,
+                        Map<String, Integer> totalClassCount,
+                        ScanContext context) {
+        ScanEvents.ScanPhase phase = ScanEvents.ScanPhase.start("walk", projectPath);
+        List<Path> files = projectPathTraverser.findJavaFiles(projectPath).stream()
+                .filter(this::isNotTestSource)
+                .toList();
+        phase.finish(context);
+
+        phase = ScanEvents.ScanPhase.start("parse", projectPath);
+        List<SourceFile> sources = files.parallelStream()
+                .map(file -> parse(file, context))
+                .filter(source -> source != null && !source.packageName().isEmpty())
+                .toList();
+        phase.finish(context);
+
+        Map<String, Set<String>> typesByPackage = new ConcurrentHashMap<>();
+        for (SourceFile source : sources) {
+            typesByPackage.computeIfAbsent(source.packageName(), _ -> new HashSet<>()).addAll(source.topLevelTypes());
+        }
+        phase = ScanEvents.ScanPhase.start("resolve", projectPath);
+        List<Set<String>> resolved = sources.parallelStream()
+                .map(source -> resolve(source, typesByPackage))
+                .toList();
+        phase.finish(context);
+
+        // the dependency counters may spill to disk or be sketches, so they are filled from one thread
+        for (int i = 0; i < sources.size(); i++) {
+            SourceFile source = sources.get(i);
+            String module = JavaClassAnalyzer.extractTopLevelPackageFrom(source.packageName(), modulePackages);
+            if (module == null) continue;
+            context.checkpoint();
+            totalClassCount.merge(module, source.typeCount(), Integer::sum);
+            abstractClassCount.merge(module, source.abstractTypeCount(), Integer::sum);
+            for (String dependency : resolved.get(i)) {
+                String dependencyModule = JavaClassAnalyzer.extractTopLevelPackageFrom(
+                        JavaClassAnalyzer.getPackageName(dependency), modulePackages);
+                if (!module.equals(dependencyModule) && !JavaClassAnalyzer.isExcludedDependency(dependency)) {
+                    outgoingDependencies.computeIfAbsent(module, _ -> new ExactDependencyCounter()).add(dependency);
+                    if (dependencyModule != null) {
+                        incomingDependencies.computeIfAbsent(dependencyModule, _ -> new ExactDependencyCounter()).add(source.className());
+                    }
+                    context.reportDependency(module, source.className(), dependencyModule, dependency);
+                }
+            }
+        }
+        logger.debug("Analyzed {} source files in {} packages", sources.size(), typesByPackage.size());
+    }
+
+    private boolean isNotTestSource(Path path) {
+        return !path.toString().contains("src/test/");
+    }
+
+    /**
+     * Reads and parses one source file.
+     *
+     * @return the parsed file, or {@code null} if it cannot be read, in which case it is skipped as
+     * the bytecode engine skips unreadable class files
+     */
+    SourceFile parse(Path file, ScanContext context) {
+        ScanEvents.FileAnalysis event = new ScanEvents.FileAnalysis();
+        event.begin();
+        try {
+            long readStart = event.isEnabled() ? System.nanoTime() : 0;
+            ClassBytesSource.ClassBytes bytes = fileSource.read(file);
+            CharBuffer chars;
+            try {
+                if (event.isEnabled()) {
+                    event.readTime = System.nanoTime() - readStart;
+                    event.bytes = bytes.length();
+                }
+                context.recordFile(bytes.length());
+                chars = decode(bytes);
+            } finally {
+                fileSource.release(bytes);
+            }
+            String fileName = file.getFileName().toString();
+            SourceFile source;
+            try {
+                source = parse(chars.array(), chars.limit(), fileName.substring(0, fileName.length() - ".java".length()));
+            } finally {
+                release(chars.array());
+            }
+            if (event.shouldCommit()) {
+                event.path = file.toString();
+                event.engine = "source";
+                event.className = source.className();
+                event.moduleDependencies = source.references().size();
+                event.commit();
+            }
+            return source;
+        } catch (IOException e) {
+            logger.error("Error reading source file: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Widens ASCII sources into a pooled buffer and only falls back to a full UTF-8 decode
+     * when a non-ASCII byte is found. Sources larger than a pooled buffer get an array of their own.
+     */
+    private CharBuffer decode(ClassBytesSource.ClassBytes bytes) {
+        byte[] buffer = bytes.buffer();
+        int length = bytes.length();
+        char[] chars = length > CHAR_BUFFER_SIZE ? new char[length] : charBuffers.poll();
+        if (chars == null) {
+            chars = new char[CHAR_BUFFER_SIZE];
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = buffer[i];
+            if (b < 0) {
+                release(chars);
+                return CharBuffer.wrap(new String(buffer, 0, length, StandardCharsets.UTF_8).toCharArray());
+            }
+            chars[i] = (char) b;
+        }
+        return CharBuffer.wrap(chars, 0, length);
+    }
+
+    private void release(char[] chars) {
+        if (chars.length == CHAR_BUFFER_SIZE) {
+            charBuffers.offer(chars);
+        }
+    }
+
+    /**
+     * Extracts the declarations and referenced type names of one source file.
+     */
+    static SourceFile parse(char[] chars, int length, String primaryType) {
+        JavaSourceLexer lexer = new JavaSourceLexer(chars, length);
+        String packageName = "";
+        Map<String, String> singleTypeImports = new HashMap<>();
+        List<String> onDemandImports = new ArrayList<>();
+        Set<String> staticImportClasses = new HashSet<>();
+        List<String> topLevelTypes = new ArrayList<>();
+        Set<String> references = new HashSet<>();
+        int typeCount = 0;
+        int abstractTypeCount = 0;
+        int depth = 0;
+        boolean abstractModifier = false;
+        int previous = JavaSourceLexer.OTHER;
+        StringBuilder chain = new StringBuilder();
+
+        int token;
+        while ((token = lexer.next()) != JavaSourceLexer.EOF) {
+            switch (token) {
+                case JavaSourceLexer.LEFT_BRACE -> {
+                    depth++;
+                    abstractModifier = false;
+                }
+                case JavaSourceLexer.RIGHT_BRACE -> {
+                    depth--;
+                    abstractModifier = false;
+                }
+                case JavaSourceLexer.SEMICOLON -> abstractModifier = false;
+                case JavaSourceLexer.IDENTIFIER -> {
+                    if (previous == JavaSourceLexer.DOT) break;
+                    // annotations are not read from bytecode either
+                    if (previous == JavaSourceLexer.AT && !lexer.tokenIs("interface")) break;
+                    if (depth == 0 && lexer.tokenIs("package")) {
+                        packageName = readQualifiedName(lexer, chain, false);
+                        token = JavaSourceLexer.SEMICOLON;
+                    } else if (depth == 0 && lexer.tokenIs("import")) {
+                        readImport(lexer, chain, singleTypeImports, onDemandImports, staticImportClasses);
+                        token = JavaSourceLexer.SEMICOLON;
+                    } else if (lexer.tokenIs("abstract")) {
+                        abstractModifier = true;
+                    } else if (lexer.tokenIs("class") || lexer.tokenIs("interface") || lexer.tokenIs("enum")
+                            || (lexer.tokenIs("record") && isRecordDeclaration(lexer))) {
+                        boolean isAbstract = abstractModifier || lexer.tokenIs("interface");
+                        if (lexer.next() != JavaSourceLexer.IDENTIFIER) break;
+                        if (depth == 0) topLevelTypes.add(lexer.tokenText());
+                        typeCount++;
+                        if (isAbstract) abstractTypeCount++;
+                        abstractModifier = false;
+                    } else if (lexer.tokenStartsWithUpperCase()) {
+                        chain.setLength(0);
+                        lexer.appendToken(chain);
+                        appendNestedTypes(lexer, chain);
+                        references.add(chain.toString());
+                    } else {
+                        readQualifiedReference(lexer, chain, references);
+                    }
+                }
+                default -> {
+                }
+            }
+            previous = token;
+        }
+        if (topLevelTypes.isEmpty()) topLevelTypes.add(primaryType);
+        String className = packageName.isEmpty() ? primaryType : packageName + "." + primaryType;
+        return new SourceFile(packageName, className, singleTypeImports, onDemandImports, staticImportClasses,
+                topLevelTypes, typeCount, abstractTypeCount, references);
+    }
+
+    /**
+     * {@code record} is only a keyword when followed by a name and a parameter or type parameter list.
+     */
+    private static boolean isRecordDeclaration(JavaSourceLexer lexer) {
+        lexer.mark();
+        boolean declaration = lexer.next() == JavaSourceLexer.IDENTIFIER
+                && switch (lexer.next()) {
+                    case JavaSourceLexer.LEFT_PAREN, JavaSourceLexer.LESS_THAN -> true;
+                    default -> false;
+                };
+        lexer.reset();
+        return declaration;
+    }
+
+    /**
+     * Reads {@code a.b.c} up to the terminating semicolon; with {@code allowWildcard} a trailing
+     * {@code .*} is kept.
+     */
+    private static String readQualifiedName(JavaSourceLexer lexer, StringBuilder builder, boolean allowWildcard) {
+        builder.setLength(0);
+        int token;
+        while ((token = lexer.next()) != JavaSourceLexer.SEMICOLON && token != JavaSourceLexer.EOF) {
+            switch (token) {
+                case JavaSourceLexer.IDENTIFIER -> lexer.appendToken(builder);
+                case JavaSourceLexer.DOT -> builder.append('.');
+                case JavaSourceLexer.STAR -> {
+                    if (allowWildcard) builder.append('*');
+                }
+                default -> {
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void readImport(JavaSourceLexer lexer, StringBuilder builder, Map<String, String> singleTypeImports,
+                                   List<String> onDemandImports, Set<String> staticImportClasses) {
+        lexer.mark();
+        boolean isStatic = lexer.next() == JavaSourceLexer.IDENTIFIER && lexer.tokenIs("static");
+        if (!isStatic) lexer.reset();
+        String name = readQualifiedName(lexer, builder, true);
+        boolean onDemand = name.endsWith(".*");
+        String target = onDemand ? name.substring(0, name.length() - 2) : name;
+        if (isStatic) {
+            // the owner of a statically imported member is a dependency whether or not the member is used
+            staticImportClasses.add(binaryName(onDemand ? target : JavaClassAnalyzer.getPackageName(target)));
+        } else if (onDemand) {
+            onDemandImports.add(target);
+        } else {
+            singleTypeImports.put(target.substring(target.lastIndexOf('.') + 1), binaryName(target));
+        }
+    }
+
+    /**
+     * Converts {@code a.b.Outer.Inner} to the binary name {@code a.b.Outer$Inner} used by the
+     * bytecode engine, taking the first upper-case segment as the top-level type.
+     */
+    private static String binaryName(String name) {
+        int start = 0;
+        while (start < name.length()) {
+            int end = name.indexOf('.', start);
+            if (end < 0) return name;
+            if (Character.isUpperCase(name.charAt(start))) {
+                return name.substring(0, end) + name.substring(end).replace('.', '$');
+            }
+            start = end + 1;
+        }
+        return name;
+    }
+
+    /**
+     * Reads a dotted name starting with a lower-case identifier and keeps it as a reference if it
+     * reaches an upper-case segment, like {@code org.example.Type}. Anything else, such as
+     * {@code list.size}, is left for the main loop.
+     */
+    private static void readQualifiedReference(JavaSourceLexer lexer, StringBuilder builder, Set<String> references) {
+        lexer.mark();
+        builder.setLength(0);
+        lexer.appendToken(builder);
+        while (lexer.next() == JavaSourceLexer.DOT && lexer.next() == JavaSourceLexer.IDENTIFIER) {
+            builder.append('.');
+            lexer.appendToken(builder);
+            if (lexer.tokenStartsWithUpperCase()) {
+                appendNestedTypes(lexer, builder);
+                references.add(builder.toString());
+                return;
+            }
+        }
+        lexer.reset();
+    }
+
+    /**
+     * Follows a type name into its nested types, so {@code Outer.Inner} becomes {@code Outer$Inner}.
+     * Segments without a lower-case letter, such as {@code Outer.CONSTANT}, are members and end the
+     * name.
+     */
+    private static void appendNestedTypes(JavaSourceLexer lexer, StringBuilder builder) {
+        while (true) {
+            lexer.mark();
+            if (lexer.next() != JavaSourceLexer.DOT || lexer.next() != JavaSourceLexer.IDENTIFIER
+                    || !lexer.tokenIsTypeName()) {
+                lexer.reset();
+                return;
+            }
+            builder.append('$');
+            lexer.appendToken(builder);
+        }
+    }
+
+    /**
+     * Resolves the referenced names of a file to fully qualified names.
+     */
+    static Set<String> resolve(SourceFile source, Map<String, Set<String>> typesByPackage) {
+        Set<String> dependencies = new HashSet<>(source.staticImportClasses());
+        Set<String> ownPackageTypes = typesByPackage.getOrDefault(source.packageName(), Set.of());
+        for (String reference : source.references()) {
+            if (reference.indexOf('.') >= 0) {
+                dependencies.add(reference);
+                continue;
+            }
+            int nested = reference.indexOf('$');
+            String simpleName = nested < 0 ? reference : reference.substring(0, nested);
+            String nestedTypes = nested < 0 ? "" : reference.substring(nested);
+            String imported = source.singleTypeImports().get(simpleName);
+            if (imported != null) {
+                dependencies.add(imported + nestedTypes);
+            } else if (ownPackageTypes.contains(simpleName)) {
+                dependencies.add(source.packageName() + "." + reference);
+            } else {
+                for (String onDemandImport : source.onDemandImports()) {
+                    if (typesByPackage.getOrDefault(onDemandImport, Set.of()).contains(simpleName)) {
+                        dependencies.add(onDemandImport + "." + reference);
+                        break;
+                    }
+                }
+            }
+        }
+        dependencies.remove(source.className());
+        return dependencies;
+    }
+}
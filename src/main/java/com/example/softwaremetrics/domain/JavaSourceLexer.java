@@ -0,0 +1,193 @@
+package com.example.softwaremetrics.domain;
+
+/**
+ * A minimal Java tokenizer for dependency analysis. It recognizes identifiers and the punctuation
+ * the source analyzer needs, and skips whitespace, comments, literals and all other tokens. Tokens
+ * are not materialized: {@link #next()} returns the token type and the current token is compared
+ * in place, so a string is only allocated when the caller asks for the token text.
+ */
+final class JavaSourceLexer {
+
+    static final int EOF = 0;
+    static final int IDENTIFIER = 1;
+    static final int DOT = 2;
+    static final int SEMICOLON = 3;
+    static final int STAR = 4;
+    static final int AT = 5;
+    static final int LEFT_BRACE = 6;
+    static final int RIGHT_BRACE = 7;
+    static final int LEFT_PAREN = 8;
+    static final int LESS_THAN = 9;
+    static final int OTHER = 10;
+
+    private final char[] source;
+    private final int length;
+    private int position;
+    private int tokenStart;
+    private int tokenEnd;
+    private int markedPosition;
+    private int markedTokenStart;
+    private int markedTokenEnd;
+
+    JavaSourceLexer(char[] source, int length) {
+        this.source = source;
+        this.length = length;
+    }
+
+    int next() {
+        skipWhitespaceAndComments();
+        tokenStart = position;
+        if (position >= length) {
+            tokenEnd = position;
+            return EOF;
+        }
+        char c = source[position];
+        if (Character.isJavaIdentifierStart(c)) {
+            position++;
+            while (position < length && Character.isJavaIdentifierPart(source[position])) position++;
+            tokenEnd = position;
+            return IDENTIFIER;
+        }
+        if (c >= '0' && c <= '9') {
+            skipNumber();
+            return OTHER;
+        }
+        position++;
+        int type = switch (c) {
+            case '.' -> {
+                if (position < length && source[position] >= '0' && source[position] <= '9') {
+                    skipNumber();
+                    yield OTHER;
+                }
+                if (position + 1 < length && source[position] == '.' && source[position + 1] == '.') {
+                    position += 2;
+                    yield OTHER;
+                }
+                yield DOT;
+            }
+            case ';' -> SEMICOLON;
+            case '*' -> STAR;
+            case '@' -> AT;
+            case '{' -> LEFT_BRACE;
+            case '}' -> RIGHT_BRACE;
+            case '(' -> LEFT_PAREN;
+            case '<' -> LESS_THAN;
+            case '"' -> {
+                skipString();
+                yield OTHER;
+            }
+            case '\'' -> {
+                skipQuoted('\'');
+                yield OTHER;
+            }
+            default -> OTHER;
+        };
+        tokenEnd = position;
+        return type;
+    }
+
+    /**
+     * Remembers the current token for a later {@link #reset()}, which allows one level of lookahead.
+     */
+    void mark() {
+        markedPosition = position;
+        markedTokenStart = tokenStart;
+        markedTokenEnd = tokenEnd;
+    }
+
+    void reset() {
+        position = markedPosition;
+        tokenStart = markedTokenStart;
+        tokenEnd = markedTokenEnd;
+    }
+
+    /**
+     * Whether the current token is exactly the given text.
+     */
+    boolean tokenIs(String text) {
+        int tokenLength = tokenEnd - tokenStart;
+        if (tokenLength != text.length()) return false;
+        for (int i = 0; i < tokenLength; i++) {
+            if (source[tokenStart + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    boolean tokenStartsWithUpperCase() {
+        return tokenEnd > tokenStart && Character.isUpperCase(source[tokenStart]);
+    }
+
+    /**
+     * Whether the current token looks like a type name: upper-case first letter and at least one
+     * lower-case letter, which tells {@code Map.Entry} apart from {@code Map.EMPTY}.
+     */
+    boolean tokenIsTypeName() {
+        if (!tokenStartsWithUpperCase()) return false;
+        for (int i = tokenStart + 1; i < tokenEnd; i++) {
+            if (Character.isLowerCase(source[i])) return true;
+        }
+        return false;
+    }
+
+    String tokenText() {
+        return new String(source, tokenStart, tokenEnd - tokenStart);
+    }
+
+    void appendToken(StringBuilder builder) {
+        builder.append(source, tokenStart, tokenEnd - tokenStart);
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (position < length) {
+            char c = source[position];
+            if (c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f') {
+                position++;
+            } else if (c == '/' && position + 1 < length && source[position + 1] == '/') {
+                while (position < length && source[position] != '\n') position++;
+            } else if (c == '/' && position + 1 < length && source[position + 1] == '*') {
+                position += 2;
+                while (position + 1 < length && !(source[position] == '*' && source[position + 1] == '/')) position++;
+                position = Math.min(length, position + 2);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipNumber() {
+        while (position < length) {
+            char c = source[position];
+            boolean exponentSign = (c == '+' || c == '-')
+                    && (source[position - 1] == 'e' || source[position - 1] == 'E'
+                    || source[position - 1] == 'p' || source[position - 1] == 'P');
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.' || exponentSign) {
+                position++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipString() {
+        if (position + 1 < length && source[position] == '"' && source[position + 1] == '"') {
+            // text block
+            position += 2;
+            while (position + 2 < length
+                    && !(source[position] == '"' && source[position + 1] == '"' && source[position + 2] == '"')) {
+                if (source[position] == '\\') position++;
+                position++;
+            }
+            position = Math.min(length, position + 3);
+        } else {
+            skipQuoted('"');
+        }
+    }
+
+    private void skipQuoted(char quote) {
+        while (position < length && source[position] != quote && source[position] != '\n') {
+            if (source[position] == '\\') position++;
+            position++;
+        }
+        position = Math.min(length, position + 1);
+    }
+}
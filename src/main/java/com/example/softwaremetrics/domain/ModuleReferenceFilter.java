@@ -0,0 +1,40 @@
+package com.example.softwaremetrics.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Tells from the raw bytes of a class file whether it can belong to or depend on one of the given
+ * modules, without parsing it. The name of a class and of every type it refers to are stored as
+ * internal names ({@code com/example/orders/Order}) in its constant pool, so a class file that
+ * contains none of the modules' internal names does neither. Matches can be false positives, for
+ * instance a string constant, but a class that does refer to a module always matches.
+ */
+final class ModuleReferenceFilter {
+
+    private final byte[][] patterns;
+    private final boolean matchesAll;
+
+    ModuleReferenceFilter(Collection<String> modules) {
+        this.patterns = modules.stream()
+                .map(module -> module.replace('.', '/').getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        // class files use modified UTF-8, which only differs from UTF-8 for NUL and supplementary characters
+        this.matchesAll = modules.stream().anyMatch(module -> module.isEmpty() || module.indexOf('\0') >= 0
+                || module.codePoints().anyMatch(Character::isSupplementaryCodePoint));
+    }
+
+    boolean matches(byte[] buffer, int length) {
+        if (matchesAll) return true;
+        for (byte[] pattern : patterns) {
+            byte first = pattern[0];
+            for (int i = 0, last = length - pattern.length; i <= last; i++) {
+                if (buffer[i] == first && Arrays.equals(buffer, i, i + pattern.length, pattern, 0, pattern.length)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
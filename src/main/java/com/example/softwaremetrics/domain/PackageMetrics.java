@@ -1,6 +1,7 @@
 package com.example.softwaremetrics.domain;
 
 import java.util.List;
+import java.util.Map;
 
 @SuppressWarnings("unused")
 public class PackageMetrics {
@@ -14,10 +15,43 @@ public class PackageMetrics {
     private double abstractness;
     private double instability;
     private double distance;
+    private boolean approximate;
+    private int ceLowerBound;
+    private int ceUpperBound;
+    private int caLowerBound;
+    private int caUpperBound;
+    private double instabilityLowerBound;
+    private double instabilityUpperBound;
+    private Map<String, Integer> artifactDependencies = Map.of();
 
     // Constructor
     public PackageMetrics() {}
 
+    /**
+     * A copy of the given metrics. The dependency lists and the artifact map are shared; they are
+     * replaced through the setters, never changed in place.
+     */
+    public PackageMetrics(PackageMetrics other) {
+        this.packageName = other.packageName;
+        this.ce = other.ce;
+        this.efferentDependencies = other.efferentDependencies;
+        this.ca = other.ca;
+        this.afferentDependencies = other.afferentDependencies;
+        this.abstractClassCount = other.abstractClassCount;
+        this.totalClassCount = other.totalClassCount;
+        this.abstractness = other.abstractness;
+        this.instability = other.instability;
+        this.distance = other.distance;
+        this.approximate = other.approximate;
+        this.ceLowerBound = other.ceLowerBound;
+        this.ceUpperBound = other.ceUpperBound;
+        this.caLowerBound = other.caLowerBound;
+        this.caUpperBound = other.caUpperBound;
+        this.instabilityLowerBound = other.instabilityLowerBound;
+        this.instabilityUpperBound = other.instabilityUpperBound;
+        this.artifactDependencies = other.artifactDependencies;
+    }
+
     // Getters and setters
     public String getPackageName() { return packageName; }
     public void setPackageName(String packageName) { this.packageName = packageName; }
@@ -48,4 +82,32 @@ public class PackageMetrics {
 
     public double getDistance() { return distance; }
     public void setDistance(double distance) { this.distance = distance; }
-}
\ No newline at end of file
+
+    public boolean isApproximate() { return approximate; }
+    public void setApproximate(boolean approximate) { this.approximate = approximate; }
+
+    public int getCeLowerBound() { return ceLowerBound; }
+    public void setCeLowerBound(int ceLowerBound) { this.ceLowerBound = ceLowerBound; }
+
+    public int getCeUpperBound() { return ceUpperBound; }
+    public void setCeUpperBound(int ceUpperBound) { this.ceUpperBound = ceUpperBound; }
+
+    public int getCaLowerBound() { return caLowerBound; }
+    public void setCaLowerBound(int caLowerBound) { this.caLowerBound = caLowerBound; }
+
+    public int getCaUpperBound() { return caUpperBound; }
+    public void setCaUpperBound(int caUpperBound) { this.caUpperBound = caUpperBound; }
+
+    public double getInstabilityLowerBound() { return instabilityLowerBound; }
+    public void setInstabilityLowerBound(double instabilityLowerBound) { this.instabilityLowerBound = instabilityLowerBound; }
+
+    public double getInstabilityUpperBound() { return instabilityUpperBound; }
+    public void setInstabilityUpperBound(double instabilityUpperBound) { this.instabilityUpperBound = instabilityUpperBound; }
+
+    /**
+     * External efferent dependencies grouped by {@code groupId:artifactId}: the number of distinct
+     * classes used from each artifact, largest first. Empty unless artifact attribution is enabled.
+     */
+    public Map<String, Integer> getArtifactDependencies() { return artifactDependencies; }
+    public void setArtifactDependencies(Map<String, Integer> artifactDependencies) { this.artifactDependencies = artifactDependencies; }
+}
@@ -2,14 +2,18 @@ package com.example.softwaremetrics.domain;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Component for calculating various metrics for a given set of Java packages within a project.
@@ -19,10 +23,30 @@ import java.util.concurrent.ConcurrentHashMap;
 public class PackageMetricsCalculator {
 
     private static final Logger logger = LoggerFactory.getLogger(PackageMetricsCalculator.class);
+
+    /**
+     * Confidence level of the reported bounds: two standard errors, about 95%.
+     */
+    private static final double CONFIDENCE_Z = 1.96;
+
     private final JavaClassAnalyzer javaClassAnalyzer;
+    private final JavaSourceAnalyzer javaSourceAnalyzer;
+    private final ScanProperties scanProperties;
 
     public PackageMetricsCalculator(JavaClassAnalyzer javaClassAnalyzer) {
+        this(javaClassAnalyzer, new ScanProperties());
+    }
+
+    public PackageMetricsCalculator(JavaClassAnalyzer javaClassAnalyzer, ScanProperties scanProperties) {
+        this(javaClassAnalyzer, new JavaSourceAnalyzer(new ProjectPathTraverser(), scanProperties), scanProperties);
+    }
+
+    @Autowired
+    public PackageMetricsCalculator(JavaClassAnalyzer javaClassAnalyzer, JavaSourceAnalyzer javaSourceAnalyzer,
+                                    ScanProperties scanProperties) {
         this.javaClassAnalyzer = javaClassAnalyzer;
+        this.javaSourceAnalyzer = javaSourceAnalyzer;
+        this.scanProperties = scanProperties;
     }
 
     /**
@@ -36,41 +60,172 @@ public class PackageMetricsCalculator {
      * @
      */
     public Map<String, PackageMetrics> calculateMetrics(Path projectPath, List<String> modulePackages) {
+        return calculateMetrics(projectPath, modulePackages, ScanContext.unbounded());
+    }
+
+    /**
+     * Same as {@link #calculateMetrics(Path, List)}, stopping with a {@link ScanLimitExceededException}
+     * when the scan exceeds the deadline or quotas of the given context.
+     */
+    public Map<String, PackageMetrics> calculateMetrics(Path projectPath, List<String> modulePackages, ScanContext context) {
         logger.info("Calculating metrics for {} packages", modulePackages.size());
-        Map<String, Set<String>> outgoingDependencies = new ConcurrentHashMap<>();
-        Map<String, Set<String>> incomingDependencies = new ConcurrentHashMap<>();
+        return withDependencyCounters(dependencyCounterFactory ->
+                calculateMetrics(projectPath, modulePackages, context, dependencyCounterFactory));
+    }
+
+    /**
+     * Same as {@link #calculateMetrics(Path, List, ScanContext)}, analyzing the class files that
+     * belong to or refer to the priority modules first. Once those are analyzed, the metrics of the
+     * priority modules are final: they are passed to the listener, and the remaining files are
+     * analyzed on the calling thread. Source scans resolve names across all files, so they call the
+     * listener once everything is analyzed.
+     */
+    public Map<String, PackageMetrics> calculateMetrics(Path projectPath, List<String> modulePackages, List<String> priorityModules,
+                                                        Consumer<Map<String, PackageMetrics>> priorityListener, ScanContext context) {
+        logger.info("Calculating metrics for {} packages, {} first", modulePackages.size(), priorityModules);
+        return withDependencyCounters(dependencyCounterFactory -> {
+            if (scanProperties.getEngine() == ScanProperties.Engine.SOURCE) {
+                Map<String, PackageMetrics> metrics = calculateMetrics(projectPath, modulePackages, context, dependencyCounterFactory);
+                // copies, since the listener publishes them while the caller goes on with the full metrics
+                Map<String, PackageMetrics> priorityMetrics = new LinkedHashMap<>();
+                priorityModules.forEach(pkg -> priorityMetrics.put(pkg, new PackageMetrics(metrics.get(pkg))));
+                priorityListener.accept(priorityMetrics);
+                return metrics;
+            }
+            Map<String, DependencyCounter> outgoingDependencies = new ConcurrentHashMap<>();
+            Map<String, DependencyCounter> incomingDependencies = new ConcurrentHashMap<>();
+            Map<String, Integer> abstractClassCount = new ConcurrentHashMap<>();
+            Map<String, Integer> totalClassCount = new ConcurrentHashMap<>();
+            initializeMaps(modulePackages, dependencyCounterFactory, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount);
+
+            ScanEvents.ScanPhase phase = ScanEvents.ScanPhase.start("analyze-priority", projectPath);
+            List<Path> deferred = javaClassAnalyzer.analyzeClassesFirst(projectPath, modulePackages, priorityModules,
+                    outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount, context);
+            phase.finish(context);
+            logger.debug("Priority modules analyzed from {} files, {} left", context.getFileCount(), deferred.size());
+            priorityListener.accept(computeMetrics(priorityModules, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount));
+
+            phase = ScanEvents.ScanPhase.start("analyze", projectPath);
+            javaClassAnalyzer.analyzeClassFiles(deferred, modulePackages, outgoingDependencies, incomingDependencies,
+                    abstractClassCount, totalClassCount, context);
+            phase.finish(context);
+            return computeMetrics(modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount);
+        });
+    }
+
+    /**
+     * Analyzes one shard of a scan's class files and returns its partial aggregate. Shards are
+     * small, so the counters are kept in memory, as sketches of the given precision or exactly if the
+     * precision is 0.
+     */
+    public PartialAggregate analyzeShard(List<Path> classFiles, List<String> modulePackages, int sketchPrecision,
+                                         ScanContext context) {
+        Supplier<DependencyCounter> dependencyCounterFactory = sketchPrecision > 0
+                ? () -> new SketchDependencyCounter(sketchPrecision)
+                : ExactDependencyCounter::new;
+        Map<String, DependencyCounter> outgoingDependencies = new ConcurrentHashMap<>();
+        Map<String, DependencyCounter> incomingDependencies = new ConcurrentHashMap<>();
         Map<String, Integer> abstractClassCount = new ConcurrentHashMap<>();
         Map<String, Integer> totalClassCount = new ConcurrentHashMap<>();
+        initializeMaps(modulePackages, dependencyCounterFactory, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount);
 
-        initializeMaps(modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount);
+        ScanEvents.ScanPhase phase = ScanEvents.ScanPhase.start("analyze-shard", modulePackages);
+        javaClassAnalyzer.analyzeClassFiles(classFiles, modulePackages, outgoingDependencies, incomingDependencies,
+                abstractClassCount, totalClassCount, context);
+        phase.finish(context);
 
-        javaClassAnalyzer.analyzeClasses(projectPath, modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount);
+        return PartialAggregate.of(modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount);
+    }
 
-        logger.debug("Dependency analysis completed. Calculating final metrics.");
+    /**
+     * Merges the partial aggregates of all shards of a scan and calculates the metrics from them.
+     */
+    public Map<String, PackageMetrics> mergeShards(List<String> modulePackages, List<PartialAggregate> shards) {
+        logger.info("Merging {} shards for {} packages", shards.size(), modulePackages.size());
+        return withDependencyCounters(dependencyCounterFactory -> {
+            Map<String, DependencyCounter> outgoingDependencies = new ConcurrentHashMap<>();
+            Map<String, DependencyCounter> incomingDependencies = new ConcurrentHashMap<>();
+            Map<String, Integer> abstractClassCount = new ConcurrentHashMap<>();
+            Map<String, Integer> totalClassCount = new ConcurrentHashMap<>();
+            initializeMaps(modulePackages, dependencyCounterFactory, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount);
+            ScanEvents.ScanPhase phase = ScanEvents.ScanPhase.start("merge-shards", modulePackages);
+            shards.forEach(shard -> shard.mergeInto(outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount));
+            phase.finish();
+            return computeMetrics(modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount);
+        });
+    }
+
+    /**
+     * The sketch precision shards of this scan must use, or 0 for exact scans.
+     */
+    public int getSketchPrecision() {
+        return scanProperties.isApproximate() ? HyperLogLog.precisionFor(scanProperties.getApproximateError()) : 0;
+    }
+
+    private <T> T withDependencyCounters(Function<Supplier<DependencyCounter>, T> body) {
+        if (scanProperties.isApproximate()) {
+            int precision = getSketchPrecision();
+            logger.debug("Estimating Ca and Ce with HyperLogLog sketches of precision {}", precision);
+            return body.apply(() -> new SketchDependencyCounter(precision));
+        }
+        if (!scanProperties.isMemoryBudgetEnabled()) {
+            return body.apply(ExactDependencyCounter::new);
+        }
+        logger.debug("Using a dependency memory budget of {}", scanProperties.getMemoryBudget());
+        try (SpillingDependencyStore store = new SpillingDependencyStore(
+                scanProperties.getMemoryBudget().toBytes(), scanProperties.getSpillDirectory())) {
+            return body.apply(() -> new ExactDependencyCounter(store.newSet()));
+        }
+    }
+
+    private Map<String, PackageMetrics> calculateMetrics(Path projectPath, List<String> modulePackages, ScanContext context,
+                                                         Supplier<DependencyCounter> dependencyCounterFactory) {
+        Map<String, DependencyCounter> outgoingDependencies = new ConcurrentHashMap<>();
+        Map<String, DependencyCounter> incomingDependencies = new ConcurrentHashMap<>();
+        Map<String, Integer> abstractClassCount = new ConcurrentHashMap<>();
+        Map<String, Integer> totalClassCount = new ConcurrentHashMap<>();
+
+        initializeMaps(modulePackages, dependencyCounterFactory, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount);
+
+        // the bytecode engine parses files as the walk finds them, so its walk is part of this phase
+        ScanEvents.ScanPhase phase = ScanEvents.ScanPhase.start("analyze", projectPath);
+        if (scanProperties.getEngine() == ScanProperties.Engine.SOURCE) {
+            javaSourceAnalyzer.analyzeSources(projectPath, modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount, context);
+        } else {
+            javaClassAnalyzer.analyzeClasses(projectPath, modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount, context);
+        }
+        phase.finish(context);
+
+        logger.debug("Dependency analysis of {} files ({} bytes) completed. Calculating final metrics.",
+                context.getFileCount(), context.getByteCount());
         return computeMetrics(modulePackages, outgoingDependencies, incomingDependencies, abstractClassCount, totalClassCount);
     }
 
-    private void initializeMaps(List<String> modulePackages, Map<String, Set<String>> outgoingDependencies,
-                                Map<String, Set<String>> incomingDependencies,
+    private void initializeMaps(List<String> modulePackages, Supplier<DependencyCounter> dependencyCounterFactory,
+                                Map<String, DependencyCounter> outgoingDependencies,
+                                Map<String, DependencyCounter> incomingDependencies,
                                 Map<String, Integer> abstractClassCount,
                                 Map<String, Integer> totalClassCount) {
         modulePackages.forEach(pkg -> {
-            outgoingDependencies.put(pkg, ConcurrentHashMap.newKeySet());
-            incomingDependencies.put(pkg, ConcurrentHashMap.newKeySet());
+            outgoingDependencies.put(pkg, dependencyCounterFactory.get());
+            incomingDependencies.put(pkg, dependencyCounterFactory.get());
             abstractClassCount.put(pkg, 0);
             totalClassCount.put(pkg, 0);
         });
     }
 
     private Map<String, PackageMetrics> computeMetrics(List<String> modulePackages,
-                                                       Map<String, Set<String>> outgoingDependencies,
-                                                       Map<String, Set<String>> incomingDependencies,
+                                                       Map<String, DependencyCounter> outgoingDependencies,
+                                                       Map<String, DependencyCounter> incomingDependencies,
                                                        Map<String, Integer> abstractClassCount,
                                                        Map<String, Integer> totalClassCount) {
+        ScanEvents.ScanPhase phase = ScanEvents.ScanPhase.start("compute-metrics", null);
         Map<String, PackageMetrics> metrics = new ConcurrentHashMap<>();
         for (String pkg : modulePackages) {
-            int ce = outgoingDependencies.getOrDefault(pkg, Set.of()).size();
-            int ca = incomingDependencies.getOrDefault(pkg, Set.of()).size();
+            DependencyCounter outgoing = outgoingDependencies.getOrDefault(pkg, new ExactDependencyCounter());
+            DependencyCounter incoming = incomingDependencies.getOrDefault(pkg, new ExactDependencyCounter());
+            int ce = outgoing.count();
+            int ca = incoming.count();
             double instability = (ce + ca == 0) ? 0.0 : (double) ce / (ce + ca);
 
             int abstractClasses = abstractClassCount.getOrDefault(pkg, 0);
@@ -82,21 +237,62 @@ public class PackageMetricsCalculator {
             PackageMetrics pkgMetrics = new PackageMetrics();
             pkgMetrics.setPackageName(pkg);
             pkgMetrics.setCe(ce);
-            pkgMetrics.setEfferentDependencies(new ArrayList<>(outgoingDependencies.getOrDefault(pkg, Set.of())));
+            pkgMetrics.setEfferentDependencies(names(outgoing));
             pkgMetrics.setCa(ca);
-            pkgMetrics.setAfferentDependencies(new ArrayList<>(incomingDependencies.getOrDefault(pkg, Set.of())));
+            pkgMetrics.setAfferentDependencies(names(incoming));
             pkgMetrics.setAbstractClassCount(abstractClasses);
             pkgMetrics.setTotalClassCount(totalClasses);
             pkgMetrics.setAbstractness(abstractness);
             pkgMetrics.setInstability(instability);
             pkgMetrics.setDistance(distance);
 
+            if (outgoing instanceof SketchDependencyCounter outgoingSketch
+                    && incoming instanceof SketchDependencyCounter incomingSketch) {
+                applyConfidenceIntervals(pkgMetrics, outgoingSketch.getSketch(), incomingSketch.getSketch());
+            } else {
+                pkgMetrics.setCeLowerBound(ce);
+                pkgMetrics.setCeUpperBound(ce);
+                pkgMetrics.setCaLowerBound(ca);
+                pkgMetrics.setCaUpperBound(ca);
+                pkgMetrics.setInstabilityLowerBound(instability);
+                pkgMetrics.setInstabilityUpperBound(instability);
+            }
+
             metrics.put(pkg, pkgMetrics);
 
             logger.debug("Metrics for package {}: I={}, A={}, D={}, CE={}, CA={}",
                     pkg, instability, abstractness, distance, ce, ca);
         }
 
+        phase.finish();
         return metrics;
     }
-}
\ No newline at end of file
+
+    // sketches keep no names, so approximate scans have empty dependency lists
+    private static List<String> names(DependencyCounter dependencies) {
+        return dependencies instanceof ExactDependencyCounter exact ? new ArrayList<>(exact.names()) : new ArrayList<>();
+    }
+
+    private void applyConfidenceIntervals(PackageMetrics pkgMetrics, HyperLogLog outgoing, HyperLogLog incoming) {
+        int ceLower = lowerBound(pkgMetrics.getCe(), outgoing);
+        int ceUpper = upperBound(pkgMetrics.getCe(), outgoing);
+        int caLower = lowerBound(pkgMetrics.getCa(), incoming);
+        int caUpper = upperBound(pkgMetrics.getCa(), incoming);
+        pkgMetrics.setApproximate(true);
+        pkgMetrics.setCeLowerBound(ceLower);
+        pkgMetrics.setCeUpperBound(ceUpper);
+        pkgMetrics.setCaLowerBound(caLower);
+        pkgMetrics.setCaUpperBound(caUpper);
+        // instability grows with Ce and shrinks with Ca, so its extremes pair opposite bounds
+        pkgMetrics.setInstabilityLowerBound(ceLower + caUpper == 0 ? 0.0 : (double) ceLower / (ceLower + caUpper));
+        pkgMetrics.setInstabilityUpperBound(ceUpper + caLower == 0 ? 0.0 : (double) ceUpper / (ceUpper + caLower));
+    }
+
+    private static int lowerBound(int estimate, HyperLogLog sketch) {
+        return (int) Math.max(0, Math.floor(estimate * (1 - CONFIDENCE_Z * sketch.relativeStandardError())));
+    }
+
+    private static int upperBound(int estimate, HyperLogLog sketch) {
+        return (int) Math.ceil(estimate * (1 + CONFIDENCE_Z * sketch.relativeStandardError()));
+    }
+}
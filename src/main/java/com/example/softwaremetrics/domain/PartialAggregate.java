@@ -0,0 +1,102 @@
+package com.example.softwaremetrics.domain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The per-package counts and dependencies of one shard of a scan, in a compact form for sending
+ * between processes. Class names are stored once in a dictionary and the dependency sets refer to
+ * them by index; approximate scans send HyperLogLog registers instead. Partial aggregates of the
+ * same scan are merged by summing the counts and taking the union of the sets.
+ *
+ * @param names    dictionary of the class names used by the packages
+ * @param packages one aggregate per module package
+ */
+public record PartialAggregate(List<String> names, List<PackageAggregate> packages) {
+
+    /**
+     * @param efferent       dictionary indexes of the outgoing dependencies (exact scans)
+     * @param afferent       dictionary indexes of the incoming dependencies (exact scans)
+     * @param efferentSketch HyperLogLog registers of the outgoing dependencies (approximate scans)
+     * @param afferentSketch HyperLogLog registers of the incoming dependencies (approximate scans)
+     */
+    public record PackageAggregate(String packageName, int abstractClassCount, int totalClassCount,
+                                   int[] efferent, int[] afferent, byte[] efferentSketch, byte[] afferentSketch) {}
+
+    static PartialAggregate of(List<String> modulePackages,
+                               Map<String, DependencyCounter> outgoingDependencies,
+                               Map<String, DependencyCounter> incomingDependencies,
+                               Map<String, Integer> abstractClassCount,
+                               Map<String, Integer> totalClassCount) {
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        List<PackageAggregate> packages = new ArrayList<>();
+        for (String pkg : modulePackages) {
+            DependencyCounter outgoing = outgoingDependencies.getOrDefault(pkg, new ExactDependencyCounter());
+            DependencyCounter incoming = incomingDependencies.getOrDefault(pkg, new ExactDependencyCounter());
+            packages.add(new PackageAggregate(pkg,
+                    abstractClassCount.getOrDefault(pkg, 0), totalClassCount.getOrDefault(pkg, 0),
+                    encode(outgoing, names, ids), encode(incoming, names, ids),
+                    sketchOf(outgoing), sketchOf(incoming)));
+        }
+        return new PartialAggregate(names, packages);
+    }
+
+    private static int[] encode(DependencyCounter dependencies, List<String> names, Map<String, Integer> ids) {
+        if (!(dependencies instanceof ExactDependencyCounter exact)) {
+            return new int[0];
+        }
+        int[] encoded = new int[exact.count()];
+        int i = 0;
+        for (String dependency : exact.names()) {
+            encoded[i++] = ids.computeIfAbsent(dependency, name -> {
+                names.add(name);
+                return names.size() - 1;
+            });
+        }
+        return encoded;
+    }
+
+    private static byte[] sketchOf(DependencyCounter dependencies) {
+        return dependencies instanceof SketchDependencyCounter sketch ? sketch.getSketch().toByteArray() : null;
+    }
+
+    /**
+     * Adds this shard's counts and dependencies to the maps of the whole scan.
+     *
+     * @throws IllegalArgumentException if the shard is exact and the scan approximate, or the other way round
+     */
+    void mergeInto(Map<String, DependencyCounter> outgoingDependencies,
+                   Map<String, DependencyCounter> incomingDependencies,
+                   Map<String, Integer> abstractClassCount,
+                   Map<String, Integer> totalClassCount) {
+        for (PackageAggregate aggregate : packages) {
+            String pkg = aggregate.packageName();
+            abstractClassCount.merge(pkg, aggregate.abstractClassCount(), Integer::sum);
+            totalClassCount.merge(pkg, aggregate.totalClassCount(), Integer::sum);
+            merge(outgoingDependencies.get(pkg), aggregate.efferent(), aggregate.efferentSketch());
+            merge(incomingDependencies.get(pkg), aggregate.afferent(), aggregate.afferentSketch());
+        }
+    }
+
+    private void merge(DependencyCounter target, int[] ids, byte[] sketch) {
+        if (target == null) {
+            throw new IllegalArgumentException("Shard contains a package that is not part of the scan");
+        }
+        if (target instanceof SketchDependencyCounter targetSketch) {
+            if (sketch == null) {
+                throw new IllegalArgumentException("Cannot merge an exact shard into an approximate scan");
+            }
+            targetSketch.merge(HyperLogLog.fromByteArray(sketch));
+        } else {
+            if (sketch != null) {
+                throw new IllegalArgumentException("Cannot merge an approximate shard into an exact scan");
+            }
+            for (int id : ids) {
+                target.add(names.get(id));
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.softwaremetrics.domain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads class files into arrays taken from a bounded pool and handed back with {@link #release},
+ * so steady-state reads allocate nothing. Files are read with positional reads through a small
+ * direct buffer, also pooled, which is only held for the duration of a read. Files above the
+ * pooled size get an exact-size array that is not pooled, so one huge generated class does not
+ * stay in memory. At most as many buffers as the pool holds are retained between scans, whatever
+ * the number of threads that read.
+ */
+class PooledClassBytesSource implements ClassBytesSource {
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int DIRECT_BUFFER_SIZE = 64 * 1024;
+
+    private final int maxPooledSize;
+    private final BlockingQueue<byte[]> arrays;
+    private final BlockingQueue<ByteBuffer> directBuffers;
+
+    PooledClassBytesSource(long maxPooledSize) {
+        this(maxPooledSize, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    PooledClassBytesSource(long maxPooledSize, int poolSize) {
+        this.maxPooledSize = (int) Math.min(maxPooledSize, Integer.MAX_VALUE - 8);
+        this.arrays = new ArrayBlockingQueue<>(poolSize);
+        this.directBuffers = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    @Override
+    public ClassBytes read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("Class file too large: " + file);
+            }
+            int length = (int) size;
+            byte[] array = length > maxPooledSize ? new byte[length] : pooledArray(length);
+            ByteBuffer direct = directBuffers.poll();
+            if (direct == null) {
+                direct = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+            }
+            try {
+                int position = 0;
+                while (position < length) {
+                    direct.clear().limit(Math.min(direct.capacity(), length - position));
+                    int read = channel.read(direct, position);
+                    if (read < 0) break; // file shrank while reading
+                    direct.flip().get(array, position, read);
+                    position += read;
+                }
+                return new ClassBytes(array, position);
+            } finally {
+                directBuffers.offer(direct);
+            }
+        }
+    }
+
+    @Override
+    public void release(ClassBytes bytes) {
+        // exact-size arrays of large files are left to the garbage collector; a full pool drops the array
+        if (bytes.buffer().length <= maxPooledSize) {
+            arrays.offer(bytes.buffer());
+        }
+    }
+
+    private byte[] pooledArray(int size) {
+        byte[] array = arrays.poll();
+        if (array != null && array.length >= size) {
+            return array;
+        }
+        int capacity = (int) Math.min(Math.max(INITIAL_BUFFER_SIZE, Long.highestOneBit(Math.max(1, size - 1L)) << 1),
+                maxPooledSize);
+        return new byte[Math.max(capacity, size)];
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.softwaremetrics.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Architecture rules compiled against the modules of one scan. Dependency edges are checked as the
+ * class parser emits them: {@code deny} rules are indexed by source module so each edge is only
+ * tested against the rules that can apply to it, and {@code no-cycles} keeps just the module-level
+ * graph and checks for a cycle whenever a new module edge appears. Only the first violations are
+ * kept; the rest are counted. The rules file serves every project, so a {@code deny} rule that
+ * names no module of this scan's project is skipped rather than failing the scan.
+ */
+public class RuleEvaluation implements DependencyObserver {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleEvaluation.class);
+
+    private record CompiledDeny(String rule, String sourcePrefix, String targetPrefix) {}
+
+    private final List<String> modules;
+    private final Map<String, Integer> moduleIndex = new HashMap<>();
+    private final Map<String, List<CompiledDeny>> denyRulesByModule = new HashMap<>();
+    private final String noCyclesRule;
+    private final boolean[][] moduleEdges;
+    private final ArchitectureRules.MaxDistanceRule maxDistanceRule;
+    private final int maxViolations;
+    private final boolean failFast;
+    private final List<RuleViolation> violations = new ArrayList<>();
+    private final AtomicLong violationCount = new AtomicLong();
+
+    RuleEvaluation(ArchitectureRules rules, List<String> modulePackages, int maxViolations, boolean failFast) {
+        this.modules = List.copyOf(modulePackages);
+        this.maxViolations = maxViolations;
+        this.failFast = failFast;
+        for (int i = 0; i < modules.size(); i++) {
+            moduleIndex.put(modules.get(i), i);
+        }
+        String noCycles = null;
+        ArchitectureRules.MaxDistanceRule maxDistance = null;
+        for (ArchitectureRules.Rule rule : rules.getRules()) {
+            switch (rule) {
+                case ArchitectureRules.DenyRule deny -> compileDeny(deny);
+                case ArchitectureRules.NoCyclesRule noCyclesRule -> noCycles = noCyclesRule.text();
+                case ArchitectureRules.MaxDistanceRule maxDistanceRule -> maxDistance = maxDistanceRule;
+            }
+        }
+        this.noCyclesRule = noCycles;
+        this.maxDistanceRule = maxDistance;
+        this.moduleEdges = noCycles == null ? null : new boolean[modules.size()][modules.size()];
+    }
+
+    private void compileDeny(ArchitectureRules.DenyRule deny) {
+        String source = resolve(deny.source());
+        String target = resolve(deny.target());
+        boolean matched = false;
+        String sameModule = null;
+        for (String module : modules) {
+            // the rule applies to a module if the source package is the module, inside it, or contains it
+            if (isWithin(source, module) || isWithin(module, source)) {
+                if (isWithin(target, module)) {
+                    // the parser only reports dependencies between modules, so this could never fire
+                    sameModule = module;
+                    continue;
+                }
+                denyRulesByModule.computeIfAbsent(module, _ -> new ArrayList<>())
+                        .add(new CompiledDeny(deny.text(), source + ".", target + "."));
+                matched = true;
+            }
+        }
+        if (!matched && sameModule != null) {
+            logger.warn("Skipping rule '{}': it is inside module {} and only dependencies between modules are checked",
+                    deny.text(), sameModule);
+        } else if (!matched) {
+            logger.debug("Skipping rule '{}': it does not match any module of {}", deny.text(), modules);
+        }
+    }
+
+    /**
+     * Resolves a package name relative to the main package, the parent of the modules, unless it is
+     * already qualified.
+     */
+    private String resolve(String name) {
+        for (String module : modules) {
+            if (isWithin(name, module) || isWithin(module, name)) return name;
+        }
+        for (String module : modules) {
+            int lastDot = module.lastIndexOf('.');
+            String qualified = lastDot < 0 ? name : module.substring(0, lastDot) + "." + name;
+            for (String candidate : modules) {
+                if (isWithin(qualified, candidate)) return qualified;
+            }
+        }
+        return name;
+    }
+
+    private static boolean isWithin(String pkg, String parent) {
+        return pkg.equals(parent) || pkg.startsWith(parent + ".");
+    }
+
+    @Override
+    public void onDependency(String sourceModule, String sourceClass, String targetModule, String targetClass) {
+        List<CompiledDeny> denyRules = denyRulesByModule.get(sourceModule);
+        if (denyRules != null) {
+            for (CompiledDeny deny : denyRules) {
+                if (sourceClass.startsWith(deny.sourcePrefix()) && targetClass.startsWith(deny.targetPrefix())) {
+                    report(new RuleViolation(deny.rule(), sourceClass, targetClass,
+                            sourceClass + " must not depend on " + targetClass));
+                }
+            }
+        }
+        if (moduleEdges != null && targetModule != null) {
+            checkCycle(sourceModule, targetModule);
+        }
+    }
+
+    private void checkCycle(String sourceModule, String targetModule) {
+        Integer from = moduleIndex.get(sourceModule);
+        Integer to = moduleIndex.get(targetModule);
+        if (from == null || to == null || from.equals(to)) return;
+        List<String> cycle;
+        synchronized (moduleEdges) {
+            if (moduleEdges[from][to]) return;
+            moduleEdges[from][to] = true;
+            cycle = findPath(to, from);
+        }
+        if (cycle != null) {
+            cycle.addFirst(sourceModule);
+            report(new RuleViolation(noCyclesRule, sourceModule, targetModule,
+                    "Cycle between modules: " + String.join(" -> ", cycle)));
+        }
+    }
+
+    /**
+     * Breadth-first search over the module edges seen so far, returning the modules on the path.
+     */
+    private List<String> findPath(int from, int to) {
+        int[] previous = new int[modules.size()];
+        Arrays.fill(previous, -1);
+        previous[from] = from;
+        Deque<Integer> queue = new ArrayDeque<>(List.of(from));
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            if (current == to) {
+                List<String> path = new ArrayList<>();
+                for (int node = to; node != from; node = previous[node]) {
+                    path.addFirst(modules.get(node));
+                }
+                path.addFirst(modules.get(from));
+                return path;
+            }
+            for (int next = 0; next < modules.size(); next++) {
+                if (moduleEdges[current][next] && previous[next] == -1) {
+                    previous[next] = current;
+                    queue.add(next);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks the rules that need the finished metrics.
+     */
+    public void checkMetrics(Map<String, PackageMetrics> metrics) {
+        if (maxDistanceRule == null) return;
+        metrics.values().stream()
+                .filter(m -> m.getDistance() > maxDistanceRule.maxDistance())
+                .sorted(Comparator.comparing(PackageMetrics::getPackageName))
+                .forEach(m -> {
+                    String distance = String.format("%.3f", m.getDistance());
+                    report(new RuleViolation(maxDistanceRule.text(), m.getPackageName(), "D=" + distance,
+                            m.getPackageName() + " has distance " + distance + " above " + maxDistanceRule.maxDistance()));
+                });
+    }
+
+    private void report(RuleViolation violation) {
+        violationCount.incrementAndGet();
+        if (failFast) {
+            throw new ArchitectureViolationException(violation);
+        }
+        synchronized (violations) {
+            if (violations.size() < maxViolations) {
+                violations.add(violation);
+            }
+        }
+    }
+
+    /**
+     * The first violations found, at most the configured maximum.
+     */
+    public List<RuleViolation> getViolations() {
+        synchronized (violations) {
+            return List.copyOf(violations);
+        }
+    }
+
+    public long getViolationCount() {
+        return violationCount.get();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.softwaremetrics.domain;
+
+import java.io.Serializable;
+
+/**
+ * A broken architecture rule.
+ *
+ * @param rule    the rule as written in the rules file
+ * @param source  the offending class or package
+ * @param target  the dependency, cycle or value that breaks the rule
+ * @param message human-readable description
+ */
+public record RuleViolation(String rule, String source, String target, String message) implements Serializable {}
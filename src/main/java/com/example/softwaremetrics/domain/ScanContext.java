@@ -0,0 +1,116 @@
+package com.example.softwaremetrics.domain;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-scan budget that the file walker and class parser check cooperatively. A scan is stopped
+ * with a {@link ScanLimitExceededException} once it passes its deadline, reads more class files or
+ * bytes than allowed, or its thread is interrupted. Observers registered on the context see every dependency
+ * edge as it is found, and a {@link ClassCache} lets the parser skip unchanged files.
+ */
+public class ScanContext {
+
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final long deadlineNanos;
+    private final Duration timeout;
+    private final long maxFiles;
+    private final long maxBytes;
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final List<DependencyObserver> dependencyObservers = new CopyOnWriteArrayList<>();
+    private volatile ClassCache classCache;
+
+    private ScanContext(Duration timeout, long maxFiles, long maxBytes) {
+        this.timeout = timeout;
+        this.deadlineNanos = timeout == null ? UNLIMITED : System.nanoTime() + timeout.toNanos();
+        this.maxFiles = maxFiles;
+        this.maxBytes = maxBytes;
+    }
+
+    public static ScanContext unbounded() {
+        return new ScanContext(null, UNLIMITED, UNLIMITED);
+    }
+
+    /**
+     * @param timeout  wall-clock budget, or {@code null} for none
+     * @param maxFiles maximum number of class files, or a non-positive value for no limit
+     * @param maxBytes maximum total class file bytes, or a non-positive value for no limit
+     */
+    public static ScanContext withLimits(Duration timeout, long maxFiles, long maxBytes) {
+        return new ScanContext(timeout, maxFiles > 0 ? maxFiles : UNLIMITED, maxBytes > 0 ? maxBytes : UNLIMITED);
+    }
+
+    /**
+     * Fails the scan if its thread was interrupted or it ran past its deadline.
+     */
+    public void checkpoint() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new ScanLimitExceededException("Scan was cancelled");
+        }
+        if (deadlineNanos != UNLIMITED && System.nanoTime() - deadlineNanos > 0) {
+            throw new ScanLimitExceededException("Scan exceeded its time limit of " + timeout.toSeconds() + "s");
+        }
+    }
+
+    /**
+     * Accounts for one class file of the given size and fails the scan if a quota is exceeded.
+     */
+    public void recordFile(long size) {
+        checkpoint();
+        if (files.incrementAndGet() > maxFiles) {
+            throw new ScanLimitExceededException("Scan exceeded the limit of " + maxFiles + " class files");
+        }
+        if (bytes.addAndGet(size) > maxBytes) {
+            throw new ScanLimitExceededException("Scan exceeded the limit of " + maxBytes + " bytes of class files");
+        }
+    }
+
+    public void addDependencyObserver(DependencyObserver observer) {
+        dependencyObservers.add(observer);
+    }
+
+    /**
+     * Passes a dependency found by the class parser to the registered observers.
+     */
+    public void reportDependency(String sourceModule, String sourceClass, String targetModule, String targetClass) {
+        for (DependencyObserver observer : dependencyObservers) {
+            observer.onDependency(sourceModule, sourceClass, targetModule, targetClass);
+        }
+    }
+
+    /**
+     * Lets the class parser take the analyses of unchanged files from the given cache and record
+     * those of the files it parses.
+     */
+    public void setClassCache(ClassCache classCache) {
+        this.classCache = classCache;
+    }
+
+    /**
+     * @return the class cache of this scan, or {@code null} if every file is parsed
+     */
+    public ClassCache getClassCache() {
+        return classCache;
+    }
+
+    /**
+     * @return the time left before the deadline, zero once it has passed, or {@code null} if the
+     * scan has no deadline
+     */
+    public Duration getRemainingTime() {
+        if (deadlineNanos == UNLIMITED) return null;
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    public long getFileCount() {
+        return files.get();
+    }
+
+    public long getByteCount() {
+        return bytes.get();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.softwaremetrics.domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events of a scan. All events are disabled unless a recording enables them,
+ * so an idle event costs a field check; callers fill in fields that need work only after
+ * {@link Event#shouldCommit()}. Recordings can be started with {@code -XX:StartFlightRecording},
+ * {@code jcmd} or the recordings endpoint.
+ */
+public final class ScanEvents {
+
+    private ScanEvents() {
+    }
+
+    /**
+     * Reading and parsing one class or source file. The event duration covers both; a threshold on
+     * this event keeps only the slow outliers.
+     */
+    @Name("com.example.softwaremetrics.FileAnalysis")
+    @Label("File Analysis")
+    @Description("Reading and parsing of one class or source file")
+    @Category({"Software Metrics", "Scan"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class FileAnalysis extends Event {
+
+        @Label("Path")
+        public String path;
+
+        @Label("Engine")
+        public String engine;
+
+        @Label("Class")
+        public String className;
+
+        @Label("Module")
+        @Description("Application module of the class, or null if it lies outside the modules")
+        public String module;
+
+        @Label("Size")
+        @DataAmount
+        public long bytes;
+
+        @Label("Read Time")
+        @Description("Part of the duration spent reading the file")
+        @Timespan
+        public long readTime;
+
+        @Label("Module Dependencies")
+        @Description("Distinct classes outside the file's module that it depends on, JDK types excluded; "
+                + "for a source file, the type names it references before they are resolved")
+        public int moduleDependencies;
+    }
+
+    /**
+     * One phase of a scan, such as the file walk or the metric computation.
+     */
+    @Name("com.example.softwaremetrics.ScanPhase")
+    @Label("Scan Phase")
+    @Category({"Software Metrics", "Scan"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class ScanPhase extends Event {
+
+        @Label("Phase")
+        public String phase;
+
+        @Label("Project")
+        public String project;
+
+        @Label("Files")
+        @Description("Files read by the scan so far")
+        public long files;
+
+        @Label("Bytes Read")
+        @DataAmount
+        public long bytes;
+
+        /**
+         * Starts timing a phase.
+         *
+         * @param project the project or shard the phase works on, or {@code null} if it has none
+         */
+        public static ScanPhase start(String phase, Object project) {
+            ScanPhase event = new ScanPhase();
+            event.begin();
+            event.phase = phase;
+            event.project = event.isEnabled() && project != null ? project.toString() : null;
+            return event;
+        }
+
+        /**
+         * Ends a phase that does not read files.
+         */
+        public void finish() {
+            if (shouldCommit()) {
+                commit();
+            }
+        }
+
+        /**
+         * Ends the phase and commits it with the file and byte counts of the scan so far.
+         */
+        public void finish(ScanContext context) {
+            if (shouldCommit()) {
+                files = context.getFileCount();
+                bytes = context.getByteCount();
+                commit();
+            }
+        }
+    }
+
+    /**
+     * A lookup in one of the scan caches.
+     */
+    @Name("com.example.softwaremetrics.CacheLookup")
+    @Label("Cache Lookup")
+    @Category({"Software Metrics", "Cache"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class CacheLookup extends Event {
+
+        @Label("Cache")
+        public String cache;
+
+        @Label("Key")
+        public String key;
+
+        @Label("Hit")
+        public boolean hit;
+
+        public static void record(String cache, String key, boolean hit) {
+            CacheLookup event = new CacheLookup();
+            if (event.shouldCommit()) {
+                event.cache = cache;
+                event.key = key;
+                event.hit = hit;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.softwaremetrics.domain;
+
+/**
+ * Thrown from inside a scan when it runs past its deadline or one of its quotas.
+ */
+public class ScanLimitExceededException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ScanLimitExceededException(String message) {
+        super(message);
+    }
+}
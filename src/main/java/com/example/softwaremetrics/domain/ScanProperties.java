@@ -0,0 +1,289 @@
+package com.example.softwaremetrics.domain;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tuning knobs for project scans, bound from the {@code scan.*} application properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "scan")
+public class ScanProperties {
+
+    public enum Engine {
+        /** Parse compiled class files with ASM; requires a prior build. */
+        BYTECODE,
+        /** Tokenize {@code .java} files; no build required. */
+        SOURCE
+    }
+
+    /**
+     * What the dependencies are read from.
+     */
+    private Engine engine = Engine.BYTECODE;
+
+    /**
+     * Heap budget for buffered dependency sets while class files are analyzed. When exceeded, the
+     * largest sets are spilled to sorted run files on disk. The dependency lists of the result are
+     * built in memory from the merged sets and are not covered. {@code null} keeps every set in memory.
+     */
+    private DataSize memoryBudget;
+
+    /**
+     * Directory for spilled run files. Defaults to the system temporary directory.
+     */
+    private Path spillDirectory;
+
+    /**
+     * Number of completed scans kept for the REST API before the least recently used is evicted.
+     */
+    private int resultCacheSize = 16;
+
+    /**
+     * Number of scans that may run at the same time.
+     */
+    private int maxConcurrentScans = 2;
+
+    /**
+     * Number of scans that may wait for a free slot before further scans are rejected.
+     */
+    private int maxQueuedScans = 8;
+
+    /**
+     * How long a queued scan waits for a free slot before it is rejected.
+     */
+    private Duration queueTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Wall-clock budget of a single scan.
+     */
+    private Duration timeout = Duration.ofMinutes(10);
+
+    /**
+     * Maximum number of class files read by a single scan. Non-positive values disable the limit.
+     */
+    private long maxClassFiles = 1_000_000;
+
+    /**
+     * Maximum total size of class files read by a single scan.
+     */
+    private DataSize maxClassBytes = DataSize.ofGigabytes(4);
+
+    /**
+     * How class files are loaded before parsing.
+     */
+    private ClassBytesSource.Kind classReader = ClassBytesSource.Kind.POOLED;
+
+    /**
+     * Class files larger than this are read into a one-off array instead of a pooled buffer.
+     */
+    private DataSize classReaderMaxPooledSize = DataSize.ofMegabytes(1);
+
+    /**
+     * Track Ca and Ce with HyperLogLog sketches instead of exact class name sets. Memory per
+     * package is fixed, but dependency lists are not available and counts are estimates.
+     */
+    private boolean approximate = false;
+
+    /**
+     * Target relative standard error of the Ca and Ce estimates in approximate mode.
+     */
+    private double approximateError = 0.02;
+
+    /**
+     * Architecture rules checked during every scan, see {@link ArchitectureRules} for the format.
+     */
+    private Path rulesFile;
+
+    /**
+     * Stop a scan at the first rule violation instead of collecting them.
+     */
+    private boolean rulesFailFast = false;
+
+    /**
+     * Number of rule violations kept per scan; further violations are only counted.
+     */
+    private int rulesMaxViolations = 100;
+
+    /**
+     * Base URLs of worker processes. When set, scans are split into shards that are analyzed by
+     * the workers and merged here.
+     */
+    private List<URI> workers = new ArrayList<>();
+
+    /**
+     * Shards per worker. More shards balance uneven workers better but cost more requests.
+     */
+    private int shardsPerWorker = 4;
+
+    /**
+     * How often a failed shard is retried, on another worker when there is one.
+     */
+    private int shardRetries = 2;
+
+    /**
+     * Time a worker may take for one shard before the attempt counts as failed.
+     */
+    private Duration shardTimeout = Duration.ofMinutes(5);
+
+    /**
+     * Serve shard requests from a coordinator on {@code /internal/shards}.
+     */
+    private boolean workerEnabled = false;
+
+    /**
+     * Directory a worker serves shards from. Shard requests for projects outside of it are
+     * rejected; it must be set when {@code workerEnabled} is.
+     */
+    private Path workerProjectRoot;
+
+    /**
+     * Record the class-level dependency edges of each scan in a temporary file next to the spill
+     * files, so they can be exported. Sharded scans do not record edges.
+     */
+    private boolean recordEdges = true;
+
+    /**
+     * Serve {@code /api/recordings}, which starts and dumps flight recordings of the scan events.
+     */
+    private boolean recordingsEnabled = false;
+
+    /**
+     * Directory for the persisted index of each project's latest scan. Indexes found there are
+     * mapped at startup and their results served without rescanning; unset disables persistence.
+     */
+    private Path indexDirectory;
+
+    /**
+     * Rescan the projects of the mapped indexes in the background after startup. Only class files
+     * whose modification time or size changed are parsed again.
+     */
+    private boolean indexRevalidate = true;
+
+    /**
+     * Group the external efferent dependencies of each package by the Maven artifact that contains
+     * them, using an index of the local repository and the JARs below the scanned project.
+     */
+    private boolean artifactsEnabled = false;
+
+    /**
+     * Local Maven repository indexed for artifact attribution.
+     */
+    private Path artifactRepository = Path.of(System.getProperty("user.home"), ".m2", "repository");
+
+    public Engine getEngine() { return engine; }
+    public void setEngine(Engine engine) { this.engine = engine; }
+
+    public DataSize getMemoryBudget() { return memoryBudget; }
+    public void setMemoryBudget(DataSize memoryBudget) { this.memoryBudget = memoryBudget; }
+
+    public Path getSpillDirectory() { return spillDirectory; }
+    public void setSpillDirectory(Path spillDirectory) { this.spillDirectory = spillDirectory; }
+
+    public int getResultCacheSize() { return resultCacheSize; }
+    public void setResultCacheSize(int resultCacheSize) { this.resultCacheSize = resultCacheSize; }
+
+    public int getMaxConcurrentScans() { return maxConcurrentScans; }
+    public void setMaxConcurrentScans(int maxConcurrentScans) { this.maxConcurrentScans = maxConcurrentScans; }
+
+    public int getMaxQueuedScans() { return maxQueuedScans; }
+    public void setMaxQueuedScans(int maxQueuedScans) { this.maxQueuedScans = maxQueuedScans; }
+
+    public Duration getQueueTimeout() { return queueTimeout; }
+    public void setQueueTimeout(Duration queueTimeout) { this.queueTimeout = queueTimeout; }
+
+    public Duration getTimeout() { return timeout; }
+    public void setTimeout(Duration timeout) { this.timeout = timeout; }
+
+    public long getMaxClassFiles() { return maxClassFiles; }
+    public void setMaxClassFiles(long maxClassFiles) { this.maxClassFiles = maxClassFiles; }
+
+    public DataSize getMaxClassBytes() { return maxClassBytes; }
+    public void setMaxClassBytes(DataSize maxClassBytes) { this.maxClassBytes = maxClassBytes; }
+
+    public ClassBytesSource.Kind getClassReader() { return classReader; }
+    public void setClassReader(ClassBytesSource.Kind classReader) { this.classReader = classReader; }
+
+    public DataSize getClassReaderMaxPooledSize() { return classReaderMaxPooledSize; }
+    public void setClassReaderMaxPooledSize(DataSize classReaderMaxPooledSize) { this.classReaderMaxPooledSize = classReaderMaxPooledSize; }
+
+    public boolean isApproximate() { return approximate; }
+    public void setApproximate(boolean approximate) { this.approximate = approximate; }
+
+    public double getApproximateError() { return approximateError; }
+    public void setApproximateError(double approximateError) { this.approximateError = approximateError; }
+
+    public Path getRulesFile() { return rulesFile; }
+    public void setRulesFile(Path rulesFile) { this.rulesFile = rulesFile; }
+
+    public boolean isRulesFailFast() { return rulesFailFast; }
+    public void setRulesFailFast(boolean rulesFailFast) { this.rulesFailFast = rulesFailFast; }
+
+    public int getRulesMaxViolations() { return rulesMaxViolations; }
+    public void setRulesMaxViolations(int rulesMaxViolations) { this.rulesMaxViolations = rulesMaxViolations; }
+
+    public List<URI> getWorkers() { return workers; }
+    public void setWorkers(List<URI> workers) { this.workers = workers; }
+
+    public int getShardsPerWorker() { return shardsPerWorker; }
+    public void setShardsPerWorker(int shardsPerWorker) { this.shardsPerWorker = shardsPerWorker; }
+
+    public int getShardRetries() { return shardRetries; }
+    public void setShardRetries(int shardRetries) { this.shardRetries = shardRetries; }
+
+    public Duration getShardTimeout() { return shardTimeout; }
+    public void setShardTimeout(Duration shardTimeout) { this.shardTimeout = shardTimeout; }
+
+    public boolean isWorkerEnabled() { return workerEnabled; }
+    public void setWorkerEnabled(boolean workerEnabled) { this.workerEnabled = workerEnabled; }
+
+    public Path getWorkerProjectRoot() { return workerProjectRoot; }
+    public void setWorkerProjectRoot(Path workerProjectRoot) { this.workerProjectRoot = workerProjectRoot; }
+
+    public boolean isRecordEdges() { return recordEdges; }
+    public void setRecordEdges(boolean recordEdges) { this.recordEdges = recordEdges; }
+
+    public boolean isRecordingsEnabled() { return recordingsEnabled; }
+    public void setRecordingsEnabled(boolean recordingsEnabled) { this.recordingsEnabled = recordingsEnabled; }
+
+    public Path getIndexDirectory() { return indexDirectory; }
+    public void setIndexDirectory(Path indexDirectory) { this.indexDirectory = indexDirectory; }
+
+    public boolean isIndexRevalidate() { return indexRevalidate; }
+    public void setIndexRevalidate(boolean indexRevalidate) { this.indexRevalidate = indexRevalidate; }
+
+    public boolean isArtifactsEnabled() { return artifactsEnabled; }
+    public void setArtifactsEnabled(boolean artifactsEnabled) { this.artifactsEnabled = artifactsEnabled; }
+
+    public Path getArtifactRepository() { return artifactRepository; }
+    public void setArtifactRepository(Path artifactRepository) { this.artifactRepository = artifactRepository; }
+
+    /**
+     * Creates the budget for a new scan from the configured timeout and quotas.
+     */
+    public ScanContext newScanContext() {
+        return newScanContext(null);
+    }
+
+    /**
+     * Same as {@link #newScanContext()}, ending the scan after the given time if that is sooner
+     * than the configured timeout.
+     *
+     * @param remaining time left of the caller's budget, or {@code null} for none
+     */
+    public ScanContext newScanContext(Duration remaining) {
+        Duration limit = remaining == null || (timeout != null && timeout.compareTo(remaining) < 0) ? timeout : remaining;
+        return ScanContext.withLimits(limit, maxClassFiles, maxClassBytes == null ? 0 : maxClassBytes.toBytes());
+    }
+
+    boolean isMemoryBudgetEnabled() {
+        return memoryBudget != null && memoryBudget.toBytes() > 0;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.softwaremetrics.domain;
+
+/**
+ * Estimates the number of distinct dependencies with a {@link HyperLogLog} sketch. Memory is fixed
+ * by the precision whatever the number of names, which are not kept.
+ */
+class SketchDependencyCounter implements DependencyCounter {
+
+    private final HyperLogLog sketch;
+
+    SketchDependencyCounter(int precision) {
+        this.sketch = new HyperLogLog(precision);
+    }
+
+    @Override
+    public synchronized void add(String className) {
+        sketch.add(className);
+    }
+
+    @Override
+    public synchronized int count() {
+        return (int) Math.min(Integer.MAX_VALUE, sketch.estimate());
+    }
+
+    @Override
+    public String toString() {
+        return "~" + count() + " dependencies (estimated)";
+    }
+
+    synchronized void merge(HyperLogLog other) {
+        sketch.merge(other);
+    }
+
+    synchronized HyperLogLog getSketch() {
+        return sketch;
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.softwaremetrics.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Hands out dependency sets that share a single heap budget. Class names are buffered in memory
+ * until the estimated size of all buffers exceeds the budget; the largest buffer is then sorted and
+ * written to a GZIP-compressed run file. Reading a set back performs a k-way merge over its runs,
+ * so de-duplication across runs happens without loading them into memory.
+ * <p>
+ * Each set has its own lock, so analyzers adding to different sets do not wait for each other;
+ * only the thread that pushes the store over its budget spills. A run is written as blocks of
+ * {@value #NAMES_PER_BLOCK} names, and the first name and offset of each block stay in memory, so
+ * {@code contains} decompresses at most one block per run.
+ * <p>
+ * The sets are not general-purpose: {@code add} only checks the in-memory buffer, so it returns
+ * {@code true} for a name that is already in a spilled run. Checking the runs on every add would
+ * decompress a block per run on the analyzers' hot path; the duplicates are dropped when the runs
+ * are merged, so {@code size}, {@code contains} and iteration are exact.
+ */
+class SpillingDependencyStore implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpillingDependencyStore.class);
+
+    /**
+     * Upper bound on run files per set; beyond this the runs are merged into one.
+     */
+    private static final int MAX_RUNS_PER_SET = 32;
+
+    /**
+     * Names per independently compressed block of a run file.
+     */
+    private static final int NAMES_PER_BLOCK = 512;
+
+    private final long budgetBytes;
+    private final Path spillDirectory;
+    private final List<SpillingDependencySet> sets = new CopyOnWriteArrayList<>();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final Set<MergingIterator> openIterators = ConcurrentHashMap.newKeySet();
+    // guards spilling, runDirectory and runCounter; taken before a set's lock, never after it
+    private final Object spillLock = new Object();
+    private Path runDirectory;
+    private int runCounter;
+
+    SpillingDependencyStore(long budgetBytes, Path spillDirectory) {
+        this.budgetBytes = budgetBytes;
+        this.spillDirectory = spillDirectory;
+    }
+
+    Set<String> newSet() {
+        SpillingDependencySet set = new SpillingDependencySet();
+        sets.add(set);
+        return set;
+    }
+
+    long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * Closes the iterators that were not read to the end and deletes the run files.
+     */
+    @Override
+    public void close() {
+        openIterators.forEach(MergingIterator::close);
+        synchronized (spillLock) {
+            if (runDirectory == null) return;
+            try (var files = Files.list(runDirectory)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+                Files.deleteIfExists(runDirectory);
+            } catch (IOException e) {
+                logger.warn("Could not delete spill directory {}", runDirectory, e);
+            }
+            runDirectory = null;
+        }
+    }
+
+    private void spillUntilWithinBudget() {
+        synchronized (spillLock) {
+            while (bufferedBytes.get() > budgetBytes) {
+                SpillingDependencySet largest = Collections.max(sets, Comparator.comparingLong(s -> s.bufferedBytes));
+                if (largest.bufferedBytes == 0) break;
+                largest.spill();
+            }
+        }
+    }
+
+    private Run writeRun(Iterator<String> sortedNames) {
+        try {
+            if (runDirectory == null) {
+                Path parent = spillDirectory != null ? spillDirectory : Path.of(System.getProperty("java.io.tmpdir"));
+                Files.createDirectories(parent);
+                runDirectory = Files.createTempDirectory(parent, "dependency-spill-");
+            }
+            Path file = runDirectory.resolve("run-" + (runCounter++) + ".gz");
+            List<String> blockNames = new ArrayList<>();
+            List<Long> blockOffsets = new ArrayList<>();
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file))) {
+                // every block is a complete GZIP member, so it can be read on its own from its offset
+                CountingOutputStream counting = new CountingOutputStream(stream);
+                DataOutputStream out = null;
+                String previous = null;
+                int namesInBlock = 0;
+                while (sortedNames.hasNext()) {
+                    String name = sortedNames.next();
+                    if (name.equals(previous)) continue;
+                    if (out == null || namesInBlock == NAMES_PER_BLOCK) {
+                        if (out != null) out.close();
+                        blockNames.add(name);
+                        blockOffsets.add(counting.count);
+                        out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(counting)));
+                        namesInBlock = 0;
+                    }
+                    out.writeBoolean(true);
+                    out.writeUTF(name);
+                    previous = name;
+                    namesInBlock++;
+                }
+                if (out == null) {
+                    out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(counting)));
+                }
+                out.writeBoolean(false);
+                out.close();
+            }
+            return new Run(file, blockNames.toArray(String[]::new),
+                    blockOffsets.stream().mapToLong(Long::longValue).toArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill dependencies to disk", e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete spill file {}", file, e);
+        }
+    }
+
+    private static long estimateSize(String className) {
+        // String header + backing array + HashMap node and table slot
+        return 96L + className.length();
+    }
+
+    /**
+     * A sorted run file with the first name and byte offset of each of its blocks.
+     */
+    private record Run(Path file, String[] blockNames, long[] blockOffsets) {
+
+        boolean contains(String name) {
+            int index = Arrays.binarySearch(blockNames, name);
+            if (index >= 0) return true;
+            int block = -index - 2;
+            if (block < 0) return false;
+            try (RunCursor cursor = new RunCursor(file, blockOffsets[block])) {
+                while (cursor.advance()) {
+                    int cmp = cursor.current.compareTo(name);
+                    if (cmp == 0) return true;
+                    if (cmp > 0) return false;
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read spilled dependencies", e);
+            }
+        }
+    }
+
+    private class SpillingDependencySet extends AbstractSet<String> {
+        private Set<String> buffer = new HashSet<>();
+        private final List<Run> runs = new ArrayList<>();
+        // written under this set's lock, read without it to pick the set to spill
+        private volatile long bufferedBytes;
+        private int cachedSize = -1;
+
+        @Override
+        public boolean add(String className) {
+            long bytes = estimateSize(className);
+            synchronized (this) {
+                // not checked against the runs, see the class comment
+                if (!buffer.add(className)) {
+                    return false;
+                }
+                cachedSize = -1;
+                bufferedBytes += bytes;
+            }
+            if (SpillingDependencyStore.this.bufferedBytes.addAndGet(bytes) > budgetBytes) {
+                spillUntilWithinBudget();
+            }
+            return true;
+        }
+
+        @Override
+        public synchronized boolean contains(Object o) {
+            if (buffer.contains(o)) return true;
+            if (!(o instanceof String name)) return false;
+            for (Run run : runs) {
+                if (run.contains(name)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Returns the names in sorted order once the set has spilled. The iterator holds the run
+         * files open until it is read to the end or closed; callers that stop early should close it,
+         * which {@link SpillingDependencyStore#close()} otherwise does.
+         */
+        @Override
+        public synchronized Iterator<String> iterator() {
+            return runs.isEmpty() ? Collections.unmodifiableSet(buffer).iterator() : merge();
+        }
+
+        @Override
+        public synchronized int size() {
+            if (runs.isEmpty()) return buffer.size();
+            if (cachedSize < 0) {
+                int count = 0;
+                try (MergingIterator iterator = merge()) {
+                    for (; iterator.hasNext(); iterator.next()) {
+                        count++;
+                    }
+                }
+                cachedSize = count;
+            }
+            return cachedSize;
+        }
+
+        private MergingIterator merge() {
+            List<String> sortedBuffer = new ArrayList<>(buffer);
+            Collections.sort(sortedBuffer);
+            return new MergingIterator(new ArrayList<>(runs), sortedBuffer);
+        }
+
+        private synchronized void spill() {
+            List<String> sorted = new ArrayList<>(buffer);
+            Collections.sort(sorted);
+            runs.add(writeRun(sorted.iterator()));
+            logger.debug("Spilled {} dependencies ({} bytes) to disk", sorted.size(), bufferedBytes);
+            SpillingDependencyStore.this.bufferedBytes.addAndGet(-bufferedBytes);
+            bufferedBytes = 0;
+            buffer = new HashSet<>();
+            if (runs.size() > MAX_RUNS_PER_SET) {
+                compact();
+            }
+        }
+
+        private void compact() {
+            List<Run> compacted = new ArrayList<>(runs);
+            Run run;
+            try (MergingIterator iterator = new MergingIterator(compacted, List.of())) {
+                run = writeRun(iterator);
+            }
+            runs.clear();
+            runs.add(run);
+            compacted.forEach(old -> deleteQuietly(old.file()));
+            logger.trace("Compacted {} runs into {}", compacted.size(), run.file());
+        }
+    }
+
+    /**
+     * Merges sorted run files and a sorted in-memory list, skipping duplicates. The run files are
+     * closed when the last name has been read or when the iterator is closed.
+     */
+    private class MergingIterator implements Iterator<String>, AutoCloseable {
+        private final PriorityQueue<Cursor> queue = new PriorityQueue<>(Comparator.comparing((Cursor c) -> c.current));
+        private final List<Cursor> cursors = new ArrayList<>();
+        private String last;
+        private String next;
+
+        MergingIterator(List<Run> runs, List<String> sortedBuffer) {
+            openIterators.add(this);
+            try {
+                for (Run run : runs) {
+                    cursors.add(new RunCursor(run.file(), 0));
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Could not read spilled dependencies", e);
+            }
+            cursors.add(new ListCursor(sortedBuffer.iterator()));
+            cursors.stream().filter(Cursor::advance).forEach(queue::add);
+            next = computeNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) throw new NoSuchElementException();
+            String result = next;
+            next = computeNext();
+            return result;
+        }
+
+        private String computeNext() {
+            while (!queue.isEmpty()) {
+                Cursor cursor = queue.poll();
+                String candidate = cursor.current;
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+                if (!candidate.equals(last)) {
+                    last = candidate;
+                    return candidate;
+                }
+            }
+            close();
+            return null;
+        }
+
+        @Override
+        public synchronized void close() {
+            cursors.forEach(Cursor::close);
+            openIterators.remove(this);
+        }
+    }
+
+    private abstract static class Cursor implements AutoCloseable {
+        String current;
+
+        abstract boolean advance();
+
+        @Override
+        public void close() {}
+    }
+
+    private static class ListCursor extends Cursor {
+        private final Iterator<String> iterator;
+
+        ListCursor(Iterator<String> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        boolean advance() {
+            current = iterator.hasNext() ? iterator.next() : null;
+            return current != null;
+        }
+    }
+
+    private static class RunCursor extends Cursor {
+        private final DataInputStream in;
+        private boolean closed;
+
+        RunCursor(Path run, long offset) throws IOException {
+            FileChannel channel = FileChannel.open(run);
+            try {
+                channel.position(offset);
+                InputStream file = Channels.newInputStream(channel);
+                in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(file)));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        @Override
+        boolean advance() {
+            if (closed) return false;
+            try {
+                if (in.readBoolean()) {
+                    current = in.readUTF();
+                    return true;
+                }
+                close();
+                return false;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Could not read spilled dependencies", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            try {
+                in.close();
+            } catch (IOException e) {
+                logger.trace("Could not close run file", e);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes written to the run file. Closing a block closes this stream, which leaves
+     * the file open for the next block.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
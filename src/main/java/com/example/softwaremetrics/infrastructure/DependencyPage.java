@@ -0,0 +1,44 @@
+package com.example.softwaremetrics.infrastructure;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a sorted efferent or afferent dependency list.
+ *
+ * @param items      the dependencies on this page
+ * @param nextCursor opaque cursor for the following page, or {@code null} on the last page
+ * @param total      size of the whole list
+ */
+public record DependencyPage(List<String> items, String nextCursor, int total) {
+
+    /**
+     * Cuts a page out of a sorted list. The cursor encodes the last item of the previous page, so
+     * pages stay stable even if the client holds on to a cursor for a while.
+     */
+    static DependencyPage of(List<String> sortedDependencies, String cursor, int limit) {
+        int from = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            int index = Collections.binarySearch(sortedDependencies, decode(cursor));
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        int to = Math.min(sortedDependencies.size(), from + limit);
+        List<String> items = List.copyOf(sortedDependencies.subList(from, to));
+        String nextCursor = to < sortedDependencies.size() ? encode(items.getLast()) : null;
+        return new DependencyPage(items, nextCursor, sortedDependencies.size());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -1,19 +1,32 @@
 package com.example.softwaremetrics.infrastructure;
 
+import com.example.softwaremetrics.application.ScanResult;
 import com.example.softwaremetrics.application.SpringBootPackageScanner;
-import com.example.softwaremetrics.domain.PackageMetrics;
 
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 public class PackageScannerController {
 
+    // how long a poll for the rest of a progressive scan waits before the page asks again
+    private static final long COMPLETION_POLL_SECONDS = 20;
+
     private final SpringBootPackageScanner springBootPackageScanner;
 
     public PackageScannerController(SpringBootPackageScanner springBootPackageScanner) {
@@ -27,16 +40,59 @@ public class PackageScannerController {
 
     @SuppressWarnings("SpringMVCViewInspection")
     @PostMapping("/scan")
-    public String scan(@RequestParam String path, Model model) {
+    public String scan(@RequestParam String path, @RequestParam(required = false) String priority, Model model) {
         try {
-            Map<String, PackageMetrics> metrics = springBootPackageScanner.scanProject(path);
-            model.addAttribute("metrics", metrics);
-            return "graph :: graph";
+            List<String> priorityModules = priority == null ? List.of() : Arrays.stream(priority.split(","))
+                    .map(String::strip)
+                    .filter(module -> !module.isEmpty())
+                    .toList();
+            ScanResult result = springBootPackageScanner.scan(path, priorityModules);
+            springBootPackageScanner.getCompletion(result.id())
+                    .ifPresent(completion -> model.addAttribute("completion", "/scan/" + result.id() + "/complete"));
+            return render(result, model);
         } catch (IllegalArgumentException | IllegalStateException e) {
             model.addAttribute("error", "Error scanning project: " + e.getMessage());
             return "graph :: error";
         }
     }
 
+    /**
+     * Answers with the full result of a progressive scan once it is complete, retargeted to replace
+     * the partial one, or with the pending notice again if it is still running after a while.
+     */
+    @SuppressWarnings("SpringMVCViewInspection")
+    @GetMapping("/scan/{scanId}/complete")
+    public CompletableFuture<String> complete(@PathVariable String scanId, Model model, HttpServletResponse response) {
+        CompletableFuture<ScanResult> completion = springBootPackageScanner.getCompletion(scanId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No progressive scan: " + scanId));
+        return completion.copy()
+                .completeOnTimeout(null, COMPLETION_POLL_SECONDS, TimeUnit.SECONDS)
+                .handle((result, failure) -> {
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                        model.addAttribute("error", "Error scanning project: " + cause.getMessage());
+                        return "graph :: error";
+                    }
+                    if (result == null) {
+                        model.addAttribute("completion", "/scan/" + scanId + "/complete");
+                        return "graph :: pending";
+                    }
+                    response.setHeader("HX-Retarget", "#result");
+                    response.setHeader("HX-Reswap", "innerHTML");
+                    return render(result, model);
+                });
+    }
+
+    private static String render(ScanResult result, Model model) {
+        // Only summaries are inlined into the page; dependency lists are fetched from the API on demand
+        Map<String, PackageSummary> summaries = new LinkedHashMap<>();
+        result.metrics().forEach((pkg, metrics) -> summaries.put(pkg, PackageSummary.from(metrics)));
+        model.addAttribute("scanId", result.id());
+        model.addAttribute("metrics", summaries);
+        model.addAttribute("violations", result.violations());
+        model.addAttribute("violationCount", result.violationCount());
+        return "graph :: graph";
+    }
+
     // Remove the getPackageDetails method as it's no longer needed
 }
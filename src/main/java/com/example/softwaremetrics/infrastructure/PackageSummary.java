@@ -0,0 +1,66 @@
+package com.example.softwaremetrics.infrastructure;
+
+import com.example.softwaremetrics.domain.PackageMetrics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The scalar part of {@link PackageMetrics}, without the dependency lists, which are served
+ * separately in pages. The bounds are a 95% confidence interval for approximate scans and equal
+ * the exact values otherwise.
+ */
+public record PackageSummary(String packageName, int ce, int ca, int abstractClassCount, int totalClassCount,
+                             double abstractness, double instability, double distance, boolean approximate,
+                             int ceLowerBound, int ceUpperBound, int caLowerBound, int caUpperBound,
+                             double instabilityLowerBound, double instabilityUpperBound) {
+
+    private static final Map<String, Function<PackageSummary, Object>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("packageName", PackageSummary::packageName);
+        FIELDS.put("ce", PackageSummary::ce);
+        FIELDS.put("ca", PackageSummary::ca);
+        FIELDS.put("abstractClassCount", PackageSummary::abstractClassCount);
+        FIELDS.put("totalClassCount", PackageSummary::totalClassCount);
+        FIELDS.put("abstractness", PackageSummary::abstractness);
+        FIELDS.put("instability", PackageSummary::instability);
+        FIELDS.put("distance", PackageSummary::distance);
+        FIELDS.put("approximate", PackageSummary::approximate);
+        FIELDS.put("ceLowerBound", PackageSummary::ceLowerBound);
+        FIELDS.put("ceUpperBound", PackageSummary::ceUpperBound);
+        FIELDS.put("caLowerBound", PackageSummary::caLowerBound);
+        FIELDS.put("caUpperBound", PackageSummary::caUpperBound);
+        FIELDS.put("instabilityLowerBound", PackageSummary::instabilityLowerBound);
+        FIELDS.put("instabilityUpperBound", PackageSummary::instabilityUpperBound);
+    }
+
+    static final List<String> FIELD_NAMES = List.copyOf(FIELDS.keySet());
+
+    public static PackageSummary from(PackageMetrics metrics) {
+        return new PackageSummary(metrics.getPackageName(), metrics.getCe(), metrics.getCa(),
+                metrics.getAbstractClassCount(), metrics.getTotalClassCount(),
+                metrics.getAbstractness(), metrics.getInstability(), metrics.getDistance(), metrics.isApproximate(),
+                metrics.getCeLowerBound(), metrics.getCeUpperBound(), metrics.getCaLowerBound(), metrics.getCaUpperBound(),
+                metrics.getInstabilityLowerBound(), metrics.getInstabilityUpperBound());
+    }
+
+    /**
+     * Returns only the requested fields, in the order they were requested.
+     *
+     * @throws IllegalArgumentException if a field name is unknown
+     */
+    public Map<String, Object> select(List<String> fields) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        for (String field : fields) {
+            Function<PackageSummary, Object> accessor = FIELDS.get(field);
+            if (accessor == null) {
+                throw new IllegalArgumentException("Unknown field '" + field + "', expected one of " + FIELDS.keySet());
+            }
+            selected.put(field, accessor.apply(this));
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.softwaremetrics.infrastructure;
+
+import com.example.softwaremetrics.domain.ScanEvents;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Starts, dumps and stops flight recordings of the {@link ScanEvents}, so the parse cost of a
+ * running scan can be inspected without restarting the application. Recordings are kept in memory
+ * and on the recorder's disk repository until they are deleted. Only registered when
+ * {@code scan.recordings-enabled} is set.
+ */
+@RestController
+@RequestMapping("/api/recordings")
+@ConditionalOnProperty(prefix = "scan", name = "recordings-enabled", havingValue = "true")
+public class RecordingController {
+
+    private static final long MAX_RECORDING_SIZE = 256L * 1024 * 1024;
+
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    public record RecordingInfo(long id, String state, Instant startTime, Duration duration, long size) {
+
+        static RecordingInfo of(Recording recording) {
+            return new RecordingInfo(recording.getId(), recording.getState().name().toLowerCase(),
+                    recording.getStartTime(), recording.getDuration(), recording.getSize());
+        }
+    }
+
+    /**
+     * Starts recording the scan events.
+     *
+     * @param threshold minimum duration of a recorded file analysis, such as {@code 5ms}
+     * @param duration  stops the recording after this time; it runs until deleted if absent
+     * @param gc        whether to record garbage collections and pauses as well
+     */
+    @PostMapping
+    public ResponseEntity<RecordingInfo> start(@RequestParam(defaultValue = "0ms") String threshold,
+                                               @RequestParam(required = false) String duration,
+                                               @RequestParam(defaultValue = "true") boolean gc) {
+        Duration fileThreshold = parseDuration("threshold", threshold);
+        Recording recording = new Recording();
+        recording.setName("scan-events");
+        recording.setMaxSize(MAX_RECORDING_SIZE);
+        recording.enable(ScanEvents.FileAnalysis.class).withThreshold(fileThreshold);
+        recording.enable(ScanEvents.ScanPhase.class);
+        recording.enable(ScanEvents.CacheLookup.class);
+        if (gc) {
+            recording.enable("jdk.GarbageCollection");
+            recording.enable("jdk.GCPhasePause");
+        }
+        if (duration != null) {
+            recording.setDuration(parseDuration("duration", duration));
+        }
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        return ResponseEntity.created(URI.create("/api/recordings/" + recording.getId()))
+                .body(RecordingInfo.of(recording));
+    }
+
+    @GetMapping
+    public List<RecordingInfo> list() {
+        return recordings.values().stream().map(RecordingInfo::of).toList();
+    }
+
+    /**
+     * Streams the events recorded so far as a {@code .jfr} file, for JDK Mission Control or
+     * {@code jfr print}. The recording keeps running.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<StreamingResponseBody> dump(@PathVariable long id) throws IOException {
+        Recording recording = findRecording(id);
+        if (recording.getState() == RecordingState.NEW) {
+            throw new IllegalStateException("Recording " + id + " has not started");
+        }
+        Path file = Files.createTempFile("scan-recording-", ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"scan-recording-" + id + ".jfr\"")
+                .body(out -> {
+                    try {
+                        Files.copy(file, out);
+                    } finally {
+                        Files.deleteIfExists(file);
+                    }
+                });
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable long id) {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown recording: " + id);
+        }
+        recording.close();
+        return ResponseEntity.noContent().build();
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ProblemDetail> handleRecordingError(IllegalArgumentException e) {
+        return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+    }
+
+    // the recording is not in a state that allows the request, such as dumping one that has not started
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<ProblemDetail> handleRecordingState(IllegalStateException e) {
+        return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage())).build();
+    }
+
+    private Recording findRecording(long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown recording: " + id);
+        }
+        return recording;
+    }
+
+    private static Duration parseDuration(String name, String value) {
+        try {
+            return DurationStyle.detectAndParse(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.softwaremetrics.infrastructure;
+
+import com.example.softwaremetrics.application.DependencyGraphService;
+import com.example.softwaremetrics.application.ScanArchive;
+import com.example.softwaremetrics.application.ScanRejectedException;
+import com.example.softwaremetrics.application.ScanResult;
+import com.example.softwaremetrics.application.ScanResultStore;
+import com.example.softwaremetrics.application.SpringBootPackageScanner;
+import com.example.softwaremetrics.domain.ArchitectureViolationException;
+import com.example.softwaremetrics.domain.DependencyTree.DependencyGraph;
+import com.example.softwaremetrics.domain.DependencyTree.Viewport;
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.RuleViolation;
+import com.example.softwaremetrics.domain.ScanLimitExceededException;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * JSON API over completed scans. Package summaries are small and returned by default; the
+ * dependency lists are served in cursor-based pages when a package is opened. Every response for a
+ * scan carries the scan fingerprint as its ETag, so a matching {@code If-None-Match} is answered
+ * with 304 Not Modified. Scans can be exported as a binary archive, which can be imported again
+ * later, or as NDJSON or CSV tables of packages and class-level edges; exports are streamed.
+ * A scan that names priority modules answers with their packages only and links to the full
+ * result, which is completed in the background.
+ */
+@RestController
+@RequestMapping("/api/scans")
+public class ScanApiController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanApiController.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_GRAPH_NODES = 200;
+
+    private final SpringBootPackageScanner springBootPackageScanner;
+    private final ScanResultStore scanResultStore;
+    private final DependencyGraphService dependencyGraphService;
+    private final ScanArchive scanArchive;
+    private final ObjectMapper objectMapper;
+
+    public ScanApiController(SpringBootPackageScanner springBootPackageScanner, ScanResultStore scanResultStore,
+                             DependencyGraphService dependencyGraphService, ScanArchive scanArchive,
+                             ObjectMapper objectMapper) {
+        this.springBootPackageScanner = springBootPackageScanner;
+        this.scanResultStore = scanResultStore;
+        this.dependencyGraphService = dependencyGraphService;
+        this.scanArchive = scanArchive;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param completion for the partial result of a progressive scan, where to poll for the full one
+     */
+    public record ScanResponse(String id, String projectPath, Instant completedAt, List<Map<String, Object>> packages,
+                               List<RuleViolation> violations, long violationCount,
+                               @JsonInclude(JsonInclude.Include.NON_NULL) String completion) {}
+
+    /**
+     * @param artifact {@code groupId:artifactId}
+     * @param classes  the number of distinct classes of the artifact the package depends on
+     */
+    public record ArtifactCoupling(String artifact, int classes) {}
+
+    @PostMapping
+    public ResponseEntity<ScanResponse> scan(@RequestParam String path,
+                                             @RequestParam(required = false) String fields,
+                                             @RequestParam(required = false) List<String> priority) {
+        ScanResult result = springBootPackageScanner.scan(path, priority == null ? List.of() : priority);
+        return ResponseEntity.created(URI.create("/api/scans/" + result.id()))
+                .eTag(etag(result))
+                .body(toResponse(result, fields));
+    }
+
+    /**
+     * Redirects to the full result of a progressive scan once it is complete; answers 202 Accepted
+     * while the rest of the project is being analyzed.
+     */
+    @GetMapping("/{scanId}/complete")
+    public ResponseEntity<Void> getCompletion(@PathVariable String scanId) {
+        CompletableFuture<ScanResult> completion = springBootPackageScanner.getCompletion(scanId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No progressive scan: " + scanId));
+        if (!completion.isDone()) {
+            return ResponseEntity.accepted().header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.SEE_OTHER)
+                    .location(URI.create("/api/scans/" + completion.join().id()))
+                    .build();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @GetMapping("/{scanId}")
+    public ResponseEntity<ScanResponse> getScan(@PathVariable String scanId,
+                                                @RequestParam(required = false) String fields) {
+        ScanResult result = findScan(scanId);
+        return ResponseEntity.ok().eTag(etag(result)).body(toResponse(result, fields));
+    }
+
+    @GetMapping("/{scanId}/packages")
+    public ResponseEntity<List<Map<String, Object>>> getPackages(@PathVariable String scanId,
+                                                                 @RequestParam(required = false) String fields) {
+        ScanResult result = findScan(scanId);
+        return ResponseEntity.ok().eTag(etag(result)).body(summaries(result, fields));
+    }
+
+    @GetMapping("/{scanId}/packages/{packageName}")
+    public ResponseEntity<Map<String, Object>> getPackage(@PathVariable String scanId,
+                                                          @PathVariable String packageName,
+                                                          @RequestParam(required = false) String fields) {
+        ScanResult result = findScan(scanId);
+        PackageMetrics metrics = findPackage(result, packageName);
+        return ResponseEntity.ok().eTag(etag(result)).body(PackageSummary.from(metrics).select(parseFields(fields)));
+    }
+
+    @GetMapping("/{scanId}/packages/{packageName}/{direction:efferent|afferent}")
+    public ResponseEntity<DependencyPage> getDependencies(@PathVariable String scanId,
+                                                          @PathVariable String packageName,
+                                                          @PathVariable String direction,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        ScanResult result = findScan(scanId);
+        PackageMetrics metrics = findPackage(result, packageName);
+        List<String> dependencies = direction.equals("efferent")
+                ? metrics.getEfferentDependencies()
+                : metrics.getAfferentDependencies();
+        return ResponseEntity.ok().eTag(etag(result)).body(DependencyPage.of(dependencies, cursor, limit));
+    }
+
+    /**
+     * Returns the external dependencies of a package grouped by Maven artifact, largest first.
+     * The list is empty unless {@code scan.artifacts-enabled} is set.
+     */
+    @GetMapping("/{scanId}/packages/{packageName}/artifacts")
+    public ResponseEntity<List<ArtifactCoupling>> getArtifacts(@PathVariable String scanId,
+                                                               @PathVariable String packageName) {
+        ScanResult result = findScan(scanId);
+        PackageMetrics metrics = findPackage(result, packageName);
+        List<ArtifactCoupling> artifacts = metrics.getArtifactDependencies().entrySet().stream()
+                .map(entry -> new ArtifactCoupling(entry.getKey(), entry.getValue()))
+                .toList();
+        return ResponseEntity.ok().eTag(etag(result)).body(artifacts);
+    }
+
+    /**
+     * Returns the dependency graph of a package clustered by package prefix. Without {@code level},
+     * the deepest level of detail with at most {@code maxNodes} nodes is chosen. The optional
+     * viewport ({@code minX,minY,maxX,maxY} in layout coordinates) restricts the nodes returned.
+     */
+    @GetMapping("/{scanId}/packages/{packageName}/{direction:efferent|afferent}/graph")
+    public ResponseEntity<DependencyGraph> getDependencyGraph(@PathVariable String scanId,
+                                                              @PathVariable String packageName,
+                                                              @PathVariable String direction,
+                                                              @RequestParam(required = false) Integer level,
+                                                              @RequestParam(defaultValue = "" + DEFAULT_GRAPH_NODES) int maxNodes,
+                                                              @RequestParam(required = false) List<Double> viewport) {
+        if (viewport != null && viewport.size() != 4) {
+            throw new IllegalArgumentException("viewport must be minX,minY,maxX,maxY");
+        }
+        ScanResult result = findScan(scanId);
+        findPackage(result, packageName);
+        Viewport bounds = viewport == null ? null
+                : new Viewport(viewport.get(0), viewport.get(1), viewport.get(2), viewport.get(3));
+        DependencyGraph graph = dependencyGraphService.graph(result, packageName, direction.equals("efferent"),
+                level, maxNodes, bounds);
+        return ResponseEntity.ok().eTag(etag(result)).body(graph);
+    }
+
+    /**
+     * Streams the scan as a binary archive, including its edges if they were recorded.
+     */
+    @GetMapping("/{scanId}/export")
+    public ResponseEntity<StreamingResponseBody> exportScan(@PathVariable String scanId) {
+        ScanResult result = findScan(scanId);
+        return ResponseEntity.ok()
+                .eTag(etag(result))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"scan-" + result.id() + ".smex\"")
+                .body(out -> scanArchive.write(result, out));
+    }
+
+    /**
+     * Streams the package summaries or the class-level edges of a scan as NDJSON or CSV.
+     */
+    @GetMapping("/{scanId}/export/{table:packages|edges}")
+    public ResponseEntity<StreamingResponseBody> exportTable(@PathVariable String scanId,
+                                                             @PathVariable String table,
+                                                             @RequestParam(defaultValue = "ndjson") String format) {
+        ScanTextExport.Format exportFormat = ScanTextExport.Format.parse(format);
+        ScanTextExport.Table exportTable = ScanTextExport.Table.parse(table);
+        ScanResult result = findScan(scanId);
+        if (exportTable == ScanTextExport.Table.EDGES && result.edges() == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Edges were not recorded for scan " + scanId);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag(result))
+                .contentType(MediaType.parseMediaType(exportFormat.contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"scan-" + result.id() + "-" + table + "." + exportFormat.extension + "\"")
+                .body(out -> ScanTextExport.write(result, exportTable, exportFormat, out, objectMapper));
+    }
+
+    /**
+     * Loads a binary archive from {@link #exportScan} so the scan can be queried again.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ScanResponse> importScan(InputStream body) throws IOException {
+        ScanResult result = scanResultStore.putIfAbsent(scanArchive.read(body));
+        return ResponseEntity.created(URI.create("/api/scans/" + result.id()))
+                .eTag(etag(result))
+                .body(toResponse(result, null));
+    }
+
+    @ExceptionHandler(ScanRejectedException.class)
+    public ResponseEntity<ProblemDetail> handleScanRejected(ScanRejectedException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        return ResponseEntity.of(problem).header(HttpHeaders.RETRY_AFTER, "30").build();
+    }
+
+    @ExceptionHandler(ScanLimitExceededException.class)
+    public ResponseEntity<ProblemDetail> handleScanLimitExceeded(ScanLimitExceededException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+        return ResponseEntity.of(problem).build();
+    }
+
+    @ExceptionHandler(ArchitectureViolationException.class)
+    public ResponseEntity<ProblemDetail> handleArchitectureViolation(ArchitectureViolationException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+        problem.setProperty("violation", e.getViolation());
+        return ResponseEntity.of(problem).build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ProblemDetail> handleScanError(IllegalArgumentException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+        return ResponseEntity.of(problem).build();
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<ProblemDetail> handleServerError(IllegalStateException e) {
+        logger.error("Scan request failed", e);
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+        return ResponseEntity.of(problem).build();
+    }
+
+    private ScanResult findScan(String scanId) {
+        return scanResultStore.get(scanId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown scan: " + scanId));
+    }
+
+    private PackageMetrics findPackage(ScanResult result, String packageName) {
+        PackageMetrics metrics = result.metrics().get(packageName);
+        if (metrics == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown package: " + packageName);
+        }
+        return metrics;
+    }
+
+    private ScanResponse toResponse(ScanResult result, String fields) {
+        String completion = springBootPackageScanner.getCompletion(result.id()).isPresent()
+                ? "/api/scans/" + result.id() + "/complete" : null;
+        return new ScanResponse(result.id(), result.projectPath(), result.completedAt(), summaries(result, fields),
+                result.violations(), result.violationCount(), completion);
+    }
+
+    private List<Map<String, Object>> summaries(ScanResult result, String fields) {
+        List<String> selectedFields = parseFields(fields);
+        return result.metrics().values().stream()
+                .map(PackageSummary::from)
+                .map(summary -> summary.select(selectedFields))
+                .toList();
+    }
+
+    private static List<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return PackageSummary.FIELD_NAMES;
+        }
+        return Arrays.stream(fields.split(",")).map(String::trim).filter(f -> !f.isEmpty()).toList();
+    }
+
+    private static String etag(ScanResult result) {
+        return "\"" + result.id() + "\"";
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.softwaremetrics.infrastructure;
+
+import com.example.softwaremetrics.application.ScanArchive;
+import com.example.softwaremetrics.application.ScanResult;
+import com.example.softwaremetrics.application.SpringBootPackageScanner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line export: scans {@code export.project} at startup and writes the result to
+ * {@code export.output}. {@code export.format} is {@code binary} (default), {@code ndjson} or
+ * {@code csv}; the text formats write the table named by {@code export.table}, {@code packages}
+ * (default) or {@code edges}. Run with {@code --spring.main.web-application-type=none} to exit
+ * once the export is written.
+ */
+@Component
+@ConditionalOnProperty(prefix = "export", name = "project")
+public class ScanExportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanExportRunner.class);
+
+    private final SpringBootPackageScanner springBootPackageScanner;
+    private final ScanArchive scanArchive;
+    private final ObjectMapper objectMapper;
+    private final String project;
+    private final String format;
+    private final String table;
+    private final Path output;
+
+    public ScanExportRunner(SpringBootPackageScanner springBootPackageScanner, ScanArchive scanArchive,
+                            ObjectMapper objectMapper,
+                            @Value("${export.project}") String project,
+                            @Value("${export.format:binary}") String format,
+                            @Value("${export.table:packages}") String table,
+                            @Value("${export.output:}") String output) {
+        this.springBootPackageScanner = springBootPackageScanner;
+        this.scanArchive = scanArchive;
+        this.objectMapper = objectMapper;
+        this.project = project;
+        this.format = format;
+        this.table = table;
+        this.output = output.isBlank() ? null : Path.of(output);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (output == null) {
+            throw new IllegalArgumentException("export.output is required");
+        }
+        // validate the options before spending time on the scan
+        boolean binary = format.equalsIgnoreCase("binary");
+        ScanTextExport.Format textFormat = binary ? null : ScanTextExport.Format.parse(format);
+        ScanTextExport.Table textTable = binary ? null : ScanTextExport.Table.parse(table);
+
+        ScanResult result = springBootPackageScanner.scan(project);
+        try (OutputStream out = Files.newOutputStream(output)) {
+            if (binary) {
+                scanArchive.write(result, out);
+            } else {
+                ScanTextExport.write(result, textTable, textFormat, out, objectMapper);
+            }
+        }
+        logger.info("Exported scan {} of {} to {} ({} bytes)", result.id(), project, output, Files.size(output));
+    }
+}
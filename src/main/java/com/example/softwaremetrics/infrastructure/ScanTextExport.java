@@ -0,0 +1,173 @@
+package com.example.softwaremetrics.infrastructure;
+
+import com.example.softwaremetrics.application.ScanResult;
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the package summaries or the class-level edges of a scan as NDJSON or CSV, one line per
+ * package or edge. Lines are written as they are produced: an edge export reads the scan's edge log
+ * once and only holds its names in memory.
+ */
+final class ScanTextExport {
+
+    static final List<String> EDGE_COLUMNS = List.of("sourceModule", "sourceClass", "targetModule", "targetClass");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    enum Table {
+        PACKAGES, EDGES;
+
+        static Table parse(String value) {
+            return ScanTextExport.parse(Table.class, value, "table");
+        }
+    }
+
+    enum Format {
+        NDJSON("application/x-ndjson", "ndjson"), CSV("text/csv", "csv");
+
+        final String contentType;
+        final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        static Format parse(String value) {
+            return ScanTextExport.parse(Format.class, value, "format");
+        }
+    }
+
+    private ScanTextExport() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if edges are requested but were not recorded for the scan
+     */
+    static void write(ScanResult result, Table table, Format format, OutputStream out, ObjectMapper objectMapper)
+            throws IOException {
+        if (table == Table.EDGES && result.edges() == null) {
+            throw new IllegalArgumentException("Edges were not recorded for scan " + result.id());
+        }
+        if (format == Format.NDJSON) {
+            writeNdjson(result, table, out, objectMapper);
+        } else {
+            writeCsv(result, table, out);
+        }
+    }
+
+    private static void writeNdjson(ScanResult result, Table table, OutputStream out, ObjectMapper objectMapper)
+            throws IOException {
+        JsonGenerator generator = objectMapper.createGenerator(out);
+        // lines are ended explicitly, so no separator between root values
+        generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (table == Table.PACKAGES) {
+            for (PackageMetrics metrics : result.metrics().values()) {
+                generator.writeObject(PackageSummary.from(metrics).select(PackageSummary.FIELD_NAMES));
+                generator.writeRaw('\n');
+            }
+        } else {
+            try {
+                result.edges().forEach((sourceModule, sourceClass, targetModule, targetClass) -> {
+                    try {
+                        generator.writeStartObject();
+                        generator.writeStringField("sourceModule", sourceModule);
+                        generator.writeStringField("sourceClass", sourceClass);
+                        generator.writeStringField("targetModule", targetModule);
+                        generator.writeStringField("targetClass", targetClass);
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        generator.close();
+    }
+
+    private static void writeCsv(ScanResult result, Table table, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (table == Table.PACKAGES) {
+            writeCsvRow(writer, PackageSummary.FIELD_NAMES);
+            for (PackageMetrics metrics : result.metrics().values()) {
+                Map<String, Object> row = PackageSummary.from(metrics).select(PackageSummary.FIELD_NAMES);
+                writeCsvRow(writer, row.values().stream().map(String::valueOf).toList());
+            }
+        } else {
+            writeCsvRow(writer, EDGE_COLUMNS);
+            try {
+                result.edges().forEach((sourceModule, sourceClass, targetModule, targetClass) -> {
+                    try {
+                        writeCsvField(writer, sourceModule);
+                        writer.write(',');
+                        writeCsvField(writer, sourceClass);
+                        writer.write(',');
+                        if (targetModule != null) writeCsvField(writer, targetModule);
+                        writer.write(',');
+                        writeCsvField(writer, targetClass);
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvRow(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) writer.write(',');
+            writeCsvField(writer, values.get(i));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Quotes a field only when it contains a separator, quote or line break, as in RFC 4180.
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String name) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + name + " '" + value + "', expected one of "
+                    + Arrays.stream(type.getEnumConstants()).map(c -> c.name().toLowerCase(Locale.ROOT)).toList());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.softwaremetrics.infrastructure;
+
+import com.example.softwaremetrics.application.ScanAdmissionControl;
+import com.example.softwaremetrics.application.ScanRejectedException;
+import com.example.softwaremetrics.application.ShardRequest;
+import com.example.softwaremetrics.domain.PackageMetricsCalculator;
+import com.example.softwaremetrics.domain.PartialAggregate;
+import com.example.softwaremetrics.domain.ScanLimitExceededException;
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Worker side of sharded scans: analyzes the class files of one shard and returns their partial
+ * aggregate to the coordinator. Only registered when {@code scan.worker-enabled} is set. Shards
+ * take a slot of the worker's {@link ScanAdmissionControl} like any other scan, and only projects
+ * below {@code scan.worker-project-root} are served.
+ */
+@RestController
+@RequestMapping("/internal/shards")
+@ConditionalOnProperty(prefix = "scan", name = "worker-enabled", havingValue = "true")
+public class ShardWorkerController {
+
+    private final PackageMetricsCalculator packageMetricsCalculator;
+    private final ScanProperties scanProperties;
+    private final ScanAdmissionControl scanAdmissionControl;
+    private final Path projectRoot;
+
+    public ShardWorkerController(PackageMetricsCalculator packageMetricsCalculator, ScanProperties scanProperties,
+                                 ScanAdmissionControl scanAdmissionControl) {
+        this.packageMetricsCalculator = packageMetricsCalculator;
+        this.scanProperties = scanProperties;
+        this.scanAdmissionControl = scanAdmissionControl;
+        if (scanProperties.getWorkerProjectRoot() == null) {
+            throw new IllegalStateException("scan.worker-project-root must be set when scan.worker-enabled is true");
+        }
+        try {
+            this.projectRoot = scanProperties.getWorkerProjectRoot().toRealPath();
+        } catch (IOException e) {
+            throw new IllegalStateException("Worker project root " + scanProperties.getWorkerProjectRoot() + " is not readable", e);
+        }
+    }
+
+    @PostMapping
+    public PartialAggregate analyzeShard(@RequestBody ShardRequest request) {
+        Path projectPath = resolveProject(request.projectPath());
+        List<Path> files = request.files().stream()
+                .map(file -> {
+                    Path resolved = projectPath.resolve(file).normalize();
+                    if (!resolved.startsWith(projectPath)) {
+                        throw new IllegalArgumentException("Shard file outside the project: " + file);
+                    }
+                    return resolved;
+                })
+                .toList();
+        return scanAdmissionControl.admit(() -> packageMetricsCalculator.analyzeShard(files, request.modulePackages(),
+                request.sketchPrecision(), scanProperties.newScanContext(request.timeout())));
+    }
+
+    // the real path, so a symbolic link inside the root cannot lead out of it
+    private Path resolveProject(String projectPath) {
+        Path resolved;
+        try {
+            resolved = Path.of(projectPath).toRealPath();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Project not found: " + projectPath);
+        }
+        if (!resolved.startsWith(projectRoot)) {
+            throw new IllegalArgumentException("Project outside the worker project root: " + projectPath);
+        }
+        return resolved;
+    }
+
+    @ExceptionHandler(ScanRejectedException.class)
+    public ResponseEntity<ProblemDetail> handleShardRejected(ScanRejectedException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        return ResponseEntity.of(problem).header(HttpHeaders.RETRY_AFTER, "30").build();
+    }
+
+    @ExceptionHandler(ScanLimitExceededException.class)
+    public ResponseEntity<ProblemDetail> handleScanLimitExceeded(ScanLimitExceededException e) {
+        return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage())).build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ProblemDetail> handleShardError(IllegalArgumentException e) {
+        return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<ProblemDetail> handleShardFailure(IllegalStateException e) {
+        return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage())).build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArtifactIndexTest {
+
+    private static final List<String> MODULES = List.of("com.example.orders");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAttributesExternalDependenciesByArtifact() throws Exception {
+        Path repository = tempDir.resolve("repository");
+        jar(repository.resolve("org/acme/widgets/1.0/widgets-1.0.jar"),
+                "org/acme/widgets/Widget.class", "org/acme/widgets/Widget$Part.class", "org/acme/widgets/Gadget.class",
+                "META-INF/versions/11/org/acme/widgets/internal/Compat.class", "module-info.class");
+        jar(repository.resolve("org/acme/legacy/2.0/legacy-2.0.jar"), "org/acme/widgets/LegacyWidget.class");
+        jar(repository.resolve("org/acme/widgets/1.0/widgets-1.0-sources.jar"), "org/other/Ignored.class");
+        Path project = tempDir.resolve("shop");
+        jar(project.resolve("lib/helper.jar"), "com/helper/Help.class", "META-INF/maven/com.helper/helper-core/pom.properties");
+        jar(project.resolve("target/shop-1.0.jar"), "com/example/orders/Order.class");
+        // a copy of a repository JAR without Maven metadata
+        jar(project.resolve("lib/widgets-1.0.jar"), "org/acme/widgets/Gadget.class");
+
+        ArtifactIndex index = new ArtifactIndex(properties(repository));
+        index.refresh(repository.toAbsolutePath(), false);
+        PackageMetrics orders = metrics("com.example.orders", "com.example.orders.OrderLine", "com.helper.Help",
+                "com.unknown.Thing", "org.acme.widgets.LegacyWidget", "org.acme.widgets.Widget",
+                "org.acme.widgets.Widget$Part", "org.acme.widgets.internal.Compat[]");
+        index.attribute(project, Map.of("com.example.orders", orders), MODULES);
+
+        assertEquals(List.of(Map.entry("org.acme:widgets", 3), Map.entry("com.helper:helper-core", 1), Map.entry("org.acme:legacy", 1)),
+                List.copyOf(orders.getArtifactDependencies().entrySet()));
+        assertNull(index.find("org.other.Ignored"));
+        assertNull(index.find("org.acme.widgets.Unlisted"), "classes of split packages are mapped one by one");
+
+        // the index is persisted, so it is served after a restart before anything is read again
+        ArtifactIndex restarted = new ArtifactIndex(properties(repository));
+        assertEquals("org.acme:legacy", restarted.find("org.acme.widgets.LegacyWidget"));
+        assertEquals("org.acme:widgets", restarted.find("org.acme.widgets.Gadget"));
+        assertEquals("com.helper:helper-core", restarted.find("com.helper.Help"));
+    }
+
+    @Test
+    void testRefreshReadsChangedAndDropsRemovedJars() throws Exception {
+        Path repository = tempDir.resolve("repository");
+        Path widgets = repository.resolve("org/acme/widgets/1.0/widgets-1.0.jar");
+        Path legacy = repository.resolve("org/acme/legacy/2.0/legacy-2.0.jar");
+        jar(widgets, "org/acme/widgets/Widget.class");
+        jar(legacy, "org/acme/widgets/LegacyWidget.class", "org/acme/legacy/Old.class");
+        ArtifactIndex index = new ArtifactIndex(properties(repository));
+        index.refresh(repository.toAbsolutePath(), false);
+        assertNull(index.find("org.acme.widgets.Unlisted"));
+
+        jar(legacy, "org/acme/legacy/Old.class", "org/acme/legacy/New.class");
+        Files.setLastModifiedTime(legacy, FileTime.fromMillis(Files.getLastModifiedTime(legacy).toMillis() + 10_000));
+        index.refresh(repository.toAbsolutePath(), false);
+        assertEquals("org.acme:widgets", index.find("org.acme.widgets.Unlisted"), "the package is no longer split");
+        assertEquals("org.acme:legacy", index.find("org.acme.legacy.New"));
+
+        Files.delete(widgets);
+        index.refresh(repository.toAbsolutePath(), false);
+        assertNull(index.find("org.acme.widgets.Widget"));
+        assertEquals("org.acme:legacy", new ArtifactIndex(properties(repository)).find("org.acme.legacy.Old"));
+    }
+
+    @Test
+    void testProjectJarsAreFoundWithoutWalkingAnUnchangedProjectAgain() throws Exception {
+        Path project = tempDir.resolve("shop");
+        Path lib = project.resolve("lib");
+        Path helper = lib.resolve("helper.jar");
+        jar(helper, "com/helper/Help.class");
+        ArtifactIndex index = new ArtifactIndex(properties(tempDir.resolve("repository")));
+        index.refresh(project.toAbsolutePath(), true);
+        assertEquals("helper", index.find("com.helper.Help"));
+
+        // a JAR rewritten in place leaves its directory unchanged
+        jar(helper, "com/helper/Help.class", "com/helper/more/More.class");
+        Files.setLastModifiedTime(helper, FileTime.fromMillis(Files.getLastModifiedTime(helper).toMillis() + 10_000));
+        index.refresh(project.toAbsolutePath(), true);
+        assertEquals("helper", index.find("com.helper.more.More"));
+
+        Path tools = lib.resolve("tools.jar");
+        jar(tools, "com/tools/Tool.class");
+        Files.setLastModifiedTime(lib, FileTime.fromMillis(Files.getLastModifiedTime(lib).toMillis() + 10_000));
+        index.refresh(project.toAbsolutePath(), true);
+        assertEquals("tools", index.find("com.tools.Tool"));
+
+        Files.delete(tools);
+        index.refresh(project.toAbsolutePath(), true);
+        assertNull(index.find("com.tools.Tool"));
+    }
+
+    @Test
+    void testDisabledIndexLeavesMetricsUnattributed() throws Exception {
+        Path repository = tempDir.resolve("repository");
+        jar(repository.resolve("org/acme/widgets/1.0/widgets-1.0.jar"), "org/acme/widgets/Widget.class");
+        ScanProperties properties = properties(repository);
+        properties.setArtifactsEnabled(false);
+        PackageMetrics orders = metrics("com.example.orders", "org.acme.widgets.Widget");
+        new ArtifactIndex(properties).attribute(tempDir, Map.of("com.example.orders", orders), MODULES);
+        assertEquals(Map.of(), orders.getArtifactDependencies());
+    }
+
+    private ScanProperties properties(Path repository) {
+        ScanProperties properties = new ScanProperties();
+        properties.setArtifactsEnabled(true);
+        properties.setArtifactRepository(repository);
+        properties.setIndexDirectory(tempDir.resolve("index"));
+        return properties;
+    }
+
+    private static PackageMetrics metrics(String packageName, String... efferent) {
+        PackageMetrics metrics = new PackageMetrics();
+        metrics.setPackageName(packageName);
+        metrics.setEfferentDependencies(List.of(efferent));
+        metrics.setAfferentDependencies(List.of());
+        return metrics;
+    }
+
+    private static void jar(Path file, String... entries) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry));
+                zip.closeEntry();
+            }
+        }
+    }
+}
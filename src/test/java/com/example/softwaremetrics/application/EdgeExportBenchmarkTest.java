@@ -0,0 +1,101 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Times recording, exporting, decoding and re-importing a large edge list. Run with
+ * {@code mvn test -Pbenchmark}; the edge count is set with {@code -Dbenchmark.edges=N}.
+ */
+@Tag("benchmark")
+class EdgeExportBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(EdgeExportBenchmarkTest.class);
+
+    private static final int EDGE_COUNT = Integer.getInteger("benchmark.edges", 5_000_000);
+    private static final int CLASS_COUNT = 200_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void exportAndImport() throws Exception {
+        ScanProperties properties = new ScanProperties();
+        properties.setSpillDirectory(tempDir);
+        ScanArchive archive = new ScanArchive(properties);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        String[] modules = new String[20];
+        String[] classes = new String[CLASS_COUNT];
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            modules[i % 20] = "com.example.module" + i % 20;
+            classes[i] = modules[i % 20] + ".Class" + i;
+        }
+
+        long start = System.nanoTime();
+        EdgeLog edges = EdgeLog.create(tempDir);
+        for (int i = 0; i < EDGE_COUNT; i++) {
+            int source = i % CLASS_COUNT;
+            int target = (int) ((i * 2_654_435_761L) % CLASS_COUNT);
+            edges.onDependency(modules[source % 20], classes[source], modules[target % 20], classes[target]);
+        }
+        ScanResult result = ScanResult.of("/projects/generated", Map.of(), List.of(), 0, edges.finish());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            report("record", start, files.mapToLong(EdgeExportBenchmarkTest::size).sum());
+        }
+
+        Path file = tempDir.resolve("scan.smex");
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        start = System.nanoTime();
+        try (OutputStream out = Files.newOutputStream(file)) {
+            archive.write(result, out);
+        }
+        report("binary export", start, Files.size(file));
+        logger.info("binary export allocated {} KB", (threads.getCurrentThreadAllocatedBytes() - allocated) / 1024);
+
+        AtomicLong decoded = new AtomicLong();
+        start = System.nanoTime();
+        edges.forEach((sourceModule, sourceClass, targetModule, targetClass) -> decoded.incrementAndGet());
+        report("decode (text exports)", start, Files.size(file));
+
+        start = System.nanoTime();
+        try (InputStream in = Files.newInputStream(file)) {
+            ScanResult loaded = archive.read(in);
+            report("import", start, Files.size(file));
+            loaded.edges().delete();
+        }
+        edges.delete();
+        logger.info("{} edges, {} decoded", EDGE_COUNT, decoded.get());
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void report(String phase, long start, long bytes) {
+        long nanos = System.nanoTime() - start;
+        logger.info("{}: {} ms, {} edges/s, {} MB/s ({} MB)", phase, nanos / 1_000_000,
+                EDGE_COUNT * 1_000_000_000L / nanos, bytes * 1_000L / nanos, bytes / (1024 * 1024));
+    }
+}
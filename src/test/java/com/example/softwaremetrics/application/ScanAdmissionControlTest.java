@@ -0,0 +1,92 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanAdmissionControlTest {
+
+    @Test
+    void testRejectsWhenSlotsAndQueueAreFull() throws Exception {
+        ScanAdmissionControl admissionControl = new ScanAdmissionControl(properties(1, 0, Duration.ofSeconds(5)));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> admissionControl.admit(() -> {
+            running.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        ScanRejectedException e = assertThrows(ScanRejectedException.class, () -> admissionControl.admit(() -> "second"));
+        assertTrue(e.getMessage().contains("Too many scans"));
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("third", admissionControl.admit(() -> "third"));
+    }
+
+    @Test
+    void testQueuedScanRunsWhenSlotFreesUp() throws Exception {
+        ScanAdmissionControl admissionControl = new ScanAdmissionControl(properties(1, 1, Duration.ofSeconds(5)));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> admissionControl.admit(() -> {
+            running.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> admissionControl.admit(() -> "queued"));
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testQueuedScanTimesOut() throws Exception {
+        ScanAdmissionControl admissionControl = new ScanAdmissionControl(properties(1, 1, Duration.ofMillis(50)));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> admissionControl.admit(() -> {
+            running.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        ScanRejectedException e = assertThrows(ScanRejectedException.class, () -> admissionControl.admit(() -> "second"));
+        assertTrue(e.getMessage().contains("Timed out"));
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    private static ScanProperties properties(int maxConcurrent, int maxQueued, Duration queueTimeout) {
+        ScanProperties properties = new ScanProperties();
+        properties.setMaxConcurrentScans(maxConcurrent);
+        properties.setMaxQueuedScans(maxQueued);
+        properties.setQueueTimeout(queueTimeout);
+        return properties;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.RuleViolation;
+import com.example.softwaremetrics.domain.ScanProperties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTripKeepsMetricsViolationsAndEdges() throws Exception {
+        ScanArchive archive = new ScanArchive(properties());
+        EdgeLog edges = EdgeLog.create(tempDir);
+        for (int i = 0; i < 3000; i++) {
+            edges.onDependency("com.example.orders", "com.example.orders.Order" + (i % 100),
+                    i % 3 == 0 ? null : "com.example.billing", "com.example.billing.Invoice" + (i % 7));
+        }
+        List<String> afferent = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            afferent.add("com.example.orders.Order" + i);
+        }
+        PackageMetrics orders = metrics("com.example.orders", List.of("com.example.billing.Invoice"), List.of());
+        orders.setArtifactDependencies(Map.of("org.acme:money", 2));
+        ScanResult result = ScanResult.of("/projects/shop", Map.of(
+                        "com.example.billing", metrics("com.example.billing", List.of(), afferent),
+                        "com.example.orders", orders),
+                List.of(new RuleViolation("deny", "com.example.orders.Order1", "com.example.billing.Invoice", "denied"),
+                        new RuleViolation("max-distance", "com.example.orders", null, "too far")),
+                5, edges.finish());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archive.write(result, out);
+        ScanResult loaded = archive.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(result.id(), loaded.id());
+        assertEquals(result.projectPath(), loaded.projectPath());
+        assertEquals(result.completedAt().toEpochMilli(), loaded.completedAt().toEpochMilli());
+        assertEquals(List.of("com.example.billing", "com.example.orders"), List.copyOf(loaded.metrics().keySet()));
+        PackageMetrics billing = loaded.metrics().get("com.example.billing");
+        assertEquals(2500, billing.getCa());
+        assertEquals(0.25, billing.getInstability());
+        assertEquals(result.metrics().get("com.example.billing").getAfferentDependencies(), billing.getAfferentDependencies());
+        assertEquals(List.of("com.example.billing.Invoice"), loaded.metrics().get("com.example.orders").getEfferentDependencies());
+        assertEquals(Map.of("org.acme:money", 2), loaded.metrics().get("com.example.orders").getArtifactDependencies());
+        assertEquals(result.violations(), loaded.violations());
+        assertEquals(5, loaded.violationCount());
+        assertEquals(3000, loaded.edges().getEdgeCount());
+        assertEquals(readEdges(result.edges()), readEdges(loaded.edges()));
+        assertNull(readEdges(loaded.edges()).get(0).get(2));
+    }
+
+    @Test
+    void testRejectsForeignAndTruncatedInput() throws Exception {
+        ScanArchive archive = new ScanArchive(properties());
+        ScanResult result = ScanResult.of("/projects/shop", Map.of(
+                "com.example.orders", metrics("com.example.orders", List.of("com.example.billing.Invoice"), List.of())));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archive.write(result, out);
+        byte[] bytes = out.toByteArray();
+
+        IllegalArgumentException foreign = assertThrows(IllegalArgumentException.class,
+                () -> archive.read(new ByteArrayInputStream("PK\u0003\u0004 not an archive".getBytes())));
+        assertEquals("Not a scan archive", foreign.getMessage());
+
+        for (int length = 5; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThrows(IllegalArgumentException.class, () -> archive.read(new ByteArrayInputStream(truncated)),
+                    "accepted an archive truncated to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void testImportOfAStoredScanKeepsItsEdges() throws Exception {
+        ScanProperties properties = properties();
+        ScanArchive archive = new ScanArchive(properties);
+        ScanResultStore store = new ScanResultStore(properties, new ScanIndexStore(properties));
+        EdgeLog edges = EdgeLog.create(tempDir);
+        edges.onDependency("com.example.orders", "com.example.orders.Order", "com.example.billing", "com.example.billing.Invoice");
+        ScanResult result = ScanResult.of("/projects/shop", Map.of(
+                "com.example.orders", metrics("com.example.orders", List.of("com.example.billing.Invoice"), List.of())),
+                List.of(), 0, edges.finish());
+        store.put(result);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archive.write(result, out);
+
+        ScanResult imported = archive.read(new ByteArrayInputStream(out.toByteArray()));
+        assertSame(result, store.putIfAbsent(imported));
+        assertSame(result, store.get(result.id()).orElseThrow());
+        assertEquals(1, readEdges(result.edges()).size(), "the stored edge log must survive the import");
+        assertThrows(Exception.class, () -> readEdges(imported.edges()), "the imported copy is discarded");
+
+        // an archive cannot take over another scan's id
+        ScanResult forged = new ScanResult(result.id(), "/projects/other", result.metrics(), List.of(), 0, null,
+                result.completedAt());
+        ByteArrayOutputStream forgedOut = new ByteArrayOutputStream();
+        archive.write(forged, forgedOut);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> archive.read(new ByteArrayInputStream(forgedOut.toByteArray())));
+        assertTrue(e.getMessage().contains("does not match its content"), e.getMessage());
+    }
+
+    @Test
+    void testRescanOfAStoredScanKeepsTheEdgesExportsAreReading() throws Exception {
+        ScanProperties properties = properties();
+        ScanResultStore store = new ScanResultStore(properties, new ScanIndexStore(properties));
+        ScanResult first = store.put(scanWithEdges());
+        ScanResult rescan = scanWithEdges();
+        assertEquals(first.id(), rescan.id());
+
+        ScanResult stored = store.put(rescan);
+        assertSame(first.edges(), stored.edges());
+        assertEquals(rescan.completedAt(), stored.completedAt());
+        assertSame(stored, store.get(first.id()).orElseThrow());
+        assertEquals(1, readEdges(first.edges()).size(), "an export of the first scan must not lose its edge log");
+        assertThrows(Exception.class, () -> readEdges(rescan.edges()), "the rescan's copy is discarded");
+    }
+
+    private ScanResult scanWithEdges() {
+        EdgeLog edges = EdgeLog.create(tempDir);
+        edges.onDependency("com.example.orders", "com.example.orders.Order", "com.example.billing", "com.example.billing.Invoice");
+        return ScanResult.of("/projects/shop", Map.of(
+                "com.example.orders", metrics("com.example.orders", List.of("com.example.billing.Invoice"), List.of())),
+                List.of(), 0, edges.finish());
+    }
+
+    private ScanProperties properties() {
+        ScanProperties properties = new ScanProperties();
+        properties.setSpillDirectory(tempDir);
+        return properties;
+    }
+
+    private static PackageMetrics metrics(String packageName, List<String> efferent, List<String> afferent) {
+        PackageMetrics metrics = new PackageMetrics();
+        metrics.setPackageName(packageName);
+        metrics.setEfferentDependencies(efferent);
+        metrics.setAfferentDependencies(afferent);
+        metrics.setCe(efferent.size());
+        metrics.setCa(afferent.size());
+        metrics.setTotalClassCount(4);
+        metrics.setAbstractClassCount(1);
+        metrics.setAbstractness(0.25);
+        metrics.setInstability(0.25);
+        metrics.setDistance(0.5);
+        return metrics;
+    }
+
+    private static List<List<String>> readEdges(EdgeLog edges) throws Exception {
+        List<List<String>> read = new ArrayList<>();
+        edges.forEach((sourceModule, sourceClass, targetModule, targetClass) ->
+                read.add(Arrays.asList(sourceModule, sourceClass, targetModule, targetClass)));
+        return read;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.JavaClassAnalyzer;
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.PackageMetricsCalculator;
+import com.example.softwaremetrics.domain.RuleViolation;
+import com.example.softwaremetrics.domain.ScanContext;
+import com.example.softwaremetrics.domain.ScanProperties;
+import com.example.softwaremetrics.domain.TestClassFiles;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanIndexStoreTest {
+
+    private static final List<String> MODULES = List.of("com.example.billing", "com.example.orders");
+
+    @TempDir
+    Path tempDir;
+
+    private final PackageMetricsCalculator calculator = new PackageMetricsCalculator(new JavaClassAnalyzer());
+
+    @Test
+    void testIndexServesResultAfterRestartAndReusesUnchangedClasses() throws Exception {
+        Path project = tempDir.resolve("shop");
+        Path classes = project.resolve("target/classes");
+        TestClassFiles.write(classes.resolve("com/example/orders/Order.class"), "com.example.orders.Order", false,
+                "com.example.billing.Invoice", "com.other.Money");
+        TestClassFiles.write(classes.resolve("com/example/orders/OrderRepository.class"), "com.example.orders.OrderRepository", true);
+        TestClassFiles.write(classes.resolve("com/example/billing/Invoice.class"), "com.example.billing.Invoice", false,
+                "com.example.orders.OrderRepository");
+        TestClassFiles.write(classes.resolve("com/other/Money.class"), "com.other.Money", false);
+
+        ScanIndexStore store = new ScanIndexStore(properties());
+        ScanIndexStore.IndexingClassCache cache = store.startScan(project.toString(), MODULES);
+        List<RuleViolation> violations = List.of(new RuleViolation("deny", "com.example.orders.Order", "com.example.billing.Invoice", "denied"));
+        Map<String, PackageMetrics> metrics = scan(project, cache);
+        metrics.get("com.example.orders").setArtifactDependencies(Map.of("com.other:money", 1));
+        ScanResult result = ScanResult.of(project.toString(), metrics, violations, 2);
+        store.save(cache, result);
+        assertEquals(4, cache.getClassCount());
+        assertEquals(0, cache.getReusedCount());
+
+        // a new store maps the index as it would after a restart
+        ScanIndexStore restarted = new ScanIndexStore(properties());
+        assertEquals(List.of(project.toString()), restarted.getProjectPaths());
+        ScanResult loaded = restarted.load(result.id()).orElseThrow();
+        assertEquals(result.id(), loaded.id());
+        assertEquals(result.completedAt().toEpochMilli(), loaded.completedAt().toEpochMilli());
+        assertEquals(fingerprint(result), fingerprint(loaded));
+        assertEquals(List.of("com.example.billing.Invoice", "com.other.Money"),
+                loaded.metrics().get("com.example.orders").getEfferentDependencies());
+        assertEquals(1, loaded.metrics().get("com.example.orders").getAbstractClassCount());
+        assertEquals(Map.of("com.other:money", 1), loaded.metrics().get("com.example.orders").getArtifactDependencies());
+        assertEquals(Map.of(), loaded.metrics().get("com.example.billing").getArtifactDependencies());
+        assertEquals(violations, loaded.violations());
+        assertEquals(2, loaded.violationCount());
+        assertTrue(restarted.load("unknown").isEmpty());
+
+        Path order = classes.resolve("com/example/orders/Order.class");
+        TestClassFiles.write(order, "com.example.orders.Order", false, "com.other.Money");
+        Files.setLastModifiedTime(order, FileTime.fromMillis(Files.getLastModifiedTime(order).toMillis() + 10_000));
+        ScanIndexStore.IndexingClassCache rescan = restarted.startScan(project.toString(), MODULES);
+        Map<String, PackageMetrics> updated = scan(project, rescan);
+        assertEquals(4, rescan.getClassCount());
+        assertEquals(3, rescan.getReusedCount());
+        assertEquals(fingerprint(ScanResult.of(project.toString(), calculator.calculateMetrics(project, MODULES))),
+                fingerprint(ScanResult.of(project.toString(), updated)));
+        assertEquals(0, updated.get("com.example.billing").getCa());
+    }
+
+    @Test
+    void testIndexServesProjectPathUntilRevalidated() throws Exception {
+        Path project = tempDir.resolve("shop");
+        TestClassFiles.write(project.resolve("target/classes/com/example/orders/Order.class"), "com.example.orders.Order", false);
+        ScanIndexStore store = new ScanIndexStore(properties());
+        ScanIndexStore.IndexingClassCache cache = store.startScan(project.toString(), MODULES);
+        ScanResult result = ScanResult.of(project.toString(), scan(project, cache));
+        store.save(cache, result);
+        assertTrue(store.latest(project.toString()).isEmpty(), "a project scanned since startup is not served by path");
+
+        ScanIndexStore restarted = new ScanIndexStore(properties());
+        assertEquals(result.id(), restarted.latest(project.resolve("target/..").toString()).orElseThrow().id());
+        restarted.revalidated(project.toString());
+        assertTrue(restarted.latest(project.toString()).isEmpty());
+
+        ScanProperties withoutRevalidation = properties();
+        withoutRevalidation.setIndexRevalidate(false);
+        assertTrue(new ScanIndexStore(withoutRevalidation).latest(project.toString()).isEmpty());
+    }
+
+    @Test
+    void testIgnoresForeignIndexesAndOtherModules() throws Exception {
+        Path project = tempDir.resolve("shop");
+        TestClassFiles.write(project.resolve("target/classes/com/example/orders/Order.class"), "com.example.orders.Order", false);
+        ScanIndexStore store = new ScanIndexStore(properties());
+        ScanIndexStore.IndexingClassCache cache = store.startScan(project.toString(), MODULES);
+        store.save(cache, ScanResult.of(project.toString(), scan(project, cache)));
+        Path index;
+        try (var files = Files.list(tempDir.resolve("index"))) {
+            index = files.findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(index);
+        Files.write(tempDir.resolve("index/truncated.smix"), Arrays.copyOf(bytes, bytes.length - 1));
+        Files.writeString(tempDir.resolve("index/foreign.smix"), "not an index");
+
+        ScanIndexStore restarted = new ScanIndexStore(properties());
+        assertEquals(1, restarted.getProjectPaths().size());
+        ScanIndexStore.IndexingClassCache otherModules = restarted.startScan(project.toString(), List.of("com.example.orders"));
+        scan(project, otherModules);
+        assertEquals(0, otherModules.getReusedCount(), "an index built for other modules must not be reused");
+        assertThrows(IllegalArgumentException.class, () -> ScanIndex.open(tempDir.resolve("index/truncated.smix")));
+    }
+
+    private Map<String, PackageMetrics> scan(Path project, ScanIndexStore.IndexingClassCache cache) {
+        ScanContext context = ScanContext.unbounded();
+        context.setClassCache(cache);
+        return calculator.calculateMetrics(project, MODULES, context);
+    }
+
+    private ScanProperties properties() {
+        ScanProperties properties = new ScanProperties();
+        properties.setIndexDirectory(tempDir.resolve("index"));
+        return properties;
+    }
+
+    private static String fingerprint(ScanResult result) {
+        return ScanResult.of(result.projectPath(), result.metrics(), result.violations(), result.violationCount()).id();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.JavaClassAnalyzer;
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.PackageMetricsCalculator;
+import com.example.softwaremetrics.domain.PartialAggregate;
+import com.example.softwaremetrics.domain.ScanContext;
+import com.example.softwaremetrics.domain.ScanLimitExceededException;
+import com.example.softwaremetrics.domain.ScanProperties;
+import com.example.softwaremetrics.domain.TestClassFiles;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardCoordinatorTest {
+
+    private static final List<String> MODULES = List.of("com.example.billing", "com.example.orders");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PackageMetricsCalculator calculator = new PackageMetricsCalculator(new JavaClassAnalyzer());
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @TempDir
+    Path projectDir;
+
+    @BeforeEach
+    void createProject() throws IOException {
+        for (int i = 0; i < 40; i++) {
+            TestClassFiles.write(projectDir.resolve("com/example/orders/Order" + i + ".class"),
+                    "com.example.orders.Order" + i, i % 4 == 0, "com.example.billing.Invoice" + (i % 5), "org.library.Helper");
+        }
+        for (int i = 0; i < 5; i++) {
+            TestClassFiles.write(projectDir.resolve("com/example/billing/Invoice" + i + ".class"),
+                    "com.example.billing.Invoice" + i, false, "com.example.orders.Order" + i);
+        }
+    }
+
+    @AfterEach
+    void stopWorkers() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void testShardsFromFailingWorkerAreRetriedAndMerged() {
+        AtomicInteger failedRequests = new AtomicInteger();
+        URI broken = startWorker(failedRequests, true);
+        URI healthy = startWorker(new AtomicInteger(), false);
+
+        Map<String, PackageMetrics> sharded = coordinator(List.of(broken, healthy), 3)
+                .calculateMetrics(projectDir, MODULES, ScanContext.unbounded());
+        Map<String, PackageMetrics> local = calculator.calculateMetrics(projectDir, MODULES);
+
+        assertTrue(failedRequests.get() > 0);
+        for (String module : MODULES) {
+            assertEquals(local.get(module).getCe(), sharded.get(module).getCe());
+            assertEquals(local.get(module).getCa(), sharded.get(module).getCa());
+            assertEquals(local.get(module).getTotalClassCount(), sharded.get(module).getTotalClassCount());
+            assertEquals(local.get(module).getAbstractClassCount(), sharded.get(module).getAbstractClassCount());
+            assertEquals(local.get(module).getInstability(), sharded.get(module).getInstability());
+        }
+    }
+
+    @Test
+    void testScanFailsWhenEveryAttemptFails() {
+        URI broken = startWorker(new AtomicInteger(), true);
+
+        assertThrows(ShardFailedException.class, () -> coordinator(List.of(broken), 1)
+                .calculateMetrics(projectDir, MODULES, ScanContext.unbounded()));
+    }
+
+    @Test
+    void testShardedScanIsChargedToTheCallersQuotas() {
+        AtomicInteger requests = new AtomicInteger();
+        URI healthy = startWorker(requests, false);
+
+        ScanLimitExceededException e = assertThrows(ScanLimitExceededException.class, () -> coordinator(List.of(healthy), 0)
+                .calculateMetrics(projectDir, MODULES, ScanContext.withLimits(null, 10, 0)));
+        assertTrue(e.getMessage().contains("10 class files"), e.getMessage());
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void testSlowShardsStopAtTheScanDeadline() throws IOException {
+        List<Long> timeouts = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/internal/shards", exchange -> {
+            timeouts.add(objectMapper.readValue(exchange.getRequestBody(), ShardRequest.class).timeoutMillis());
+            try {
+                Thread.sleep(3_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+        servers.add(server);
+        URI slow = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+
+        long start = System.nanoTime();
+        assertThrows(ScanLimitExceededException.class, () -> coordinator(List.of(slow), 0)
+                .calculateMetrics(projectDir, MODULES, ScanContext.withLimits(Duration.ofMillis(500), 0, 0)));
+        assertTrue(System.nanoTime() - start < 2_500_000_000L, "Scan should stop at its deadline");
+        assertFalse(timeouts.isEmpty());
+        assertTrue(timeouts.stream().allMatch(timeout -> timeout > 0 && timeout <= 500), timeouts.toString());
+    }
+
+    private ShardCoordinator coordinator(List<URI> workers, int retries) {
+        ScanProperties properties = new ScanProperties();
+        properties.setWorkers(workers);
+        properties.setShardRetries(retries);
+        return new ShardCoordinator(new JavaClassAnalyzer(), calculator, properties, objectMapper);
+    }
+
+    /**
+     * Starts an in-process stand-in for a worker process that analyzes shards with the real
+     * calculator, or always answers 500 if {@code broken}.
+     */
+    private URI startWorker(AtomicInteger requests, boolean broken) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/internal/shards", exchange -> {
+                requests.incrementAndGet();
+                byte[] body;
+                int status;
+                if (broken) {
+                    status = 500;
+                    body = "worker crashed".getBytes();
+                } else {
+                    ShardRequest request = objectMapper.readValue(exchange.getRequestBody(), ShardRequest.class);
+                    List<Path> files = request.files().stream().map(projectDir::resolve).toList();
+                    PartialAggregate aggregate = calculator.analyzeShard(files, request.modulePackages(),
+                            request.sketchPrecision(), ScanContext.withLimits(request.timeout(), 0, 0));
+                    status = 200;
+                    body = objectMapper.writeValueAsBytes(aggregate);
+                }
+                exchange.sendResponseHeaders(status, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+            servers.add(server);
+            return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
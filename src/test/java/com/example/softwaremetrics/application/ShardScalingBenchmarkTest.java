@@ -0,0 +1,122 @@
+package com.example.softwaremetrics.application;
+
+import com.example.SpringBootPackageScannerApplication;
+import com.example.softwaremetrics.domain.JavaClassAnalyzer;
+import com.example.softwaremetrics.domain.PackageMetricsCalculator;
+import com.example.softwaremetrics.domain.ScanContext;
+import com.example.softwaremetrics.domain.ScanProperties;
+import com.example.softwaremetrics.domain.TestClassFiles;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Measures sharded scans with 1, 2, 4 and 8 worker processes on a generated project. Each worker
+ * is a separate JVM started from the test class path. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ShardScalingBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardScalingBenchmarkTest.class);
+
+    private static final int CLASS_COUNT = Integer.getInteger("benchmark.classes", 20_000);
+    private static final int[] WORKER_COUNTS = {1, 2, 4, 8};
+    private static final int ITERATIONS = 3;
+
+    @TempDir
+    static Path projectDir;
+
+    private static final List<Process> workers = new ArrayList<>();
+    private static final List<URI> workerUris = new ArrayList<>();
+    private static List<String> modules;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            String module = "module" + (i % 20);
+            TestClassFiles.write(projectDir.resolve("com/example/" + module + "/Class" + i + ".class"),
+                    "com.example." + module + ".Class" + i, i % 7 == 0,
+                    "com.example.module" + ((i + 1) % 20) + ".Class" + (i + 1), "org.library.Helper" + (i % 50));
+        }
+        modules = IntStream.range(0, 20).mapToObj(i -> "com.example.module" + i).sorted().toList();
+        for (int i = 0; i < WORKER_COUNTS[WORKER_COUNTS.length - 1]; i++) {
+            startWorker();
+        }
+    }
+
+    @AfterAll
+    static void stopWorkers() {
+        workers.forEach(Process::destroy);
+    }
+
+    @Test
+    void scaling() {
+        PackageMetricsCalculator calculator = new PackageMetricsCalculator(new JavaClassAnalyzer());
+        long localNanos = time(() -> calculator.calculateMetrics(projectDir, modules));
+        logger.info("in-process: {} ms", localNanos / 1_000_000);
+        for (int workerCount : WORKER_COUNTS) {
+            ScanProperties properties = new ScanProperties();
+            properties.setWorkers(workerUris.subList(0, workerCount));
+            ShardCoordinator coordinator = new ShardCoordinator(new JavaClassAnalyzer(), calculator, properties, new ObjectMapper());
+            coordinator.calculateMetrics(projectDir, modules, ScanContext.unbounded()); // warm-up
+            long nanos = time(() -> coordinator.calculateMetrics(projectDir, modules, ScanContext.unbounded()));
+            logger.info("{} workers: {} ms, speedup {} over in-process",
+                    workerCount, nanos / 1_000_000, String.format("%.2f", (double) localNanos / nanos));
+        }
+    }
+
+    private static long time(Runnable scan) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            scan.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static void startWorker() throws IOException, InterruptedException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        // forward flags such as --enable-preview that the test JVM was started with
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(argument -> argument.startsWith("--enable-preview"))
+                .forEach(command::add);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                SpringBootPackageScannerApplication.class.getName(),
+                "--server.port=" + port, "--scan.worker-enabled=true", "--scan.worker-project-root=" + projectDir,
+                "--logging.level.com.example=WARN"));
+        workers.add(new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start());
+        long deadline = System.nanoTime() + 120_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            try (Socket _ = new Socket("127.0.0.1", port)) {
+                workerUris.add(URI.create("http://127.0.0.1:" + port));
+                return;
+            } catch (IOException e) {
+                Thread.sleep(200);
+            }
+        }
+        throw new IllegalStateException("Worker on port " + port + " did not start");
+    }
+}
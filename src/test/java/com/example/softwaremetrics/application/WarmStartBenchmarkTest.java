@@ -0,0 +1,90 @@
+package com.example.softwaremetrics.application;
+
+import com.example.softwaremetrics.domain.JavaClassAnalyzer;
+import com.example.softwaremetrics.domain.PackageMetrics;
+import com.example.softwaremetrics.domain.PackageMetricsCalculator;
+import com.example.softwaremetrics.domain.ScanContext;
+import com.example.softwaremetrics.domain.ScanProperties;
+import com.example.softwaremetrics.domain.TestClassFiles;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares a cold scan with serving the same result from its persisted index after a restart, and
+ * with the incremental rescan that revalidates it. Run with {@code mvn test -Pbenchmark}; the class
+ * count is set with {@code -Dbenchmark.classes=N}.
+ */
+@Tag("benchmark")
+class WarmStartBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmStartBenchmarkTest.class);
+
+    private static final int CLASS_COUNT = Integer.getInteger("benchmark.classes", 20_000);
+    private static final int MODULE_COUNT = 20;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void coldScanAgainstWarmStart() throws Exception {
+        Path project = tempDir.resolve("project");
+        List<String> modules = new ArrayList<>();
+        for (int m = 0; m < MODULE_COUNT; m++) {
+            modules.add("com.example.module" + m);
+        }
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            String module = modules.get(i % MODULE_COUNT);
+            String[] dependencies = new String[8];
+            for (int d = 0; d < dependencies.length; d++) {
+                int target = (int) ((i * 31L + d * 2_654_435_761L) % CLASS_COUNT);
+                dependencies[d] = modules.get(target % MODULE_COUNT) + ".Class" + target;
+            }
+            TestClassFiles.write(project.resolve("target/classes/" + module.replace('.', '/') + "/Class" + i + ".class"),
+                    module + ".Class" + i, i % 5 == 0, dependencies);
+        }
+        ScanProperties properties = new ScanProperties();
+        properties.setIndexDirectory(tempDir.resolve("index"));
+        PackageMetricsCalculator calculator = new PackageMetricsCalculator(new JavaClassAnalyzer());
+
+        long start = System.nanoTime();
+        ScanIndexStore store = new ScanIndexStore(properties);
+        ScanIndexStore.IndexingClassCache cache = store.startScan(project.toString(), modules);
+        ScanResult cold = ScanResult.of(project.toString(), scan(calculator, project, modules, cache));
+        logger.info("cold scan of {} classes: {} ms", CLASS_COUNT, (System.nanoTime() - start) / 1_000_000);
+        start = System.nanoTime();
+        store.save(cache, cold);
+        logger.info("index written: {} ms", (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        ScanIndexStore restarted = new ScanIndexStore(properties);
+        logger.info("indexes mapped: {} ms", (System.nanoTime() - start) / 1_000_000);
+        start = System.nanoTime();
+        ScanResult warm = restarted.load(cold.id()).orElseThrow();
+        logger.info("first result after restart: {} ms", (System.nanoTime() - start) / 1_000_000);
+        assertEquals(cold.id(), warm.id());
+
+        start = System.nanoTime();
+        ScanIndexStore.IndexingClassCache rescan = restarted.startScan(project.toString(), modules);
+        scan(calculator, project, modules, rescan);
+        logger.info("revalidation: {} ms, {} of {} classes reused", (System.nanoTime() - start) / 1_000_000,
+                rescan.getReusedCount(), rescan.getClassCount());
+    }
+
+    private static Map<String, PackageMetrics> scan(PackageMetricsCalculator calculator, Path project, List<String> modules,
+                                                    ScanIndexStore.IndexingClassCache cache) {
+        ScanContext context = ScanContext.unbounded();
+        context.setClassCache(cache);
+        return calculator.calculateMetrics(project, modules, context);
+    }
+}
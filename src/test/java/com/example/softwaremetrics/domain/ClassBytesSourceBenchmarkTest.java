@@ -0,0 +1,93 @@
+package com.example.softwaremetrics.domain;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares class file readers on a generated project. Run with {@code mvn test -Pbenchmark}; cold
+ * runs drop the page cache between iterations and therefore need root.
+ */
+@Tag("benchmark")
+class ClassBytesSourceBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassBytesSourceBenchmarkTest.class);
+
+    private static final int CLASS_COUNT = Integer.getInteger("benchmark.classes", 20_000);
+    private static final int ITERATIONS = 5;
+    private static final Path DROP_CACHES = Path.of("/proc/sys/vm/drop_caches");
+
+    @TempDir
+    static Path projectDir;
+
+    private static List<Path> classFiles;
+
+    @BeforeAll
+    static void generateProject() throws IOException {
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            String module = "module" + (i % 20);
+            TestClassFiles.write(projectDir.resolve("com/example/" + module + "/Class" + i + ".class"),
+                    "com.example." + module + ".Class" + i, i % 7 == 0,
+                    "com.example.module" + ((i + 1) % 20) + ".Class" + (i + 1), "org.library.Helper" + (i % 50));
+        }
+        try (var walk = Files.walk(projectDir)) {
+            classFiles = walk.filter(p -> p.toString().endsWith(".class")).toList();
+        }
+    }
+
+    @Test
+    void warmPageCache() throws IOException {
+        for (ClassBytesSource.Kind kind : ClassBytesSource.Kind.values()) {
+            ClassBytesSource source = ClassBytesSource.create(kind, 1024 * 1024);
+            readAll(source); // warm-up, also pulls the files into the page cache
+            run("warm", kind, source, false);
+        }
+    }
+
+    @Test
+    void coldPageCache() throws IOException {
+        assumeTrue(Files.isWritable(DROP_CACHES), "Dropping the page cache requires root");
+        for (ClassBytesSource.Kind kind : ClassBytesSource.Kind.values()) {
+            ClassBytesSource source = ClassBytesSource.create(kind, 1024 * 1024);
+            readAll(source);
+            run("cold", kind, source, true);
+        }
+    }
+
+    private void run(String mode, ClassBytesSource.Kind kind, ClassBytesSource source, boolean dropCaches) throws IOException {
+        var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long totalNanos = 0;
+        long totalAllocated = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (dropCaches) {
+                new ProcessBuilder("sync").inheritIO().start().onExit().join();
+                Files.writeString(DROP_CACHES, "1");
+            }
+            long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            readAll(source);
+            totalNanos += System.nanoTime() - start;
+            totalAllocated += threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+        long files = (long) ITERATIONS * classFiles.size();
+        logger.info("{} {}: {} files/s, {} bytes allocated per file",
+                mode, kind, files * 1_000_000_000L / Math.max(1, totalNanos), totalAllocated / files);
+    }
+
+    private static void readAll(ClassBytesSource source) throws IOException {
+        for (Path file : classFiles) {
+            source.release(source.read(file));
+        }
+    }
+}
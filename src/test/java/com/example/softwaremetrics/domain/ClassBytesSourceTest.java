@@ -0,0 +1,120 @@
+package com.example.softwaremetrics.domain;
+
+import com.example.softwaremetrics.domain.ClassBytesSource.ClassBytes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassBytesSourceTest {
+
+    @Test
+    void testPooledSourceReusesBufferForSmallFiles(@TempDir Path tempDir) throws IOException {
+        ClassBytesSource source = ClassBytesSource.create(ClassBytesSource.Kind.POOLED, 1024 * 1024);
+        Path first = write(tempDir.resolve("First.class"), 1000);
+        Path second = write(tempDir.resolve("Second.class"), 3000);
+
+        ClassBytes firstBytes = source.read(first);
+        assertContent(first, firstBytes);
+        byte[] pooledBuffer = firstBytes.buffer();
+        source.release(firstBytes);
+
+        ClassBytes secondBytes = source.read(second);
+        assertContent(second, secondBytes);
+        assertSame(pooledBuffer, secondBytes.buffer());
+
+        ClassBytes unreleased = source.read(first);
+        assertContent(first, unreleased);
+        assertNotSame(secondBytes.buffer(), unreleased.buffer(), "a buffer in use is never handed out twice");
+    }
+
+    @Test
+    void testPooledSourceGrowsBufferAndReadsLargeFilesIntoExactArrays(@TempDir Path tempDir) throws IOException {
+        ClassBytesSource source = ClassBytesSource.create(ClassBytesSource.Kind.POOLED, 512 * 1024);
+        Path medium = write(tempDir.resolve("Medium.class"), 200 * 1024);
+        Path large = write(tempDir.resolve("Large.class"), 600 * 1024);
+
+        ClassBytes mediumBytes = source.read(medium);
+        assertContent(medium, mediumBytes);
+        assertTrue(mediumBytes.buffer().length >= 200 * 1024);
+        source.release(mediumBytes);
+
+        ClassBytes largeBytes = source.read(large);
+        assertContent(large, largeBytes);
+        assertEquals(600 * 1024, largeBytes.buffer().length, "Files above the pooled size get an exact-size array");
+        source.release(largeBytes);
+        assertSame(mediumBytes.buffer(), source.read(medium).buffer(), "large arrays are not pooled");
+    }
+
+    @Test
+    void testPoolRetainsAtMostItsSizeInBuffers(@TempDir Path tempDir) throws IOException {
+        PooledClassBytesSource source = new PooledClassBytesSource(1024 * 1024, 2);
+        Path file = write(tempDir.resolve("Some.class"), 1000);
+        List<ClassBytes> inUse = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            inUse.add(source.read(file));
+        }
+        inUse.forEach(source::release);
+
+        Set<byte[]> reused = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 5; i++) {
+            ClassBytes bytes = source.read(file);
+            assertContent(file, bytes);
+            if (inUse.stream().anyMatch(previous -> previous.buffer() == bytes.buffer())) {
+                reused.add(bytes.buffer());
+            }
+        }
+        assertEquals(2, reused.size());
+    }
+
+    @Test
+    void testStreamSourceReadsWholeFile(@TempDir Path tempDir) throws IOException {
+        Path file = write(tempDir.resolve("Some.class"), 5000);
+        assertContent(file, ClassBytesSource.create(ClassBytesSource.Kind.STREAM, 0).read(file));
+    }
+
+    @Test
+    void testAnalyzerResultsDoNotDependOnSource(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 20; i++) {
+            TestClassFiles.write(tempDir.resolve("com/example/a/A" + i + ".class"), "com.example.a.A" + i, i % 2 == 0,
+                    "com.example.b.B" + (i % 3));
+        }
+        TestClassFiles.write(tempDir.resolve("com/example/b/B0.class"), "com.example.b.B0", false, "com.example.a.A1");
+
+        var pooled = new PackageMetricsCalculator(new JavaClassAnalyzer(ClassBytesSource.create(ClassBytesSource.Kind.POOLED, 1)))
+                .calculateMetrics(tempDir, List.of("com.example.a", "com.example.b"));
+        var stream = new PackageMetricsCalculator(new JavaClassAnalyzer(ClassBytesSource.create(ClassBytesSource.Kind.STREAM, 0)))
+                .calculateMetrics(tempDir, List.of("com.example.a", "com.example.b"));
+
+        for (String pkg : pooled.keySet()) {
+            assertEquals(stream.get(pkg).getCe(), pooled.get(pkg).getCe());
+            assertEquals(stream.get(pkg).getCa(), pooled.get(pkg).getCa());
+            assertEquals(stream.get(pkg).getAbstractClassCount(), pooled.get(pkg).getAbstractClassCount());
+        }
+        assertEquals(3, pooled.get("com.example.a").getCe());
+    }
+
+    private static Path write(Path file, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return Files.write(file, bytes);
+    }
+
+    private static void assertContent(Path file, ClassBytes bytes) throws IOException {
+        byte[] expected = Files.readAllBytes(file);
+        assertEquals(expected.length, bytes.length());
+        assertArrayEquals(expected, Arrays.copyOf(bytes.buffer(), bytes.length()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.softwaremetrics.domain;
+
+import com.example.softwaremetrics.domain.DependencyTree.DependencyGraph;
+import com.example.softwaremetrics.domain.DependencyTree.GraphEdge;
+import com.example.softwaremetrics.domain.DependencyTree.GraphNode;
+import com.example.softwaremetrics.domain.DependencyTree.Viewport;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyTreeTest {
+
+    private final DependencyTree tree = new DependencyTree("com.example.orders", List.of(
+            "com.example.billing.Invoice",
+            "com.example.billing.InvoiceLine",
+            "com.example.billing.internal.Ledger",
+            "org.springframework.stereotype.Component"));
+
+    @Test
+    void testSingleChildChainsAreMerged() {
+        DependencyGraph graph = tree.view(1, null);
+        Map<String, GraphNode> nodes = byId(graph);
+
+        assertEquals(3, graph.nodes().size());
+        assertEquals("com.example.billing", nodes.get("com.example.billing").label());
+        assertEquals("org.springframework.stereotype", nodes.get("org.springframework.stereotype").label());
+        assertEquals(3, graph.maxLevel());
+    }
+
+    @Test
+    void testCollapsedClustersCarrySummedWeights() {
+        DependencyGraph graph = tree.view(1, null);
+        Map<String, GraphNode> nodes = byId(graph);
+
+        GraphNode billing = nodes.get("com.example.billing");
+        assertTrue(billing.collapsed());
+        assertEquals(3, billing.weight());
+        assertTrue(graph.edges().contains(new GraphEdge("com.example.orders", "com.example.billing", 3)));
+        assertEquals(4, nodes.get("com.example.orders").weight());
+    }
+
+    @Test
+    void testDeeperLevelsExpandClustersAtStableCoordinates() {
+        GraphNode billingAtLevel1 = byId(tree.view(1, null)).get("com.example.billing");
+        DependencyGraph detailed = tree.view(3, null);
+        Map<String, GraphNode> nodes = byId(detailed);
+
+        assertEquals(8, detailed.nodes().size());
+        assertFalse(nodes.get("com.example.billing").collapsed());
+        assertEquals(billingAtLevel1.x(), nodes.get("com.example.billing").x());
+        assertEquals(billingAtLevel1.y(), nodes.get("com.example.billing").y());
+        assertEquals(7, detailed.edges().size());
+    }
+
+    @Test
+    void testLevelForRespectsNodeBudget() {
+        assertEquals(1, tree.levelFor(1));
+        assertEquals(2, tree.levelFor(7));
+        assertEquals(3, tree.levelFor(100));
+    }
+
+    @Test
+    void testViewportKeepsOtherEndOfCrossingEdges() {
+        GraphNode billing = byId(tree.view(1, null)).get("com.example.billing");
+        Viewport aroundBilling = new Viewport(billing.x() - 1, billing.y() - 1, billing.x() + 1, billing.y() + 1);
+
+        DependencyGraph graph = tree.view(1, aroundBilling);
+
+        assertEquals(Map.of("com.example.billing", true, "com.example.orders", true),
+                graph.nodes().stream().collect(Collectors.toMap(GraphNode::id, _ -> true)));
+        assertEquals(1, graph.edges().size());
+    }
+
+    private static Map<String, GraphNode> byId(DependencyGraph graph) {
+        return graph.nodes().stream().collect(Collectors.toMap(GraphNode::id, Function.identity()));
+    }
+}
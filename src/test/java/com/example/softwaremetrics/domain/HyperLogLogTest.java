@@ -0,0 +1,61 @@
+package com.example.softwaremetrics.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void testEstimatesStayWithinErrorBounds() {
+        for (int cardinality : new int[]{10, 1_000, 100_000}) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            for (int i = 0; i < cardinality; i++) {
+                sketch.add("com.example.pkg" + (i % 97) + ".Class" + i);
+                sketch.add("com.example.pkg" + (i % 97) + ".Class" + i);
+            }
+            double error = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+            assertTrue(error <= 3 * sketch.relativeStandardError(),
+                    "estimate " + sketch.estimate() + " for " + cardinality);
+        }
+    }
+
+    @Test
+    void testMergedSketchEstimatesUnion() {
+        HyperLogLog left = new HyperLogLog(14);
+        HyperLogLog right = new HyperLogLog(14);
+        HyperLogLog union = new HyperLogLog(14);
+        for (int i = 0; i < 30_000; i++) {
+            String name = "com.example.Class" + i;
+            if (i < 20_000) left.add(name);
+            if (i >= 10_000) right.add(name);
+            union.add(name);
+        }
+
+        left.merge(right);
+
+        assertEquals(union.estimate(), left.estimate());
+        assertArrayEquals(union.toByteArray(), HyperLogLog.fromByteArray(left.toByteArray()).toByteArray());
+        assertThrows(IllegalArgumentException.class, () -> left.merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void testSketchCounterEstimatesDistinctNames() {
+        SketchDependencyCounter counter = new SketchDependencyCounter(12);
+        for (int i = 0; i < 1000; i++) {
+            counter.add("com.example.Class" + i);
+            counter.add("com.example.Class" + i);
+        }
+        assertEquals(1000, counter.count(), 1000 * 0.1);
+        assertTrue(counter.toString().endsWith("(estimated)"));
+    }
+
+    @Test
+    void testPrecisionForRelativeError() {
+        assertEquals(12, HyperLogLog.precisionFor(0.02));
+        assertEquals(14, HyperLogLog.precisionFor(0.01));
+        assertEquals(HyperLogLog.MAX_PRECISION, HyperLogLog.precisionFor(0.0001));
+        assertTrue(new HyperLogLog(HyperLogLog.precisionFor(0.02)).relativeStandardError() <= 0.02);
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.precisionFor(0));
+    }
+}
@@ -10,6 +10,7 @@ import org.objectweb.asm.Opcodes;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -61,8 +62,8 @@ class JavaClassAnalyzerTest {
 
         // Prepare input for analyzeClasses
         List<String> packages = Arrays.asList("com.example.anothersubpackage", "com.example.subpackage");
-        Map<String, Set<String>> outgoingDependencies = new ConcurrentHashMap<>();
-        Map<String, Set<String>> incomingDependencies = new ConcurrentHashMap<>();
+        Map<String, DependencyCounter> outgoingDependencies = new ConcurrentHashMap<>();
+        Map<String, DependencyCounter> incomingDependencies = new ConcurrentHashMap<>();
         Map<String, Integer> abstractClassCount = new HashMap<>();
         Map<String, Integer> totalClassCount = new HashMap<>();
 
@@ -75,18 +76,44 @@ class JavaClassAnalyzerTest {
         assertEquals(1, totalClassCount.get("com.example.subpackage"));
         assertNull(abstractClassCount.get("com.example.subpackage"));
 
-        assertTrue(outgoingDependencies.get("com.example.anothersubpackage").contains("com.example.subpackage.ClassC"));
-        assertTrue(outgoingDependencies.get("com.example.subpackage").contains("com.example.anothersubpackage.ClassA"));
-        assertTrue(incomingDependencies.get("com.example.anothersubpackage").contains("com.example.subpackage.ClassC"));
-        assertTrue(incomingDependencies.get("com.example.subpackage").contains("com.example.anothersubpackage.ClassA"));
+        assertTrue(names(outgoingDependencies, "com.example.anothersubpackage").contains("com.example.subpackage.ClassC"));
+        assertTrue(names(outgoingDependencies, "com.example.subpackage").contains("com.example.anothersubpackage.ClassA"));
+        assertTrue(names(incomingDependencies, "com.example.anothersubpackage").contains("com.example.subpackage.ClassC"));
+        assertTrue(names(incomingDependencies, "com.example.subpackage").contains("com.example.anothersubpackage.ClassA"));
 
-        assertEquals(1, outgoingDependencies.get("com.example.anothersubpackage").size());
-        assertEquals(1, outgoingDependencies.get("com.example.subpackage").size());
-        assertEquals(1, incomingDependencies.get("com.example.anothersubpackage").size());
-        assertEquals(2, incomingDependencies.get("com.example.subpackage").size());
+        assertEquals(1, outgoingDependencies.get("com.example.anothersubpackage").count());
+        assertEquals(1, outgoingDependencies.get("com.example.subpackage").count());
+        assertEquals(1, incomingDependencies.get("com.example.anothersubpackage").count());
+        assertEquals(2, incomingDependencies.get("com.example.subpackage").count());
 
         // Verify that java.lang dependencies are not included
-        assertFalse(outgoingDependencies.get("com.example.anothersubpackage").contains("java.lang.String"));
+        assertFalse(names(outgoingDependencies, "com.example.anothersubpackage").contains("java.lang.String"));
+    }
+
+    @Test
+    void testAnalyzeClassesStopsAtClassFileQuota(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 5; i++) {
+            createTestClass(tempDir, "com/example/subpackage/Class" + i + ".class", "com.example.subpackage.Class" + i, false, "com.example.other.Target");
+        }
+        List<String> packages = List.of("com.example.subpackage");
+        ScanContext context = ScanContext.withLimits(null, 3, 0);
+
+        ScanLimitExceededException e = assertThrows(ScanLimitExceededException.class, () ->
+                javaClassAnalyzer.analyzeClasses(tempDir, packages, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
+                        new HashMap<>(), new HashMap<>(), context));
+        assertTrue(e.getMessage().contains("3 class files"));
+        assertEquals(4, context.getFileCount());
+    }
+
+    @Test
+    void testAnalyzeClassesStopsAtDeadline(@TempDir Path tempDir) throws IOException {
+        createTestClass(tempDir, "com/example/subpackage/ClassA.class", "com.example.subpackage.ClassA", false, "com.example.other.Target");
+        ScanContext context = ScanContext.withLimits(Duration.ZERO, 0, 0);
+
+        assertThrows(ScanLimitExceededException.class, () ->
+                javaClassAnalyzer.analyzeClasses(tempDir, List.of("com.example.subpackage"), new ConcurrentHashMap<>(),
+                        new ConcurrentHashMap<>(), new HashMap<>(), new HashMap<>(), context));
+        assertEquals(0, context.getFileCount());
     }
 
     private void createTestClass(Path baseDir, String classPath, String className, boolean isAbstract, String dependencyClass) throws IOException {
@@ -149,4 +176,8 @@ class JavaClassAnalyzerTest {
         Files.createDirectories(fullPath.getParent());
         Files.write(fullPath, cw.toByteArray());
     }
-}
\ No newline at end of file
+
+    private static Set<String> names(Map<String, DependencyCounter> dependencies, String pkg) {
+        return ((ExactDependencyCounter) dependencies.get(pkg)).names();
+    }
+}
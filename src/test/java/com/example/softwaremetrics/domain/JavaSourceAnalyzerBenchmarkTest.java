@@ -0,0 +1,76 @@
+package com.example.softwaremetrics.domain;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Times source-only scans of a generated, uncompiled project. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class JavaSourceAnalyzerBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JavaSourceAnalyzerBenchmarkTest.class);
+
+    private static final int SOURCE_COUNT = Integer.getInteger("benchmark.sources", 20_000);
+    private static final int ITERATIONS = 5;
+
+    @TempDir
+    static Path projectDir;
+
+    private static List<String> modules;
+
+    @BeforeAll
+    static void generateProject() throws IOException {
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            String module = "module" + (i % 20);
+            Path file = projectDir.resolve("src/main/java/com/example/" + module + "/Class" + i + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, """
+                    package com.example.%1$s;
+
+                    import com.example.module%2$d.Class%3$d;
+                    import org.library.Helper%4$d;
+                    import java.util.List;
+
+                    /**
+                     * Generated class %3$d.
+                     */
+                    public %5$sclass Class%6$d {
+                        private final List<Class%3$d> next = List.of();
+
+                        public Helper%4$d helper(String name) {
+                            // look the helper up by name
+                            return Helper%4$d.forName("helper-" + name);
+                        }
+                    }
+                    """.formatted(module, (i + 1) % 20, i + 1, i % 50, i % 7 == 0 ? "abstract " : "", i));
+        }
+        modules = IntStream.range(0, 20).mapToObj(i -> "com.example.module" + i).sorted().toList();
+    }
+
+    @Test
+    void sourceScan() {
+        ScanProperties properties = new ScanProperties();
+        properties.setEngine(ScanProperties.Engine.SOURCE);
+        PackageMetricsCalculator calculator = new PackageMetricsCalculator(new JavaClassAnalyzer(), properties);
+        calculator.calculateMetrics(projectDir, modules); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            calculator.calculateMetrics(projectDir, modules);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        logger.info("source scan of {} files: {} ms, {} files/s", SOURCE_COUNT, best / 1_000_000,
+                SOURCE_COUNT * 1_000_000_000L / best);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.softwaremetrics.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaSourceAnalyzerTest {
+
+    private static final List<String> MODULES = List.of("com.example.billing", "com.example.orders", "com.example.shared");
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void testParseSkipsCommentsAndLiterals() {
+        String source = """
+                package com.example.orders;
+
+                import com.example.billing.Invoice;
+                import com.example.billing.Unused;
+                import java.util.Map;
+                import com.example.shared.*;
+                import static com.example.billing.Rates.DEFAULT_RATE;
+
+                /** Mentions class Ghost and com.example.billing.Hidden in a comment. */
+                @Service
+                public abstract class Order extends BaseEntity implements Comparable<Order> {
+                    private final String text = "class Phantom { com.example.billing.Hidden }";
+                    private final String block = \"""
+                            interface Phantom {}
+                            \""";
+                    private final char quote = '"';
+                    private double rate = 1.5e-3;
+                    private Invoice invoice;
+                    private com.example.billing.Payment payment;
+                    private Invoice.Status status = Invoice.Status.OPEN;
+                    private Map.Entry<String, Money> entry;
+                    private int limit = Integer.MAX_VALUE;
+
+                    abstract void ship();
+
+                    interface Listener {}
+
+                    record Line(String sku, int quantity) {}
+
+                    void log(Object record) {
+                        Class<?> type = Order.class;
+                        java.util.List<Money> totals = java.util.List.of();
+                    }
+                }
+                """;
+        char[] chars = source.toCharArray();
+
+        JavaSourceAnalyzer.SourceFile file = JavaSourceAnalyzer.parse(chars, chars.length, "Order");
+
+        assertEquals("com.example.orders", file.packageName());
+        assertEquals("com.example.orders.Order", file.className());
+        assertEquals(List.of("Order"), file.topLevelTypes());
+        assertEquals(3, file.typeCount());
+        assertEquals(2, file.abstractTypeCount());
+        assertEquals(List.of("com.example.shared"), file.onDemandImports());
+        assertEquals(Set.of("com.example.billing.Rates"), file.staticImportClasses());
+        assertTrue(file.references().containsAll(List.of("Invoice", "BaseEntity", "Money", "com.example.billing.Payment",
+                "Invoice$Status", "Map$Entry", "Integer")));
+        assertFalse(file.references().contains("Service"));
+        assertFalse(file.references().contains("Integer$MAX_VALUE"));
+        assertFalse(file.references().contains("Ghost"));
+        assertFalse(file.references().contains("Phantom"));
+        assertFalse(file.references().contains("com.example.billing.Hidden"));
+
+        Set<String> dependencies = JavaSourceAnalyzer.resolve(file, Map.of(
+                "com.example.shared", Set.of("BaseEntity", "Money"),
+                "com.example.orders", Set.of("Order")));
+        assertTrue(dependencies.containsAll(List.of("com.example.billing.Invoice", "com.example.billing.Payment",
+                "com.example.billing.Rates", "com.example.shared.BaseEntity", "com.example.shared.Money",
+                "com.example.billing.Invoice$Status", "java.util.Map$Entry")));
+        assertFalse(dependencies.contains("com.example.billing.Unused"));
+        assertFalse(dependencies.contains("com.example.orders.Order"));
+    }
+
+    @Test
+    void testUnreadableSourceFileIsSkipped() {
+        // e.g. deleted or made unreadable between the walk and the parse
+        assertNull(new JavaSourceAnalyzer().parse(projectDir.resolve("com/example/orders/Missing.java"), ScanContext.unbounded()));
+    }
+
+    @Test
+    void testSourceEngineMatchesBytecodeEngine() throws IOException {
+        writeSource("com/example/shared/Money.java", """
+                package com.example.shared;
+                public record Money(long cents) {}
+                """);
+        writeSource("com/example/shared/Entity.java", """
+                package com.example.shared;
+                public interface Entity { String id(); }
+                """);
+        writeSource("com/example/billing/Invoice.java", """
+                package com.example.billing;
+                import com.example.shared.*;
+                public class Invoice {
+                    private Money total;
+                    public boolean belongsTo(Entity owner) { return owner != null; }
+                    public Money getTotal() { return total; }
+                }
+                """);
+        writeSource("com/example/billing/AbstractTax.java", """
+                package com.example.billing;
+                public abstract class AbstractTax {
+                    public abstract com.example.shared.Money apply(Invoice invoice);
+                }
+                """);
+        writeSource("com/example/orders/Order.java", """
+                package com.example.orders;
+                import com.example.billing.Invoice;
+                import com.example.shared.Money;
+                public class Order {
+                    public Money total(Invoice invoice) { return invoice.getTotal(); }
+                }
+                """);
+        compile();
+
+        ScanProperties sourceProperties = new ScanProperties();
+        sourceProperties.setEngine(ScanProperties.Engine.SOURCE);
+        Map<String, PackageMetrics> fromSource = new PackageMetricsCalculator(new JavaClassAnalyzer(), sourceProperties)
+                .calculateMetrics(projectDir, MODULES);
+        Map<String, PackageMetrics> fromBytecode = new PackageMetricsCalculator(new JavaClassAnalyzer())
+                .calculateMetrics(projectDir.resolve("target/classes"), MODULES);
+
+        for (String module : MODULES) {
+            PackageMetrics source = fromSource.get(module);
+            PackageMetrics bytecode = fromBytecode.get(module);
+            assertEquals(Set.copyOf(bytecode.getEfferentDependencies()), Set.copyOf(source.getEfferentDependencies()), module);
+            assertEquals(Set.copyOf(bytecode.getAfferentDependencies()), Set.copyOf(source.getAfferentDependencies()), module);
+            assertEquals(bytecode.getTotalClassCount(), source.getTotalClassCount(), module);
+            assertEquals(bytecode.getAbstractClassCount(), source.getAbstractClassCount(), module);
+        }
+        assertEquals(3, fromSource.get("com.example.shared").getCa());
+    }
+
+    @Test
+    void testPriorityListenerGetsCopiesInPriorityOrder() throws IOException {
+        writeSource("com/example/billing/Invoice.java", "package com.example.billing; public class Invoice {}");
+        writeSource("com/example/orders/Order.java", """
+                package com.example.orders;
+                import com.example.billing.Invoice;
+                public class Order { Invoice invoice; }
+                """);
+        writeSource("com/example/shared/Money.java", "package com.example.shared; public class Money {}");
+        ScanProperties sourceProperties = new ScanProperties();
+        sourceProperties.setEngine(ScanProperties.Engine.SOURCE);
+        List<String> priorityModules = List.of("com.example.shared", "com.example.orders", "com.example.billing");
+        List<Map<String, PackageMetrics>> priority = new ArrayList<>();
+
+        Map<String, PackageMetrics> metrics = new PackageMetricsCalculator(new JavaClassAnalyzer(), sourceProperties)
+                .calculateMetrics(projectDir, MODULES, priorityModules, priority::add, ScanContext.unbounded());
+
+        assertEquals(priorityModules, List.copyOf(priority.get(0).keySet()));
+        PackageMetrics orders = priority.get(0).get("com.example.orders");
+        assertNotSame(metrics.get("com.example.orders"), orders, "the published priority metrics must not change with the full ones");
+        assertEquals(metrics.get("com.example.orders").getCe(), orders.getCe());
+        metrics.get("com.example.orders").setArtifactDependencies(Map.of("org.acme:widgets", 1));
+        assertEquals(Map.of(), orders.getArtifactDependencies());
+    }
+
+    private void writeSource(String path, String content) throws IOException {
+        Path file = projectDir.resolve("src/main/java").resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private void compile() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments = new ArrayList<>(List.of("-d", projectDir.resolve("target/classes").toString()));
+        try (var walk = Files.walk(projectDir.resolve("src/main/java"))) {
+            walk.filter(p -> p.toString().endsWith(".java")).forEach(p -> arguments.add(p.toString()));
+        }
+        assertEquals(0, compiler.run(null, null, null, arguments.toArray(String[]::new)));
+    }
+}
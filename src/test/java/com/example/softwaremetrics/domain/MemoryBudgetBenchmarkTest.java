@@ -0,0 +1,106 @@
+package com.example.softwaremetrics.domain;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Scans a generated project of {@code -Dbenchmark.classes=N} classes (default 500000) in a separate
+ * JVM with a 512 MB heap, once with a dependency memory budget and once without. The budgeted scan
+ * must complete; the unbounded one is only reported. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class MemoryBudgetBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryBudgetBenchmarkTest.class);
+
+    private static final int CLASS_COUNT = Integer.getInteger("benchmark.classes", 500_000);
+    private static final int MODULE_COUNT = 20;
+    private static final String HEAP = "512m";
+    private static final String BUDGET = "64MB";
+
+    @TempDir
+    static Path tempDir;
+
+    private static Path projectDir;
+
+    @BeforeAll
+    static void generateProject() throws IOException {
+        projectDir = tempDir.resolve("project");
+        long start = System.nanoTime();
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            int module = i % MODULE_COUNT;
+            String[] dependencies = new String[8];
+            for (int d = 0; d < dependencies.length; d++) {
+                int target = (int) ((i * 31L + d * 2_654_435_761L) % CLASS_COUNT);
+                dependencies[d] = "com.example.module" + (target % MODULE_COUNT) + ".Class" + target;
+            }
+            TestClassFiles.write(projectDir.resolve("com/example/module" + module + "/Class" + i + ".class"),
+                    "com.example.module" + module + ".Class" + i, i % 5 == 0, dependencies);
+        }
+        logger.info("generated {} classes in {} ms", CLASS_COUNT, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    void scanWithinHeap() throws Exception {
+        int budgeted = scan(BUDGET);
+        int unbounded = scan("0");
+        logger.info("-Xmx{}: scan with a {} budget exited with {}, unbounded scan with {}", HEAP, BUDGET, budgeted, unbounded);
+        assertEquals(0, budgeted, "Scan with a memory budget should fit in a " + HEAP + " heap");
+    }
+
+    private static int scan(String budget) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(argument -> argument.startsWith("--enable-preview"))
+                .forEach(command::add);
+        command.addAll(List.of("-Xmx" + HEAP, "-XX:+ExitOnOutOfMemoryError", "-cp", System.getProperty("java.class.path"),
+                MemoryBudgetBenchmarkTest.class.getName(), projectDir.toString(), budget,
+                tempDir.resolve("spill").toString()));
+        Path log = Files.createTempFile(tempDir, "scan-", ".log");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        int exitCode = process.waitFor();
+        logger.info("budget {}: {} ms, exit code {}, {}", budget, (System.nanoTime() - start) / 1_000_000, exitCode,
+                Files.readAllLines(log).stream().filter(line -> line.startsWith("heap") || line.contains("OutOfMemory")).toList());
+        return exitCode;
+    }
+
+    /**
+     * Entry point of the scanning JVM: project directory, memory budget and spill directory.
+     */
+    public static void main(String[] args) {
+        ScanProperties properties = new ScanProperties();
+        properties.setMemoryBudget(DataSize.parse(args[1]));
+        properties.setSpillDirectory(Path.of(args[2]));
+        List<String> modules = IntStream.range(0, MODULE_COUNT).mapToObj(i -> "com.example.module" + i).toList();
+        Map<String, PackageMetrics> metrics = new PackageMetricsCalculator(new JavaClassAnalyzer(), properties)
+                .calculateMetrics(Path.of(args[0]), modules);
+        long peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .map(MemoryPoolMXBean::getPeakUsage)
+                .mapToLong(MemoryUsage::getUsed)
+                .sum();
+        int ca = metrics.values().stream().mapToInt(PackageMetrics::getCa).sum();
+        System.out.println("heap peak " + peakHeap / (1024 * 1024) + " MB, total Ca " + ca);
+    }
+}
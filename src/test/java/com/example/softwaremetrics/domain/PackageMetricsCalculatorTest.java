@@ -14,9 +14,13 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PackageMetricsCalculatorTest {
 
@@ -57,6 +61,75 @@ class PackageMetricsCalculatorTest {
         logger.info("testCalculateMetrics completed successfully");
     }
 
+    @Test
+    void testApproximateMetricsCarryConfidenceIntervals() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            TestClassFiles.write(tempDir.resolve("com/example/orders/Order" + i + ".class"),
+                    "com.example.orders.Order" + i, false, "com.example.billing.Invoice" + (i % 10));
+        }
+        for (int i = 0; i < 10; i++) {
+            TestClassFiles.write(tempDir.resolve("com/example/billing/Invoice" + i + ".class"),
+                    "com.example.billing.Invoice" + i, i == 0);
+        }
+        ScanProperties properties = new ScanProperties();
+        properties.setApproximate(true);
+        PackageMetricsCalculator approximateCalculator = new PackageMetricsCalculator(new JavaClassAnalyzer(), properties);
+
+        Map<String, PackageMetrics> metrics = approximateCalculator.calculateMetrics(tempDir,
+                Arrays.asList("com.example.orders", "com.example.billing"));
+
+        PackageMetrics orders = metrics.get("com.example.orders");
+        PackageMetrics billing = metrics.get("com.example.billing");
+        assertTrue(orders.isApproximate());
+        assertEquals(10, orders.getCe());
+        assertEquals(50, billing.getCa());
+        assertTrue(orders.getCeLowerBound() <= 10 && orders.getCeUpperBound() >= 10);
+        assertTrue(billing.getCaLowerBound() <= 50 && billing.getCaUpperBound() >= 50);
+        assertEquals(1.0, orders.getInstabilityLowerBound());
+        assertEquals(0.0, billing.getInstabilityUpperBound());
+        assertTrue(orders.getEfferentDependencies().isEmpty());
+        assertEquals(0.1, billing.getAbstractness());
+    }
+
+    @Test
+    void testPriorityModulesAreFinalBeforeTheRestIsAnalyzed() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            TestClassFiles.write(tempDir.resolve("com/example/orders/Order" + i + ".class"),
+                    "com.example.orders.Order" + i, i % 4 == 0, "com.example.billing.Invoice" + (i % 5));
+            TestClassFiles.write(tempDir.resolve("com/example/billing/Invoice" + i + ".class"),
+                    "com.example.billing.Invoice" + i, false, "com.example.shipping.Parcel" + (i % 3));
+            TestClassFiles.write(tempDir.resolve("com/example/shipping/Parcel" + i + ".class"),
+                    "com.example.shipping.Parcel" + i, i == 0, "com.example.billing.Invoice" + i);
+            TestClassFiles.write(tempDir.resolve("com/example/reports/Report" + i + ".class"),
+                    "com.example.reports.Report" + i, false, "com.example.shipping.Parcel" + i);
+        }
+        List<String> modules = List.of("com.example.orders", "com.example.billing", "com.example.shipping", "com.example.reports");
+        Map<String, PackageMetrics> expected = calculator.calculateMetrics(tempDir, modules);
+
+        ScanContext context = ScanContext.unbounded();
+        AtomicReference<Map<String, PackageMetrics>> priority = new AtomicReference<>();
+        AtomicLong filesBeforePriority = new AtomicLong();
+        Map<String, PackageMetrics> metrics = calculator.calculateMetrics(tempDir, modules, List.of("com.example.billing"),
+                priorityMetrics -> {
+                    priority.set(priorityMetrics);
+                    filesBeforePriority.set(context.getFileCount());
+                }, context);
+
+        assertEquals(Set.of("com.example.billing"), priority.get().keySet());
+        PackageMetrics billing = priority.get().get("com.example.billing");
+        PackageMetrics expectedBilling = expected.get("com.example.billing");
+        assertEquals(expectedBilling.getCa(), billing.getCa());
+        assertEquals(expectedBilling.getCe(), billing.getCe());
+        assertEquals(expectedBilling.getAbstractness(), billing.getAbstractness());
+        assertEquals(expectedBilling.getInstability(), billing.getInstability());
+        assertTrue(filesBeforePriority.get() < 80, "reports classes neither belong to nor refer to billing");
+        for (String module : modules) {
+            assertEquals(expected.get(module).getCa(), metrics.get(module).getCa(), module);
+            assertEquals(expected.get(module).getCe(), metrics.get(module).getCe(), module);
+            assertEquals(expected.get(module).getAbstractness(), metrics.get(module).getAbstractness(), module);
+        }
+    }
+
     private void createMockProjectStructure() throws IOException {
         logger.info("Creating mock project structure in {}", tempDir);
 
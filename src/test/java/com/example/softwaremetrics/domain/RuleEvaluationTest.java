@@ -0,0 +1,126 @@
+package com.example.softwaremetrics.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleEvaluationTest {
+
+    private static final List<String> MODULES = List.of("com.example.billing", "com.example.orders", "com.example.shipping");
+
+    @Test
+    void testParseRejectsInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> ArchitectureRules.parse(List.of("allow a -> b")));
+        assertThrows(IllegalArgumentException.class, () -> ArchitectureRules.parse(List.of("deny orders billing")));
+        assertThrows(IllegalArgumentException.class, () -> ArchitectureRules.parse(List.of("max-distance high")));
+        assertTrue(ArchitectureRules.parse(List.of("# nothing yet", "")).isEmpty());
+    }
+
+    @Test
+    void testOnlyDenyAndNoCyclesRulesNeedDependencies() {
+        assertFalse(ArchitectureRules.parse(List.of("max-distance 0.4")).hasDependencyRules());
+        assertTrue(ArchitectureRules.parse(List.of("max-distance 0.4", "no-cycles")).hasDependencyRules());
+        assertTrue(ArchitectureRules.parse(List.of("deny orders -> billing")).hasDependencyRules());
+    }
+
+    @Test
+    void testDenyRuleMatchesRelativeAndQualifiedPackages() {
+        RuleEvaluation evaluation = ArchitectureRules.parse(List.of(
+                "deny orders -> billing.internal",
+                "deny com.example.shipping -> org.hibernate"
+        )).compile(MODULES, 10, false);
+
+        evaluation.onDependency("com.example.orders", "com.example.orders.Order", "com.example.billing", "com.example.billing.Invoice");
+        evaluation.onDependency("com.example.orders", "com.example.orders.Order", "com.example.billing", "com.example.billing.internal.Ledger");
+        evaluation.onDependency("com.example.shipping", "com.example.shipping.Parcel", null, "org.hibernate.Session");
+        evaluation.onDependency("com.example.billing", "com.example.billing.Invoice", "com.example.billing", "com.example.billing.internal.Ledger");
+
+        assertEquals(2, evaluation.getViolationCount());
+        assertEquals("com.example.billing.internal.Ledger", evaluation.getViolations().get(0).target());
+        assertEquals("deny com.example.shipping -> org.hibernate", evaluation.getViolations().get(1).rule());
+    }
+
+    @Test
+    void testDenyRuleForAModuleTheProjectLacksIsSkipped() {
+        RuleEvaluation evaluation = ArchitectureRules.parse(List.of("deny inventory -> billing"))
+                .compile(MODULES, 10, false);
+
+        evaluation.onDependency("com.example.orders", "com.example.orders.Order", "com.example.billing", "com.example.billing.Invoice");
+        assertEquals(0, evaluation.getViolationCount());
+    }
+
+    @Test
+    void testDenyRuleWithinOneModuleIsSkipped() {
+        RuleEvaluation inside = ArchitectureRules.parse(List.of("deny billing.api -> billing.internal"))
+                .compile(MODULES, 10, false);
+        inside.onDependency("com.example.billing", "com.example.billing.api.Invoice", "com.example.billing", "com.example.billing.internal.Ledger");
+        assertEquals(0, inside.getViolationCount());
+
+        // a source spanning several modules keeps checking the edges that leave them
+        RuleEvaluation evaluation = ArchitectureRules.parse(List.of("deny com.example -> billing.internal"))
+                .compile(MODULES, 10, false);
+        evaluation.onDependency("com.example.orders", "com.example.orders.Order", "com.example.billing", "com.example.billing.internal.Ledger");
+        assertEquals(1, evaluation.getViolationCount());
+    }
+
+    @Test
+    void testCycleIsReportedWhenClosingEdgeAppears() {
+        RuleEvaluation evaluation = ArchitectureRules.parse(List.of("no-cycles")).compile(MODULES, 10, false);
+
+        evaluation.onDependency("com.example.orders", "com.example.orders.Order", "com.example.billing", "com.example.billing.Invoice");
+        evaluation.onDependency("com.example.billing", "com.example.billing.Invoice", "com.example.shipping", "com.example.shipping.Parcel");
+        assertEquals(0, evaluation.getViolationCount());
+
+        evaluation.onDependency("com.example.shipping", "com.example.shipping.Parcel", "com.example.orders", "com.example.orders.Order");
+        evaluation.onDependency("com.example.shipping", "com.example.shipping.Label", "com.example.orders", "com.example.orders.Order");
+
+        assertEquals(1, evaluation.getViolationCount());
+        assertEquals("Cycle between modules: com.example.shipping -> com.example.orders -> com.example.billing -> com.example.shipping",
+                evaluation.getViolations().getFirst().message());
+    }
+
+    @Test
+    void testMaxDistanceAndViolationCap() {
+        RuleEvaluation evaluation = ArchitectureRules.parse(List.of("max-distance 0.4")).compile(MODULES, 1, false);
+        Map<String, PackageMetrics> metrics = new HashMap<>();
+        for (String module : MODULES) {
+            PackageMetrics packageMetrics = new PackageMetrics();
+            packageMetrics.setPackageName(module);
+            packageMetrics.setDistance(module.endsWith("orders") ? 0.2 : 0.9);
+            metrics.put(module, packageMetrics);
+        }
+
+        evaluation.checkMetrics(metrics);
+
+        assertEquals(2, evaluation.getViolationCount());
+        assertEquals(1, evaluation.getViolations().size());
+        assertEquals("com.example.billing", evaluation.getViolations().getFirst().source());
+    }
+
+    @Test
+    void testFailFastStopsTheScanInline(@TempDir Path tempDir) throws IOException {
+        TestClassFiles.write(tempDir.resolve("com/example/orders/Order.class"),
+                "com.example.orders.Order", false, "com.example.billing.internal.Ledger");
+        TestClassFiles.write(tempDir.resolve("com/example/billing/internal/Ledger.class"),
+                "com.example.billing.internal.Ledger", false);
+        ScanContext context = ScanContext.unbounded();
+        context.addDependencyObserver(ArchitectureRules.parse(List.of("deny orders -> billing.internal"))
+                .compile(MODULES, 10, true));
+        Map<String, DependencyCounter> outgoing = new ConcurrentHashMap<>();
+        Map<String, DependencyCounter> incoming = new ConcurrentHashMap<>();
+
+        ArchitectureViolationException e = assertThrows(ArchitectureViolationException.class,
+                () -> new JavaClassAnalyzer().analyzeClasses(tempDir, MODULES, outgoing, incoming,
+                        new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), context));
+
+        assertEquals("com.example.orders.Order", e.getViolation().source());
+    }
+}
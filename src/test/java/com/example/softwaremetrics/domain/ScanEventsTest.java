@@ -0,0 +1,71 @@
+package com.example.softwaremetrics.domain;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEventsAreDisabledByDefault() {
+        FlightRecorder.register(ScanEvents.FileAnalysis.class);
+        FlightRecorder.register(ScanEvents.ScanPhase.class);
+        FlightRecorder.register(ScanEvents.CacheLookup.class);
+        for (Class<?> type : List.of(ScanEvents.FileAnalysis.class, ScanEvents.ScanPhase.class, ScanEvents.CacheLookup.class)) {
+            assertFalse(EventType.getEventType(type.asSubclass(jdk.jfr.Event.class)).isEnabled(), type.getSimpleName());
+        }
+        assertFalse(new ScanEvents.FileAnalysis().isEnabled());
+    }
+
+    @Test
+    void testRecordsFileAnalysisAndPhases() throws Exception {
+        Path classes = tempDir.resolve("project/target/classes");
+        TestClassFiles.write(classes.resolve("com/example/orders/Order.class"), "com.example.orders.Order", false,
+                "com.example.billing.Invoice", "java.util.ArrayList");
+        TestClassFiles.write(classes.resolve("com/example/billing/Invoice.class"), "com.example.billing.Invoice", true);
+        PackageMetricsCalculator calculator = new PackageMetricsCalculator(new JavaClassAnalyzer());
+
+        Path dump = tempDir.resolve("scan.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ScanEvents.FileAnalysis.class);
+            recording.enable(ScanEvents.ScanPhase.class);
+            recording.start();
+            calculator.calculateMetrics(tempDir.resolve("project"), List.of("com.example.orders", "com.example.billing"));
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Map<String, RecordedEvent> files = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.example.softwaremetrics.FileAnalysis"))
+                .collect(Collectors.toMap(event -> event.getString("className"), event -> event));
+        assertEquals(Set.of("com.example.orders.Order", "com.example.billing.Invoice"), files.keySet());
+        RecordedEvent order = files.get("com.example.orders.Order");
+        assertEquals("bytecode", order.getString("engine"));
+        assertEquals("com.example.orders", order.getString("module"));
+        assertTrue(order.getString("path").endsWith("Order.class"));
+        assertTrue(order.getLong("bytes") > 0);
+        assertEquals(1, order.getInt("moduleDependencies"), "JDK types are not counted");
+
+        Set<String> phases = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.example.softwaremetrics.ScanPhase"))
+                .map(event -> event.getString("phase"))
+                .collect(Collectors.toSet());
+        assertTrue(phases.containsAll(Set.of("analyze", "compute-metrics")), phases.toString());
+    }
+}
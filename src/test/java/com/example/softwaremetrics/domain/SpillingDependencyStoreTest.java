@@ -0,0 +1,163 @@
+package com.example.softwaremetrics.domain;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SpillingDependencyStoreTest {
+
+    @Test
+    void testSetsStayInMemoryWithinBudget(@TempDir Path tempDir) throws IOException {
+        try (SpillingDependencyStore store = new SpillingDependencyStore(1024 * 1024, tempDir)) {
+            Set<String> set = store.newSet();
+            set.add("com.example.a.ClassA");
+            set.add("com.example.a.ClassA");
+            set.add("com.example.b.ClassB");
+
+            assertEquals(2, set.size());
+            assertTrue(set.contains("com.example.b.ClassB"));
+            try (var files = Files.list(tempDir)) {
+                assertEquals(0, files.count());
+            }
+        }
+    }
+
+    @Test
+    void testSpilledSetsAreMergedAndDeduplicated(@TempDir Path tempDir) throws IOException {
+        try (SpillingDependencyStore store = new SpillingDependencyStore(2048, tempDir)) {
+            Set<String> outgoing = store.newSet();
+            Set<String> incoming = store.newSet();
+            Set<String> expectedOutgoing = new TreeSet<>();
+            for (int i = 0; i < 500; i++) {
+                String name = "com.example.orders.Class" + (i % 200);
+                outgoing.add(name);
+                expectedOutgoing.add(name);
+                incoming.add("com.example.billing.Class" + i);
+            }
+
+            assertTrue(store.getBufferedBytes() <= 2048);
+            assertEquals(200, outgoing.size());
+            assertEquals(500, incoming.size());
+            assertEquals(new ArrayList<>(expectedOutgoing), new ArrayList<>(outgoing));
+            assertTrue(outgoing.contains("com.example.orders.Class7"));
+            assertFalse(outgoing.contains("com.example.orders.Missing"));
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count(), "Spill files should be removed on close");
+        }
+    }
+
+    @Test
+    void testContainsFindsNamesInEveryBlockOfASpilledRun(@TempDir Path tempDir) {
+        try (SpillingDependencyStore store = new SpillingDependencyStore(4096, tempDir)) {
+            Set<String> set = store.newSet();
+            for (int i = 0; i < 5000; i++) {
+                set.add("com.example.orders.Class" + i);
+            }
+
+            for (int i = 0; i < 5000; i += 7) {
+                assertTrue(set.contains("com.example.orders.Class" + i), "Class" + i);
+            }
+            assertFalse(set.contains("com.example.orders.Class5000"));
+            assertFalse(set.contains("com.example.aaa.First"));
+            assertFalse(set.contains("com.example.zzz.Last"));
+
+            // add does not look into the runs, the merge drops the duplicate
+            set.add("com.example.orders.Class0");
+            assertEquals(5000, set.size());
+        }
+    }
+
+    @Test
+    void testConcurrentAddsToSpillingSets(@TempDir Path tempDir) throws Exception {
+        try (SpillingDependencyStore store = new SpillingDependencyStore(8192, tempDir);
+             ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Set<String>> sets = List.of(store.newSet(), store.newSet(), store.newSet(), store.newSet());
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        sets.get((thread + i) % sets.size()).add("com.example.Class" + i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertTrue(store.getBufferedBytes() <= 8192);
+            for (Set<String> set : sets) {
+                assertEquals(2000, set.size());
+            }
+        }
+    }
+
+    @Test
+    void testUnfinishedIteratorsAreClosedWithTheStore(@TempDir Path tempDir) throws Exception {
+        assumeTrue(ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean);
+        UnixOperatingSystemMXBean os = (UnixOperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long openBefore;
+        try (SpillingDependencyStore store = new SpillingDependencyStore(1024, tempDir)) {
+            Set<String> set = store.newSet();
+            for (int i = 0; i < 1000; i++) {
+                set.add("com.example.orders.Class" + i);
+            }
+            openBefore = os.getOpenFileDescriptorCount();
+            Iterator<String> closed = set.iterator();
+            closed.next();
+            ((AutoCloseable) closed).close();
+            assertEquals(openBefore, os.getOpenFileDescriptorCount());
+
+            Iterator<String> abandoned = set.iterator();
+            abandoned.next();
+            assertTrue(os.getOpenFileDescriptorCount() > openBefore);
+        }
+        assertEquals(openBefore, os.getOpenFileDescriptorCount());
+    }
+
+    @Test
+    void testCalculateMetricsWithMemoryBudget(@TempDir Path tempDir) throws IOException {
+        List<String> packages = List.of("com.example.orders", "com.example.billing");
+        for (int i = 0; i < 50; i++) {
+            TestClassFiles.write(tempDir.resolve("com/example/orders/Order" + i + ".class"),
+                    "com.example.orders.Order" + i, false, "com.example.billing.Invoice" + (i % 10));
+        }
+        for (int i = 0; i < 10; i++) {
+            TestClassFiles.write(tempDir.resolve("com/example/billing/Invoice" + i + ".class"),
+                    "com.example.billing.Invoice" + i, i == 0);
+        }
+
+        ScanProperties properties = new ScanProperties();
+        properties.setMemoryBudget(DataSize.ofBytes(512));
+        properties.setSpillDirectory(tempDir.resolve("spill"));
+        var budgeted = new PackageMetricsCalculator(new JavaClassAnalyzer(), properties).calculateMetrics(tempDir, packages);
+        var unbounded = new PackageMetricsCalculator(new JavaClassAnalyzer()).calculateMetrics(tempDir, packages);
+
+        for (String pkg : packages) {
+            assertEquals(unbounded.get(pkg).getCe(), budgeted.get(pkg).getCe());
+            assertEquals(unbounded.get(pkg).getCa(), budgeted.get(pkg).getCa());
+            assertEquals(new TreeSet<>(unbounded.get(pkg).getAfferentDependencies()),
+                    new TreeSet<>(budgeted.get(pkg).getAfferentDependencies()));
+        }
+        assertEquals(10, budgeted.get("com.example.orders").getCe());
+        assertEquals(50, budgeted.get("com.example.billing").getCa());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.softwaremetrics.domain;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes minimal class files whose single method instantiates the given dependencies.
+ */
+public final class TestClassFiles {
+
+    private TestClassFiles() {}
+
+    public static byte[] bytes(String className, boolean isAbstract, String... dependencies) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, isAbstract ? Opcodes.ACC_PUBLIC + Opcodes.ACC_ABSTRACT : Opcodes.ACC_PUBLIC,
+                className.replace('.', '/'), null, "java/lang/Object", null);
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "useDependencies", "()V", null, null);
+        mv.visitCode();
+        for (String dependency : dependencies) {
+            mv.visitTypeInsn(Opcodes.NEW, dependency.replace('.', '/'));
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, dependency.replace('.', '/'), "<init>", "()V", false);
+            mv.visitInsn(Opcodes.POP);
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(2, 1);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    public static void write(Path path, String className, boolean isAbstract, String... dependencies) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, bytes(className, isAbstract, dependencies));
+    }
+}
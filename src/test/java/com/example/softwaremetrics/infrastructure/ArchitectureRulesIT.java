@@ -0,0 +1,54 @@
+package com.example.softwaremetrics.infrastructure;
+
+import com.example.softwaremetrics.domain.TestClassFiles;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "scan.rules-file=src/test/resources/rules/server-wide.rules")
+@AutoConfigureMockMvc
+public class ArchitectureRulesIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testProjectWithoutTheModuleOfARuleIsScanned() throws Exception {
+        Path sources = tempDir.resolve("src/main/java/com/example");
+        Files.createDirectories(sources.resolve("orders"));
+        Files.createDirectories(sources.resolve("billing"));
+        Files.writeString(sources.resolve("TestApplication.java"),
+                """
+                        package com.example;
+
+                        @SpringBootApplication
+                        public class TestApplication {}
+                        """);
+        Path classes = tempDir.resolve("target/classes/com/example");
+        for (int i = 0; i < 3; i++) {
+            TestClassFiles.write(classes.resolve("orders/Order" + i + ".class"),
+                    "com.example.orders.Order" + i, false, "com.example.billing.Invoice");
+        }
+        TestClassFiles.write(classes.resolve("billing/Invoice.class"), "com.example.billing.Invoice", false);
+
+        // the project has no inventory module, so only the orders rule applies
+        mockMvc.perform(post("/api/scans").param("path", tempDir.toString()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.violationCount").value(3))
+                .andExpect(jsonPath("$.violations[0].rule").value("deny orders -> billing"));
+    }
+}
@@ -7,14 +7,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
@@ -49,6 +54,26 @@ public class PackageScannerControllerIT {
                 .andExpect(model().attribute("metrics", org.hamcrest.Matchers.hasKey("com.example.subpackage")));
     }
 
+    @Test
+    public void testScanWithFocusModulesPollsForTheRest() throws Exception {
+        MvcResult scan = mockMvc.perform(post("/scan").param("path", tempDir.toString())
+                        .param("priority", " com.example.subpackage "))
+                .andExpect(status().isOk())
+                .andExpect(view().name("graph :: graph"))
+                .andExpect(model().attribute("completion", org.hamcrest.Matchers.endsWith("/complete")))
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("hx-trigger=\"load\"")))
+                .andReturn();
+
+        MvcResult started = mockMvc.perform(get((String) scan.getModelAndView().getModel().get("completion")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(view().name("graph :: graph"))
+                .andExpect(header().string("HX-Retarget", "#result"))
+                .andExpect(model().attributeDoesNotExist("completion"));
+    }
+
     @Test
     public void testScanError() throws Exception {
         mockMvc.perform(post("/scan").param("path", "/non/existent/path"))
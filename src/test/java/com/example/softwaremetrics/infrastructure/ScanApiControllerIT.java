@@ -0,0 +1,266 @@
+package com.example.softwaremetrics.infrastructure;
+
+import com.example.softwaremetrics.domain.TestClassFiles;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ScanApiControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        createTestProject(tempDir);
+    }
+
+    @Test
+    public void testScanReturnsSummariesWithoutDependencyLists() throws Exception {
+        mockMvc.perform(post("/api/scans").param("path", tempDir.toString()))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.packages", hasSize(2)))
+                .andExpect(jsonPath("$.packages[0].packageName").value("com.example.billing"))
+                .andExpect(jsonPath("$.packages[0].ca").value(25))
+                .andExpect(jsonPath("$.packages[0]", not(hasKey("afferentDependencies"))));
+    }
+
+    @Test
+    public void testFieldSelection() throws Exception {
+        String scanId = scan();
+        mockMvc.perform(get("/api/scans/{id}/packages", scanId).param("fields", "packageName,instability"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].packageName").value("com.example.orders"))
+                .andExpect(jsonPath("$[1].instability").value(1.0))
+                .andExpect(jsonPath("$[1]", not(hasKey("ce"))));
+
+        mockMvc.perform(get("/api/scans/{id}/packages", scanId).param("fields", "bogus"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testDependencyPagesFollowCursor() throws Exception {
+        String scanId = scan();
+        List<String> collected = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/api/scans/{id}/packages/{pkg}/afferent", scanId, "com.example.billing").param("limit", "10");
+            if (cursor != null) request.param("cursor", cursor);
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            assertEquals(25, page.get("total").asInt());
+            page.get("items").forEach(item -> collected.add(item.asText()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(25, collected.size());
+        assertEquals(collected.stream().sorted().distinct().toList(), collected);
+    }
+
+    @Test
+    public void testArtifactsAreEmptyWithoutAttribution() throws Exception {
+        String scanId = scan();
+        mockMvc.perform(get("/api/scans/{id}/packages/{pkg}/artifacts", scanId, "com.example.orders"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/scans/{id}/packages/{pkg}/artifacts", scanId, "com.example.unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testProgressiveScanReturnsPriorityModulesFirst() throws Exception {
+        String body = mockMvc.perform(post("/api/scans").param("path", tempDir.toString())
+                        .param("priority", "com.example.billing"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.packages", hasSize(1)))
+                .andExpect(jsonPath("$.packages[0].packageName").value("com.example.billing"))
+                .andExpect(jsonPath("$.packages[0].ca").value(25))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode partial = objectMapper.readTree(body);
+        String completion = partial.get("completion").asText();
+        assertEquals("/api/scans/" + partial.get("id").asText() + "/complete", completion);
+
+        MockHttpServletResponse response = mockMvc.perform(get(completion)).andReturn().getResponse();
+        for (int i = 0; i < 100 && response.getStatus() == 202; i++) {
+            Thread.sleep(50);
+            response = mockMvc.perform(get(completion)).andReturn().getResponse();
+        }
+        assertEquals(303, response.getStatus());
+        mockMvc.perform(get(response.getRedirectedUrl()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.packages", hasSize(2)))
+                .andExpect(jsonPath("$", not(hasKey("completion"))));
+        // the full result takes the place of the priority result in the store
+        mockMvc.perform(get("/api/scans/{id}", partial.get("id").asText()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get(completion))
+                .andExpect(status().isSeeOther());
+
+        mockMvc.perform(post("/api/scans").param("path", tempDir.toString()).param("priority", "com.example.unknown"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("Unknown module: com.example.unknown"));
+        mockMvc.perform(get("/api/scans/{id}/complete", "does-not-exist"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testDependencyGraphLevelOfDetail() throws Exception {
+        String scanId = scan();
+        mockMvc.perform(get("/api/scans/{id}/packages/{pkg}/afferent/graph", scanId, "com.example.billing")
+                        .param("maxNodes", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.level").value(1))
+                .andExpect(jsonPath("$.maxLevel").value(2))
+                .andExpect(jsonPath("$.nodes", hasSize(2)))
+                .andExpect(jsonPath("$.nodes[1].label").value("com.example.orders"))
+                .andExpect(jsonPath("$.nodes[1].weight").value(25))
+                .andExpect(jsonPath("$.nodes[1].collapsed").value(true))
+                .andExpect(jsonPath("$.edges[0].weight").value(25));
+
+        mockMvc.perform(get("/api/scans/{id}/packages/{pkg}/afferent/graph", scanId, "com.example.billing")
+                        .param("level", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nodes", hasSize(27)));
+    }
+
+    @Test
+    public void testConditionalRequestIsNotModified() throws Exception {
+        String scanId = scan();
+        MvcResult result = mockMvc.perform(get("/api/scans/{id}", scanId))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = result.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/scans/{id}", scanId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testUnknownScanAndInvalidProject() throws Exception {
+        mockMvc.perform(get("/api/scans/{id}/packages", "does-not-exist"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/scans").param("path", "/non/existent/path"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").exists());
+    }
+
+    @Test
+    public void testExportTablesAsCsvAndNdjson() throws Exception {
+        String scanId = scan();
+        String edges = export(get("/api/scans/{id}/export/edges", scanId).param("format", "csv"), "text/csv")
+                .getContentAsString();
+        List<String> lines = edges.lines().toList();
+        assertEquals("sourceModule,sourceClass,targetModule,targetClass", lines.get(0));
+        assertEquals(26, lines.size());
+        assertTrue(lines.contains("com.example.orders,com.example.orders.Order7,com.example.billing,com.example.billing.Invoice"));
+
+        String packages = export(get("/api/scans/{id}/export/packages", scanId), "application/x-ndjson")
+                .getContentAsString();
+        List<String> rows = packages.lines().toList();
+        assertEquals(2, rows.size());
+        assertEquals("com.example.billing", objectMapper.readTree(rows.get(0)).get("packageName").asText());
+        assertEquals(25, objectMapper.readTree(rows.get(0)).get("ca").asInt());
+
+        mockMvc.perform(get("/api/scans/{id}/export/edges", scanId).param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testBinaryExportCanBeImportedAgain() throws Exception {
+        String scanId = scan();
+        byte[] archive = export(get("/api/scans/{id}/export", scanId), "application/octet-stream")
+                .getContentAsByteArray();
+
+        mockMvc.perform(post("/api/scans/import").contentType("application/octet-stream").content(archive))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(scanId))
+                .andExpect(jsonPath("$.packages[0].ca").value(25));
+        String edges = export(get("/api/scans/{id}/export/edges", scanId).param("format", "csv"), "text/csv")
+                .getContentAsString();
+        assertEquals(26, edges.lines().count());
+
+        mockMvc.perform(post("/api/scans/import").contentType("application/octet-stream")
+                        .content(Arrays.copyOf(archive, archive.length / 2)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletResponse export(RequestBuilder builder, String contentType) throws Exception {
+        MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith(contentType)))
+                .andReturn().getResponse();
+    }
+
+    private String scan() throws Exception {
+        String body = mockMvc.perform(post("/api/scans").param("path", tempDir.toString()))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asText();
+    }
+
+    private void createTestProject(Path projectRoot) throws IOException {
+        Path sources = projectRoot.resolve("src/main/java/com/example");
+        Files.createDirectories(sources.resolve("orders"));
+        Files.createDirectories(sources.resolve("billing"));
+        Files.writeString(sources.resolve("TestApplication.java"),
+                """
+                        package com.example;
+
+                        @SpringBootApplication
+                        public class TestApplication {}
+                        """);
+
+        Path classes = projectRoot.resolve("target/classes/com/example");
+        for (int i = 0; i < 25; i++) {
+            TestClassFiles.write(classes.resolve("orders/Order" + i + ".class"),
+                    "com.example.orders.Order" + i, false, "com.example.billing.Invoice");
+        }
+        TestClassFiles.write(classes.resolve("billing/Invoice.class"), "com.example.billing.Invoice", false);
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.softwaremetrics.infrastructure;
+
+import com.example.softwaremetrics.domain.TestClassFiles;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the application on a random port and runs concurrent users against it, each sending a
+ * random mix of scans and queries of generated projects for a fixed time. Reports throughput and
+ * latency percentiles per request type with the heap and GC activity of the run, and fails if a
+ * p99 latency exceeds its budget or a request fails. Run with {@code mvn test -Pload}.
+ *
+ * <p>Settings, as system properties:
+ * <ul>
+ *     <li>{@code load.users} (8): concurrent users;</li>
+ *     <li>{@code load.seconds} (20) and {@code load.warmup-seconds} (5): measured and warm-up time;</li>
+ *     <li>{@code load.projects} (4) and {@code load.classes} (2000): generated projects and classes
+ *         in each;</li>
+ *     <li>{@code load.scan-percent} (5): share of requests that scan, half of them through the
+ *         page and half through the API;</li>
+ *     <li>{@code load.budget.scan-p99-ms} (10000) and {@code load.budget.query-p99-ms} (250): p99
+ *         budgets of scans and queries;</li>
+ *     <li>{@code load.budget.rejected-percent} (5): share of scans that may be rejected with 429
+ *         when the scan queue is full.</li>
+ * </ul>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ScanLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanLoadTest.class);
+
+    private static final int USERS = Integer.getInteger("load.users", 8);
+    private static final Duration RUN_TIME = Duration.ofSeconds(Long.getLong("load.seconds", 20));
+    private static final Duration WARMUP_TIME = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 5));
+    private static final int PROJECTS = Integer.getInteger("load.projects", 4);
+    private static final int CLASSES = Integer.getInteger("load.classes", 2000);
+    private static final int SCAN_PERCENT = Integer.getInteger("load.scan-percent", 5);
+    private static final long SCAN_P99_BUDGET_MS = Long.getLong("load.budget.scan-p99-ms", 10_000);
+    private static final long QUERY_P99_BUDGET_MS = Long.getLong("load.budget.query-p99-ms", 250);
+    private static final double REJECTED_PERCENT_BUDGET = Double.parseDouble(System.getProperty("load.budget.rejected-percent", "5"));
+    private static final int MODULES = 8;
+
+    private enum Workload {
+        PAGE_SCAN(true), API_SCAN(true), SUMMARIES(false), DEPENDENCIES(false), CONDITIONAL(false);
+
+        final boolean scan;
+
+        Workload(boolean scan) {
+            this.scan = scan;
+        }
+    }
+
+    private record Project(String path, String id, List<String> packages) {}
+
+    /**
+     * The outcome of one user's requests. Latencies are kept per request type in nanoseconds.
+     */
+    private static final class Samples {
+        final Map<Workload, long[]> latencies = new EnumMap<>(Workload.class);
+        final Map<Workload, Integer> counts = new EnumMap<>(Workload.class);
+        final Map<Workload, Integer> rejected = new EnumMap<>(Workload.class);
+        final List<String> errors = new ArrayList<>();
+
+        void add(Workload workload, long nanos) {
+            int count = counts.merge(workload, 1, Integer::sum);
+            long[] values = latencies.computeIfAbsent(workload, w -> new long[1024]);
+            if (count > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+                latencies.put(workload, values);
+            }
+            values[count - 1] = nanos;
+        }
+    }
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @TempDir
+    Path tempDir;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Test
+    void concurrentScansAndQueries() throws Exception {
+        List<Project> projects = new ArrayList<>();
+        for (int p = 0; p < PROJECTS; p++) {
+            Path root = tempDir.resolve("project" + p);
+            createProject(root, p);
+            projects.add(scan(root.toString()));
+        }
+        logger.info("{} users, {} projects of {} classes, {}% scans, {} s after {} s warm-up",
+                USERS, PROJECTS, CLASSES, SCAN_PERCENT, RUN_TIME.toSeconds(), WARMUP_TIME.toSeconds());
+
+        run(projects, WARMUP_TIME);
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long start = System.nanoTime();
+        List<Samples> results = run(projects, RUN_TIME);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        Samples total = merge(results);
+        int requests = total.counts.values().stream().mapToInt(Integer::intValue).sum();
+        logger.info("{} requests in {} s: {} req/s", requests, String.format("%.1f", seconds), String.format("%.1f", requests / seconds));
+        List<Executable> checks = new ArrayList<>();
+        for (Workload workload : Workload.values()) {
+            int count = total.counts.getOrDefault(workload, 0);
+            int rejected = total.rejected.getOrDefault(workload, 0);
+            if (count == 0 && rejected == 0) continue;
+            long[] sorted = Arrays.copyOf(total.latencies.getOrDefault(workload, new long[0]), count);
+            Arrays.sort(sorted);
+            logger.info("{}: {} requests, {} req/s, p50 {} ms, p95 {} ms, p99 {} ms, max {} ms, {} rejected",
+                    workload, count, String.format("%.1f", count / seconds), millis(percentile(sorted, 50)),
+                    millis(percentile(sorted, 95)), millis(percentile(sorted, 99)), millis(percentile(sorted, 100)), rejected);
+            long budget = workload.scan ? SCAN_P99_BUDGET_MS : QUERY_P99_BUDGET_MS;
+            long p99 = millis(percentile(sorted, 99));
+            checks.add(() -> assertTrue(p99 <= budget, workload + " p99 of " + p99 + " ms exceeds the budget of " + budget + " ms"));
+            if (workload.scan) {
+                double rejectedPercent = 100.0 * rejected / (count + rejected);
+                checks.add(() -> assertTrue(rejectedPercent <= REJECTED_PERCENT_BUDGET,
+                        workload + ": " + String.format("%.1f", rejectedPercent) + "% of the scans were rejected"));
+            }
+        }
+        logger.info("heap peak {} MB, {} collections taking {} ms", peakHeap / (1024 * 1024),
+                gcCount() - gcCount, gcMillis() - gcMillis);
+        checks.add(() -> assertTrue(total.errors.isEmpty(), total.errors.size() + " failed requests, first: "
+                + total.errors.stream().findFirst().orElse("")));
+        assertAll(checks);
+    }
+
+    private List<Samples> run(List<Project> projects, Duration time) throws Exception {
+        long deadline = System.nanoTime() + time.toNanos();
+        try (ExecutorService executor = Executors.newFixedThreadPool(USERS)) {
+            List<Future<Samples>> users = new ArrayList<>();
+            for (int u = 0; u < USERS; u++) {
+                Random random = new Random(u);
+                users.add(executor.submit(() -> user(projects, random, deadline)));
+            }
+            List<Samples> results = new ArrayList<>();
+            for (Future<Samples> user : users) {
+                results.add(user.get());
+            }
+            return results;
+        }
+    }
+
+    private Samples user(List<Project> projects, Random random, long deadline) {
+        Samples samples = new Samples();
+        while (System.nanoTime() < deadline) {
+            Project project = projects.get(random.nextInt(projects.size()));
+            Workload workload = pick(random);
+            HttpRequest request = request(workload, project, random);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                long nanos = System.nanoTime() - start;
+                int status = response.statusCode();
+                // the page answers 200 with an error fragment, so its failures are told apart by the text
+                if (workload == Workload.PAGE_SCAN && response.body().contains("Error scanning project")) {
+                    status = response.body().contains("retry later") ? 429 : 500;
+                }
+                if (status == 429 && workload.scan) {
+                    samples.rejected.merge(workload, 1, Integer::sum);
+                } else if (status == expectedStatus(workload)) {
+                    samples.add(workload, nanos);
+                } else {
+                    samples.errors.add(workload + " " + request.uri() + ": HTTP " + status);
+                }
+            } catch (IOException e) {
+                samples.errors.add(workload + " " + request.uri() + ": " + e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return samples;
+    }
+
+    private static Workload pick(Random random) {
+        if (random.nextInt(100) < SCAN_PERCENT) {
+            return random.nextBoolean() ? Workload.PAGE_SCAN : Workload.API_SCAN;
+        }
+        return switch (random.nextInt(3)) {
+            case 0 -> Workload.SUMMARIES;
+            case 1 -> Workload.DEPENDENCIES;
+            default -> Workload.CONDITIONAL;
+        };
+    }
+
+    private static int expectedStatus(Workload workload) {
+        return switch (workload) {
+            case API_SCAN -> 201;
+            case CONDITIONAL -> 304;
+            default -> 200;
+        };
+    }
+
+    private HttpRequest request(Workload workload, Project project, Random random) {
+        String path = URLEncoder.encode(project.path(), StandardCharsets.UTF_8);
+        String scan = "/api/scans/" + project.id();
+        return switch (workload) {
+            case PAGE_SCAN -> HttpRequest.newBuilder(uri("/scan"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString("path=" + path))
+                    .build();
+            case API_SCAN -> HttpRequest.newBuilder(uri("/api/scans?fields=packageName&path=" + path))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            case SUMMARIES -> HttpRequest.newBuilder(uri(scan + "/packages")).GET().build();
+            case DEPENDENCIES -> HttpRequest.newBuilder(uri(scan + "/packages/"
+                            + project.packages().get(random.nextInt(project.packages().size())) + "/afferent?limit=100"))
+                    .GET().build();
+            case CONDITIONAL -> HttpRequest.newBuilder(uri(scan))
+                    .header("If-None-Match", "\"" + project.id() + "\"")
+                    .GET().build();
+        };
+    }
+
+    private Project scan(String path) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                        uri("/api/scans?fields=packageName&path=" + URLEncoder.encode(path, StandardCharsets.UTF_8)))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Scan of " + path + " failed: HTTP " + response.statusCode() + " " + response.body());
+        }
+        JsonNode body = objectMapper.readTree(response.body());
+        List<String> packages = new ArrayList<>();
+        body.get("packages").forEach(pkg -> packages.add(pkg.get("packageName").asText()));
+        return new Project(path, body.get("id").asText(), packages);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static Samples merge(List<Samples> results) {
+        Samples total = new Samples();
+        for (Samples samples : results) {
+            samples.counts.forEach((workload, count) -> {
+                long[] values = samples.latencies.get(workload);
+                for (int i = 0; i < count; i++) {
+                    total.add(workload, values[i]);
+                }
+            });
+            samples.rejected.forEach((workload, count) -> total.rejected.merge(workload, count, Integer::sum));
+            total.errors.addAll(samples.errors);
+        }
+        return total;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    /**
+     * A project of {@link #MODULES} modules whose classes each depend on a few classes of other
+     * modules, as in {@code WarmStartBenchmarkTest}.
+     */
+    private static void createProject(Path root, int seed) throws IOException {
+        Path sources = root.resolve("src/main/java/com/example");
+        Files.createDirectories(sources);
+        Files.writeString(sources.resolve("LoadApplication.java"), """
+                package com.example;
+
+                @SpringBootApplication
+                public class LoadApplication {}
+                """);
+        for (int m = 0; m < MODULES; m++) {
+            Files.createDirectories(sources.resolve("module" + m));
+        }
+        Random random = new Random(seed);
+        for (int i = 0; i < CLASSES; i++) {
+            String module = "com.example.module" + (i % MODULES);
+            String[] dependencies = new String[4];
+            for (int d = 0; d < dependencies.length; d++) {
+                int target = random.nextInt(CLASSES);
+                dependencies[d] = "com.example.module" + (target % MODULES) + ".Class" + target;
+            }
+            TestClassFiles.write(root.resolve("target/classes/" + module.replace('.', '/') + "/Class" + i + ".class"),
+                    module + ".Class" + i, i % 5 == 0, dependencies);
+        }
+    }
+}
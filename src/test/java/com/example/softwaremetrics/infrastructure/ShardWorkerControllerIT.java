@@ -0,0 +1,69 @@
+package com.example.softwaremetrics.infrastructure;
+
+import com.example.softwaremetrics.application.ShardRequest;
+import com.example.softwaremetrics.domain.TestClassFiles;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"scan.worker-enabled=true", "scan.worker-project-root=${java.io.tmpdir}"})
+@AutoConfigureMockMvc
+public class ShardWorkerControllerIT {
+
+    private static final List<String> MODULES = List.of("com.example.orders");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testShardOfAProjectBelowTheRootIsAnalyzed() throws Exception {
+        TestClassFiles.write(tempDir.resolve("com/example/orders/Order.class"), "com.example.orders.Order", false);
+
+        mockMvc.perform(shard(tempDir.toString(), "com/example/orders/Order.class"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.packages[0].totalClassCount").value(1));
+    }
+
+    @Test
+    public void testShardOfAProjectOutsideTheRootIsRejected() throws Exception {
+        Path outside = Path.of("/").toRealPath();
+
+        mockMvc.perform(shard(outside.toString(), "etc/hostname"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testShardThroughALinkOutOfTheRootIsRejected() throws Exception {
+        Path link = Files.createSymbolicLink(tempDir.resolve("link"), Path.of("/").toRealPath());
+
+        mockMvc.perform(shard(link.toString(), "etc/hostname"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private RequestBuilder shard(String projectPath, String file) throws Exception {
+        ShardRequest request = new ShardRequest(projectPath, MODULES, List.of(file), 0, 0);
+        return post("/internal/shards").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(request));
+    }
+}